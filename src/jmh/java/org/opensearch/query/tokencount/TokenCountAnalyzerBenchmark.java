@@ -0,0 +1,196 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.util.CharsRef;
+import org.apache.lucene.util.CharsRefBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TokenCountAnalyzer#countTokens(Analyzer, String)} across analyzers, text sizes and
+ * numbers of concurrently analyzing threads. Texts are generated from a fixed seed, so every run
+ * analyzes the same input.
+ */
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TokenCountAnalyzerBenchmark {
+
+    private static final long SEED = 0x70CE4C0047L;
+
+    // a mix of plain words, stop words, synonym triggers, hyphenated and mixed-case words
+    private static final String[] VOCABULARY = {
+        "the", "a", "of", "and", "with", "for", "to", "in",
+        "wireless", "mouse", "keyboard", "laptop", "notebook", "usb", "charger", "cable",
+        "running", "shoes", "machine", "learning", "search", "engine", "phrase", "query",
+        "Wi-Fi", "e-mail", "PowerShot", "iPhone15", "SD-card", "4K", "USB-C", "x86_64",
+        "router", "monitor", "speaker", "headphones", "battery", "adapter", "display", "camera"
+    };
+
+    public enum AnalyzerType {
+        STANDARD,
+        STOP,
+        SYNONYM_GRAPH,
+        WORD_DELIMITER
+    }
+
+    public enum TextSize {
+        TOKENS_5(5, Integer.MAX_VALUE),
+        TOKENS_100(100, Integer.MAX_VALUE),
+        CHARS_10K(Integer.MAX_VALUE, 10_000),
+        CHARS_100K(Integer.MAX_VALUE, 100_000);
+
+        private final int words;
+        private final int chars;
+
+        TextSize(int words, int chars) {
+            this.words = words;
+            this.chars = chars;
+        }
+    }
+
+    @Param
+    public AnalyzerType analyzerType;
+
+    @Param
+    public TextSize textSize;
+
+    private Analyzer analyzer;
+    private String text;
+
+    @Setup
+    public void setup() throws IOException {
+        analyzer = createAnalyzer(analyzerType);
+        text = createText(textSize, new Random(SEED));
+    }
+
+    @TearDown
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int countTokensOneThread() throws IOException {
+        return TokenCountAnalyzer.countTokens(analyzer, text);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int countTokensFourThreads() throws IOException {
+        return TokenCountAnalyzer.countTokens(analyzer, text);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int countTokensAllCores() throws IOException {
+        return TokenCountAnalyzer.countTokens(analyzer, text);
+    }
+
+    static String createText(TextSize size, Random random) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size.words && builder.length() < size.chars; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+        }
+        if (builder.length() > size.chars) {
+            builder.setLength(size.chars);
+        }
+        return builder.toString();
+    }
+
+    static Analyzer createAnalyzer(AnalyzerType type) throws IOException {
+        switch (type) {
+            case STANDARD:
+                return new StandardAnalyzer();
+            case STOP:
+                return new Analyzer() {
+                    @Override
+                    protected TokenStreamComponents createComponents(String fieldName) {
+                        Tokenizer tokenizer = new StandardTokenizer();
+                        TokenStream stream = new LowerCaseFilter(tokenizer);
+                        return new TokenStreamComponents(tokenizer, new StopFilter(stream, EnglishAnalyzer.ENGLISH_STOP_WORDS_SET));
+                    }
+                };
+            case SYNONYM_GRAPH:
+                SynonymMap synonyms = createSynonyms();
+                return new Analyzer() {
+                    @Override
+                    protected TokenStreamComponents createComponents(String fieldName) {
+                        Tokenizer tokenizer = new StandardTokenizer();
+                        TokenStream stream = new LowerCaseFilter(tokenizer);
+                        return new TokenStreamComponents(tokenizer, new SynonymGraphFilter(stream, synonyms, true));
+                    }
+                };
+            case WORD_DELIMITER:
+                int flags = WordDelimiterGraphFilter.GENERATE_WORD_PARTS | WordDelimiterGraphFilter.GENERATE_NUMBER_PARTS
+                    | WordDelimiterGraphFilter.SPLIT_ON_CASE_CHANGE | WordDelimiterGraphFilter.SPLIT_ON_NUMERICS
+                    | WordDelimiterGraphFilter.STEM_ENGLISH_POSSESSIVE | WordDelimiterGraphFilter.PRESERVE_ORIGINAL;
+                return new Analyzer() {
+                    @Override
+                    protected TokenStreamComponents createComponents(String fieldName) {
+                        Tokenizer tokenizer = new WhitespaceTokenizer();
+                        TokenStream stream = new WordDelimiterGraphFilter(tokenizer, flags, null);
+                        return new TokenStreamComponents(tokenizer, new LowerCaseFilter(stream));
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown analyzer type: " + type);
+        }
+    }
+
+    private static SynonymMap createSynonyms() throws IOException {
+        SynonymMap.Builder builder = new SynonymMap.Builder(true);
+        addSynonym(builder, "laptop", "notebook computer");
+        addSynonym(builder, "notebook", "laptop");
+        addSynonym(builder, "wireless mouse", "cordless mouse");
+        addSynonym(builder, "wi fi", "wireless network");
+        addSynonym(builder, "usb", "universal serial bus");
+        addSynonym(builder, "machine learning", "ml");
+        return builder.build();
+    }
+
+    private static void addSynonym(SynonymMap.Builder builder, String input, String output) {
+        CharsRef in = SynonymMap.Builder.join(input.split(" "), new CharsRefBuilder());
+        CharsRef out = SynonymMap.Builder.join(output.split(" "), new CharsRefBuilder());
+        builder.add(in, out, true);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Lucene queries built by {@link TokenCountQueryHelper} for every operator against an
+ * in-memory index of token_count values. Counts follow the long-tailed distribution of real titles,
+ * and both the values and the segment layout are derived from a fixed seed and fixed flush points,
+ * so every run searches an identical index.
+ * <p>
+ * With {@code lead} set to {@code TERM} the count query filters a term query matching one document in
+ * a thousand, the way a count clause usually runs next to a selective match. That conjunction is where
+ * {@code INDEX_OR_DOC_VALUES} checks the lead's matches against doc values instead of visiting points.
+ */
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TokenCountQueryBenchmark {
+
+    private static final long SEED = 0x70CE4C0047L;
+    private static final String FIELD = "title.num_words";
+    private static final String LEAD_FIELD = "category";
+    private static final int LEAD_EVERY = 1000;
+
+    @Param({ "1000000" })
+    public int numDocs;
+
+    @Param
+    public TokenCountQueryBuilder.Operator operator;
+
+    @Param({ "3", "12" })
+    public int queryCount;
+
+    @Param({ "POINTS", "DOC_VALUES", "INDEX_OR_DOC_VALUES" })
+    public String execution;
+
+    @Param({ "NONE", "TERM" })
+    public String lead;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private IndexSearcher searcher;
+    private Query query;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = new ByteBuffersDirectory();
+        Random random = new Random(SEED);
+        IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+            .setMaxBufferedDocs(numDocs / 10 + 1)
+            .setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                int tokens = titleLength(random);
+                Document doc = new Document();
+                doc.add(new IntPoint(FIELD, tokens));
+                doc.add(new SortedNumericDocValuesField(FIELD, tokens));
+                doc.add(new StringField(LEAD_FIELD, i % LEAD_EVERY == 0 ? "rare" : "common", Field.Store.NO));
+                writer.addDocument(doc);
+            }
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+        // measure the query itself, not the cache
+        searcher.setQueryCache(null);
+        int[] counts = new int[] { queryCount };
+        switch (execution) {
+            case "POINTS":
+                query = TokenCountQueryHelper.createQuery(FIELD, counts, operator);
+                break;
+            case "DOC_VALUES":
+                query = TokenCountQueryHelper.createDocValuesQuery(FIELD, counts, operator);
+                break;
+            default:
+                query = TokenCountQueryHelper.createQuery(FIELD, counts, operator, true, true);
+                break;
+        }
+        if (lead.equals("TERM")) {
+            query = new BooleanQuery.Builder().add(new TermQuery(new Term(LEAD_FIELD, "rare")), BooleanClause.Occur.MUST)
+                .add(query, BooleanClause.Occur.FILTER)
+                .build();
+        }
+    }
+
+    /**
+     * Log-normal around 8 tokens, like product and article titles, capped at 200.
+     */
+    private static int titleLength(Random random) {
+        double value = Math.exp(Math.log(8) + 0.6 * random.nextGaussian());
+        return (int) Math.max(1, Math.min(200, Math.round(value)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public int count() throws IOException {
+        return searcher.count(query);
+    }
+
+    @Benchmark
+    public TopDocs topTenExactTotalHits() throws IOException {
+        return searcher.search(query, new TopScoreDocCollectorManager(10, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.index.IndexSettings;
+
+/**
+ * The limits a text is analyzed within by {@link TokenCountServices}, together with what the text was
+ * given to and how its length limit is changed, so that every caller reports an exceeded limit alike.
+ */
+public final class AnalysisLimits {
+
+    private final String subject;
+    private final int maxTextChars;
+    private final String maxTextCharsLimit;
+    private final int maxTokens;
+    private final int stopAfter;
+
+    /**
+     * @param subject What the text was given to, such as {@code the text in [token_count] query}
+     * @param maxTextChars The longest text that may be analyzed
+     * @param maxTextCharsLimit How {@code maxTextChars} is changed, such as {@code the [max_text_chars] option}
+     * @param maxTokens The maximum number of tokens a text may produce
+     */
+    public AnalysisLimits(String subject, int maxTextChars, String maxTextCharsLimit, int maxTokens) {
+        this(subject, maxTextChars, maxTextCharsLimit, maxTokens, Integer.MAX_VALUE);
+    }
+
+    private AnalysisLimits(String subject, int maxTextChars, String maxTextCharsLimit, int maxTokens, int stopAfter) {
+        this.subject = subject;
+        this.maxTextChars = maxTextChars;
+        this.maxTextCharsLimit = maxTextCharsLimit;
+        this.maxTokens = maxTokens;
+        this.stopAfter = stopAfter;
+    }
+
+    /**
+     * @return The limits the settings of the given index set
+     */
+    public static AnalysisLimits of(String subject, IndexSettings indexSettings) {
+        return new AnalysisLimits(
+            subject,
+            indexSettings.getValue(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING),
+            TokenCountAnalyzer.MAX_TEXT_CHARS_LIMIT,
+            indexSettings.getValue(TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING)
+        );
+    }
+
+    /**
+     * @return The limits the index level settings default to, for texts analyzed outside of any index
+     */
+    public static AnalysisLimits defaults(String subject) {
+        return new AnalysisLimits(
+            subject,
+            TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getDefault(Settings.EMPTY),
+            TokenCountAnalyzer.MAX_TEXT_CHARS_LIMIT,
+            TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING.getDefault(Settings.EMPTY)
+        );
+    }
+
+    /**
+     * @return The same limits, with analysis stopping as soon as the count reaches {@code stopAfter}
+     */
+    public AnalysisLimits stopAfter(int stopAfter) {
+        return new AnalysisLimits(subject, maxTextChars, maxTextCharsLimit, maxTokens, stopAfter);
+    }
+
+    int maxTextChars() {
+        return maxTextChars;
+    }
+
+    int maxTokens() {
+        return maxTokens;
+    }
+
+    int stopAfter() {
+        return stopAfter;
+    }
+
+    /**
+     * Throws if the text is longer than the limit allows.
+     */
+    void checkLength(String text) {
+        if (text.length() > maxTextChars) {
+            throw TokenCountAnalyzer.textTooLong(subject, text.length(), maxTextChars, maxTextCharsLimit);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.index.analysis.NamedAnalyzer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts produced while serving one search request, so that every token_count and exact_phrase clause
+ * of the request that analyzes the same text with the same analyzer instance reuses the first result.
+ * Unlike {@link TokenCountCache} it needs no configuration and holds no memory beyond the request.
+ * <p>
+ * The memo travels in the transient headers of the thread context. {@link AnalysisMemoFilter} installs
+ * one for every search and multi search a node coordinates, which the shard requests the node serves
+ * for it and the items of a multi search inherit; {@link AnalysisMemoInterceptor} installs one for
+ * every shard request that comes from another node.
+ */
+final class AnalysisMemo {
+
+    static final String TRANSIENT_NAME = "_token_count_analysis_memo";
+
+    // bounds the memo of requests that analyze a different text in every clause
+    static final int MAX_MEMOIZED_TEXTS = 4096;
+
+    private final ConcurrentHashMap<Key, Entry> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the memo of the request served in the given thread context, or a new memo that is only
+     * shared by its caller if no request installed one.
+     */
+    static AnalysisMemo of(ThreadContext threadContext) {
+        AnalysisMemo memo = current(threadContext);
+        return memo != null ? memo : new AnalysisMemo();
+    }
+
+    /**
+     * @return The memo of the request served in the given thread context, or null if no request installed one
+     */
+    static AnalysisMemo current(ThreadContext threadContext) {
+        return threadContext == null ? null : threadContext.getTransient(TRANSIENT_NAME);
+    }
+
+    /**
+     * Installs a new memo in the thread context unless the request being served already has one.
+     *
+     * @return The context to restore once the request is handed over, or null if a memo was already installed
+     */
+    static ThreadContext.StoredContext install(ThreadContext threadContext) {
+        if (threadContext.getTransient(TRANSIENT_NAME) != null) {
+            return null;
+        }
+        ThreadContext.StoredContext restore = threadContext.newStoredContext(true);
+        threadContext.putTransient(TRANSIENT_NAME, new AnalysisMemo());
+        return restore;
+    }
+
+    /**
+     * Returns the count of the text if it was already analyzed for this request and the result
+     * decides a count capped at {@code stopAfter}, or null otherwise.
+     */
+    Integer get(NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text, int stopAfter) {
+        Entry entry = counts.get(new Key(analyzer, mode, text));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.count < entry.stopAfter) {
+            // the analysis ran to the end, so the count is exact
+            return Math.min(entry.count, stopAfter);
+        }
+        // the analysis stopped early, the text has at least entry.stopAfter tokens
+        return stopAfter <= entry.stopAfter ? stopAfter : null;
+    }
+
+    /**
+     * Remembers the count of the text, as produced by an analysis that stopped at {@code stopAfter}.
+     */
+    void put(NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text, int count, int stopAfter) {
+        if (counts.size() >= MAX_MEMOIZED_TEXTS) {
+            return;
+        }
+        counts.merge(new Key(analyzer, mode, text), new Entry(count, stopAfter), (a, b) -> a.stopAfter >= b.stopAfter ? a : b);
+    }
+
+    private static final class Entry {
+        private final int count;
+        private final int stopAfter;
+
+        Entry(int count, int stopAfter) {
+            this.count = count;
+            this.stopAfter = stopAfter;
+        }
+    }
+
+    private static final class Key {
+        private final NamedAnalyzer analyzer;
+        private final TokenCountAnalyzer.CountMode mode;
+        private final String text;
+
+        Key(NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text) {
+            this.analyzer = analyzer;
+            this.mode = mode;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return analyzer == other.analyzer && mode == other.mode && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(analyzer), mode, text);
+        }
+    }
+}
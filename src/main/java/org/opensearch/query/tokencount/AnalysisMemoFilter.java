@@ -0,0 +1,69 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.search.MultiSearchAction;
+import org.opensearch.action.search.SearchAction;
+import org.opensearch.action.support.ActionFilter;
+import org.opensearch.action.support.ActionFilterChain;
+import org.opensearch.action.support.ContextPreservingActionListener;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.tasks.Task;
+import org.opensearch.threadpool.ThreadPool;
+
+import java.util.function.Supplier;
+
+/**
+ * Installs an {@link AnalysisMemo} for every search and multi search the node coordinates. The shard
+ * requests the node sends to itself and the searches of a multi search run in the thread context of
+ * the request, so they all share its memo.
+ */
+final class AnalysisMemoFilter implements ActionFilter {
+
+    // action filters are created before the node components, so the thread pool is only known later
+    private final Supplier<ThreadPool> threadPool;
+
+    AnalysisMemoFilter(Supplier<ThreadPool> threadPool) {
+        this.threadPool = threadPool;
+    }
+
+    @Override
+    public int order() {
+        // run last, right before the action, so that no other filter sees the memo
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public <Request extends ActionRequest, Response extends ActionResponse> void apply(
+        Task task,
+        String action,
+        Request request,
+        ActionListener<Response> listener,
+        ActionFilterChain<Request, Response> chain
+    ) {
+        ThreadPool pool = threadPool.get();
+        if (pool == null || (SearchAction.NAME.equals(action) == false && MultiSearchAction.NAME.equals(action) == false)) {
+            chain.proceed(task, action, request, listener);
+            return;
+        }
+        ThreadContext threadContext = pool.getThreadContext();
+        Supplier<ThreadContext.StoredContext> callerContext = threadContext.newRestorableContext(true);
+        ThreadContext.StoredContext restore = AnalysisMemo.install(threadContext);
+        if (restore == null) {
+            // a search of a multi search, which shares the memo of the multi search
+            chain.proceed(task, action, request, listener);
+            return;
+        }
+        try (ThreadContext.StoredContext ignore = restore) {
+            chain.proceed(task, action, request, new ContextPreservingActionListener<>(callerContext, listener));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.opensearch.action.search.SearchAction;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.transport.TransportInterceptor;
+import org.opensearch.transport.TransportRequest;
+import org.opensearch.transport.TransportRequestHandler;
+
+/**
+ * Installs an {@link AnalysisMemo} for every shard-level search request that arrives without one,
+ * which is every request sent by another node: transient headers do not cross the wire. Requests the
+ * node sends to itself keep the memo of the search they belong to.
+ */
+final class AnalysisMemoInterceptor implements TransportInterceptor {
+
+    // the can_match, dfs, query and fetch phases of a search on one shard
+    private static final String SHARD_ACTIONS = SearchAction.NAME + "[";
+
+    private final ThreadContext threadContext;
+
+    AnalysisMemoInterceptor(ThreadContext threadContext) {
+        this.threadContext = threadContext;
+    }
+
+    @Override
+    public <T extends TransportRequest> TransportRequestHandler<T> interceptHandler(
+        String action,
+        String executor,
+        boolean forceExecution,
+        TransportRequestHandler<T> actualHandler
+    ) {
+        if (action.startsWith(SHARD_ACTIONS) == false) {
+            return actualHandler;
+        }
+        return (request, channel, task) -> {
+            ThreadContext.StoredContext restore = AnalysisMemo.install(threadContext);
+            if (restore == null) {
+                actualHandler.messageReceived(request, channel, task);
+                return;
+            }
+            try (ThreadContext.StoredContext ignore = restore) {
+                actualHandler.messageReceived(request, channel, task);
+            }
+        };
+    }
+}
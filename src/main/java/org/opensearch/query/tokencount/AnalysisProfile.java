@@ -0,0 +1,112 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cost of the analysis behind one token_count clause: how long resolving the analyzer and
+ * analyzing the texts took, and how many tokens and positions the analysis went through.
+ * <p>
+ * Every clause that analyzes a text records a profile, whether or not the search is profiled or the
+ * slow log is enabled, since neither is known while the query is built. Profiles travel with the
+ * query of their clause, wrapped in a {@link TokenCountAnalysisQuery}, which puts them in the search
+ * profile output and lets the token_count slow log find them in the query of a search. Texts of one
+ * clause may be analyzed concurrently, so updates are synchronized.
+ */
+final class AnalysisProfile {
+
+    private final String field;
+    private String analyzer;
+    private long resolveNanos;
+    private long analysisNanos;
+    private int texts;
+    private long tokens;
+    private long positions;
+    private int cacheHits;
+
+    AnalysisProfile(String field) {
+        this.field = field;
+    }
+
+    /**
+     * Returns the profiles of the token_count clauses of the given query.
+     */
+    static List<AnalysisProfile> of(Query query) {
+        List<AnalysisProfile> profiles = new ArrayList<>();
+        query.visit(new QueryVisitor() {
+            @Override
+            public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+                if (parent instanceof TokenCountAnalysisQuery) {
+                    profiles.add(((TokenCountAnalysisQuery) parent).getProfile());
+                }
+                return this;
+            }
+        });
+        return profiles;
+    }
+
+    synchronized void onResolved(String analyzerName, long tookNanos) {
+        analyzer = analyzerName;
+        resolveNanos += tookNanos;
+    }
+
+    synchronized void onAnalyzed(int tokenCount, int positionCount, long tookNanos) {
+        texts++;
+        tokens += tokenCount;
+        positions += positionCount;
+        analysisNanos += tookNanos;
+    }
+
+    synchronized void onCacheHit() {
+        texts++;
+        cacheHits++;
+    }
+
+    synchronized long resolveNanos() {
+        return resolveNanos;
+    }
+
+    synchronized long analysisNanos() {
+        return analysisNanos;
+    }
+
+    synchronized long tokens() {
+        return tokens;
+    }
+
+    synchronized long positions() {
+        return positions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "field["
+            + field
+            + "], analyzer["
+            + analyzer
+            + "], resolve_nanos["
+            + resolveNanos
+            + "], analysis_nanos["
+            + analysisNanos
+            + "], texts["
+            + texts
+            + "], tokens["
+            + tokens
+            + "], positions["
+            + positions
+            + "], cache_hits["
+            + cacheHits
+            + "]";
+    }
+}
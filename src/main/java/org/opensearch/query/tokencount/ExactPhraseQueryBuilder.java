@@ -0,0 +1,381 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CachingTokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.mapper.NumberFieldMapper;
+import org.opensearch.index.mapper.TextSearchInfo;
+import org.opensearch.index.query.AbstractQueryBuilder;
+import org.opensearch.index.query.QueryShardContext;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * A query that matches documents whose text field is exactly the given phrase: the phrase must match
+ * and the token_count field of the text must hold the number of positions of the phrase.
+ * <p>
+ * The text is analyzed once. When the phrase and the count use the same analyzer, which is the case
+ * whenever the token_count field is a sub-field analyzed like its parent, the phrase query and the
+ * position count are both derived from the same token stream. At search time the count is checked
+ * against doc values before the phrase positions are read, see {@link PhraseCountQuery}.
+ */
+public class ExactPhraseQueryBuilder extends AbstractQueryBuilder<ExactPhraseQueryBuilder> {
+
+    public static final String NAME = "exact_phrase";
+
+    private final String fieldName;
+    private final String text;
+    private final String countField;
+    private String analyzer;
+
+    /**
+     * Constructs a new exact phrase query.
+     *
+     * @param fieldName The text field to match the phrase against
+     * @param text The phrase
+     * @param countField The token_count field holding the token count of the text field
+     */
+    public ExactPhraseQueryBuilder(String fieldName, String text, String countField) {
+        if (fieldName == null || fieldName.isEmpty()) {
+            throw new IllegalArgumentException("field cannot be null or empty");
+        }
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("query cannot be null or empty");
+        }
+        if (countField == null || countField.isEmpty()) {
+            throw new IllegalArgumentException("count_field cannot be null or empty");
+        }
+        this.fieldName = fieldName;
+        this.text = text;
+        this.countField = countField;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public ExactPhraseQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        this.fieldName = in.readString();
+        this.text = in.readString();
+        this.countField = in.readString();
+        this.analyzer = in.readOptionalString();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeString(text);
+        out.writeString(countField);
+        out.writeOptionalString(analyzer);
+    }
+
+    /**
+     * @return The text field the phrase is matched against
+     */
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return The phrase
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return The token_count field holding the token count of the text field
+     */
+    public String countField() {
+        return countField;
+    }
+
+    /**
+     * @return The analyzer name, or null if using the analyzers of the fields' mappings
+     */
+    public String analyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Sets the analyzer used to build the phrase. If not set, the search quote analyzer of the text
+     * field is used. The count is always taken with the analyzer of the token_count field's mapping,
+     * since that is the analyzer its values were indexed with.
+     */
+    public ExactPhraseQueryBuilder analyzer(String analyzer) {
+        this.analyzer = analyzer;
+        return this;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field("field", fieldName);
+        builder.field("query", text);
+        builder.field("count_field", countField);
+        if (analyzer != null) {
+            builder.field("analyzer", analyzer);
+        }
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        MappedFieldType countFieldType = context.fieldMapper(countField);
+        if (fieldType == null || countFieldType == null) {
+            return new MatchNoDocsQuery("[" + NAME + "] unmapped field [" + (fieldType == null ? fieldName : countField) + "]");
+        }
+        TextSearchInfo textSearchInfo = fieldType.getTextSearchInfo();
+        if (textSearchInfo == TextSearchInfo.NONE) {
+            throw new IllegalArgumentException(
+                "[" + NAME + "] query requires a text field, but [" + fieldName + "] is of type [" + fieldType.typeName() + "]"
+            );
+        }
+        if (countFieldType instanceof NumberFieldMapper.NumberFieldType == false
+            || ((NumberFieldMapper.NumberFieldType) countFieldType).numberType() != NumberFieldMapper.NumberType.INTEGER
+            || countFieldType.hasDocValues() == false) {
+            throw new IllegalArgumentException(
+                "["
+                    + NAME
+                    + "] query requires an integer count_field with doc values, but ["
+                    + countField
+                    + "] is of type ["
+                    + countFieldType.typeName()
+                    + "]"
+            );
+        }
+        AnalysisLimits limits = AnalysisLimits.of("the text in [" + NAME + "] query", context.getIndexSettings());
+        limits.checkLength(text);
+        int maxTokens = limits.maxTokens();
+
+        TokenCountServices services = TokenCountServices.of(context);
+        AnalysisProfile profile = new AnalysisProfile(countField);
+        long resolveStartNanos = System.nanoTime();
+        NamedAnalyzer phraseAnalyzer = analyzer != null ? explicitAnalyzer(context) : textSearchInfo.getSearchQuoteAnalyzer();
+        TokenCountFieldResolver.ResolvedField resolved = services.fieldResolver().resolve(context, countField);
+        // a plain integer field has no analyzer of its own, its values are assumed to count the phrase's tokens
+        NamedAnalyzer countAnalyzer = resolved.isDefaultAnalyzer() ? phraseAnalyzer : resolved.analyzer();
+        boolean singlePass = countAnalyzer.name().equals(phraseAnalyzer.name());
+        profile.onResolved(countAnalyzer.name(), System.nanoTime() - resolveStartNanos);
+
+        Analysis analysis;
+        if (singlePass) {
+            // token_count clauses of the search and later searches reuse the count instead of analyzing the text again
+            analysis = services.analyze(
+                context.index(),
+                countAnalyzer,
+                resolved.mode(),
+                text,
+                limits,
+                services.memo(),
+                profile,
+                tokensRead -> analyze(context, fieldType, phraseAnalyzer, resolved.mode(), maxTokens, tokensRead),
+                a -> a.count
+            );
+        } else {
+            analysis = analyze(context, fieldType, phraseAnalyzer, resolved.mode(), maxTokens, tokensRead -> {});
+            analysis.count = services.count(context.index(), countAnalyzer, resolved.mode(), text, limits, services.memo(), profile);
+        }
+        if (analysis.phrase == null) {
+            return new MatchNoDocsQuery("[" + NAME + "] query text produced no tokens");
+        }
+        // surface the analysis in the slow log and the profile output of this search
+        return new TokenCountAnalysisQuery(new PhraseCountQuery(analysis.phrase, countField, analysis.count), profile);
+    }
+
+    /**
+     * The phrase query and token count derived from one pass over the text.
+     */
+    private static final class Analysis {
+        final Query phrase;
+        int count;
+
+        Analysis(Query phrase, int count) {
+            this.phrase = phrase;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Analyzes the text once, counting its tokens the way {@link TokenCountAnalyzer} does while the
+     * tokens are cached, then builds the phrase from the cached tokens.
+     */
+    private Analysis analyze(
+        QueryShardContext context,
+        MappedFieldType fieldType,
+        NamedAnalyzer phraseAnalyzer,
+        TokenCountAnalyzer.CountMode mode,
+        int maxTokens,
+        IntConsumer tokensRead
+    ) throws IOException {
+        try (TokenStream source = phraseAnalyzer.tokenStream(fieldName, text)) {
+            CachingTokenFilter stream = new CachingTokenFilter(source);
+            PositionIncrementAttribute position = stream.addAttribute(PositionIncrementAttribute.class);
+            PositionLengthAttribute positionLength = stream.addAttribute(PositionLengthAttribute.class);
+            int tokens = 0;
+            int positions = 0;
+            int normLength = 0;
+            boolean stacked = false;
+            boolean graph = false;
+            stream.reset();
+            while (stream.incrementToken()) {
+                if (++tokens > maxTokens) {
+                    throw TokenCountAnalyzer.tooManyTokens(maxTokens);
+                }
+                int increment = position.getPositionIncrement();
+                positions += increment;
+                if (increment > 0) {
+                    normLength++;
+                } else {
+                    stacked = true;
+                }
+                if (positionLength.getPositionLength() > 1) {
+                    graph = true;
+                }
+            }
+            stream.end();
+            tokensRead.accept(tokens);
+            positions += position.getPositionIncrement();
+            int count = mode == TokenCountAnalyzer.CountMode.POSITIONS ? positions : normLength;
+            if (tokens == 0) {
+                return new Analysis(null, count);
+            }
+
+            // the phrase builders reset the stream, which replays the cached tokens
+            Query phrase;
+            if (graph) {
+                phrase = new GraphPhraseBuilder(phraseAnalyzer).analyzeGraphPhrase(stream, fieldName);
+            } else if (stacked) {
+                phrase = fieldType.multiPhraseQuery(stream, 0, true, context);
+            } else {
+                phrase = fieldType.phraseQuery(stream, 0, true, context);
+            }
+            return new Analysis(phrase, count);
+        }
+    }
+
+    /**
+     * Exposes the graph phrase building of Lucene's query builder, used for analyzers that produce
+     * multi-position tokens such as multi-word synonyms.
+     */
+    private static final class GraphPhraseBuilder extends org.apache.lucene.util.QueryBuilder {
+
+        GraphPhraseBuilder(Analyzer analyzer) {
+            super(analyzer);
+        }
+
+        Query analyzeGraphPhrase(TokenStream stream, String field) throws IOException {
+            return analyzeGraphPhrase(stream, field, 0);
+        }
+    }
+
+    private NamedAnalyzer explicitAnalyzer(QueryShardContext context) {
+        NamedAnalyzer luceneAnalyzer = context.getIndexAnalyzers().get(analyzer);
+        if (luceneAnalyzer == null) {
+            throw new IllegalArgumentException("[" + NAME + "] analyzer [" + analyzer + "] not found");
+        }
+        return luceneAnalyzer;
+    }
+
+    @Override
+    protected boolean doEquals(ExactPhraseQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName)
+            && Objects.equals(text, other.text)
+            && Objects.equals(countField, other.countField)
+            && Objects.equals(analyzer, other.analyzer);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, text, countField, analyzer);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    /**
+     * Parse an exact_phrase query from XContent.
+     */
+    public static ExactPhraseQueryBuilder fromXContent(XContentParser parser) throws IOException {
+        String fieldName = null;
+        String text = null;
+        String countField = null;
+        String analyzer = null;
+        String queryName = null;
+        float boost = DEFAULT_BOOST;
+
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("field".equals(currentFieldName)) {
+                    fieldName = parser.text();
+                } else if ("query".equals(currentFieldName)) {
+                    text = parser.text();
+                } else if ("count_field".equals(currentFieldName)) {
+                    countField = parser.text();
+                } else if ("analyzer".equals(currentFieldName)) {
+                    analyzer = parser.text();
+                } else if (AbstractQueryBuilder.BOOST_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                    boost = parser.floatValue();
+                } else if (AbstractQueryBuilder.NAME_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                    queryName = parser.text();
+                } else {
+                    throw new ParsingException(
+                        parser.getTokenLocation(),
+                        "[" + NAME + "] query does not support [" + currentFieldName + "]"
+                    );
+                }
+            } else {
+                throw new ParsingException(
+                    parser.getTokenLocation(),
+                    "[" + NAME + "] unknown token [" + token + "] after [" + currentFieldName + "]"
+                );
+            }
+        }
+
+        if (fieldName == null) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'field' parameter");
+        }
+        if (text == null) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'query' parameter");
+        }
+        if (countField == null) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'count_field' parameter");
+        }
+
+        ExactPhraseQueryBuilder queryBuilder = new ExactPhraseQueryBuilder(fieldName, text, countField);
+        if (analyzer != null) {
+            queryBuilder.analyzer(analyzer);
+        }
+        queryBuilder.boost(boost);
+        queryBuilder.queryName(queryName);
+        return queryBuilder;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.util.WeakIdentityMap;
+import org.opensearch.index.analysis.CustomAnalyzer;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.analysis.TokenFilterFactory;
+
+/**
+ * Counts the tokens of well-known analyzer chains by scanning the characters of the text, without
+ * building a token stream.
+ * <p>
+ * Every token of the supported chains takes exactly one position and nothing is removed, so the
+ * count is the number of tokens in both count modes and no token text is needed. Supported are the
+ * keyword analyzer, the whitespace analyzer, and the standard analyzer without stop words, as well
+ * as custom analyzers without char filters that pair the keyword or standard tokenizer with
+ * lowercase filters. Tokenizers and filters are recognized by the Lucene classes their factories
+ * create, not by their configured names. Anything else, and any text a counter cannot handle exactly,
+ * such as non-ASCII text for the standard tokenizer, is left to the generic token stream path.
+ * <p>
+ * The scanners are scalar: they test one character at a time in a plain loop. A token boundary
+ * depends on the class of the characters on both sides of it, which SIMD lanes do not express
+ * without the incubating Vector API, so no part of the scan is vectorized.
+ */
+final class FastTokenCounters {
+
+    /**
+     * Returned by a counter that cannot count a text exactly.
+     */
+    static final int UNSUPPORTED = -1;
+
+    /**
+     * Counts the tokens of a text the way {@link TokenCountAnalyzer} does, or returns {@link #UNSUPPORTED}.
+     */
+    interface Counter {
+        int count(String text, int stopAfter, int maxTokens);
+    }
+
+    // the maximum token length of the whitespace tokenizer, above which it splits tokens
+    private static final int WHITESPACE_MAX_TOKEN_LENGTH = 255;
+
+    private static final Counter NONE = (text, stopAfter, maxTokens) -> UNSUPPORTED;
+
+    private static final Counter KEYWORD = (text, stopAfter, maxTokens) -> {
+        if (text.isEmpty()) {
+            return UNSUPPORTED;
+        }
+        return add(0, stopAfter, maxTokens);
+    };
+
+    // read on every count, so lookups take no lock and stale entries are only reaped when counters are added
+    private static final WeakIdentityMap<Analyzer, Counter> COUNTERS = WeakIdentityMap.newConcurrentHashMap(false);
+
+    private FastTokenCounters() {}
+
+    /**
+     * Returns the counter for the given analyzer, or a counter that always returns {@link #UNSUPPORTED}.
+     */
+    static Counter forAnalyzer(Analyzer analyzer) {
+        Counter counter = COUNTERS.get(analyzer);
+        if (counter == null) {
+            counter = detect(analyzer);
+            COUNTERS.put(analyzer, counter);
+        }
+        return counter;
+    }
+
+    private static Counter detect(Analyzer analyzer) {
+        if (analyzer instanceof NamedAnalyzer) {
+            analyzer = ((NamedAnalyzer) analyzer).analyzer();
+        }
+        if (analyzer instanceof KeywordAnalyzer) {
+            return KEYWORD;
+        }
+        if (analyzer instanceof WhitespaceAnalyzer) {
+            return FastTokenCounters::countWhitespace;
+        }
+        if (analyzer instanceof StandardAnalyzer) {
+            StandardAnalyzer standard = (StandardAnalyzer) analyzer;
+            if (standard.getStopwordSet().isEmpty() == false) {
+                return NONE;
+            }
+            int maxTokenLength = standard.getMaxTokenLength();
+            return (text, stopAfter, maxTokens) -> countStandard(text, stopAfter, maxTokens, maxTokenLength);
+        }
+        if (analyzer instanceof CustomAnalyzer) {
+            return detectCustom((CustomAnalyzer) analyzer);
+        }
+        return NONE;
+    }
+
+    private static Counter detectCustom(CustomAnalyzer analyzer) {
+        if (analyzer.charFilters().length > 0) {
+            return NONE;
+        }
+        for (TokenFilterFactory filter : analyzer.tokenFilters()) {
+            if (isLowercase(filter) == false) {
+                return NONE;
+            }
+        }
+        try (Tokenizer tokenizer = analyzer.tokenizerFactory().create()) {
+            if (tokenizer instanceof KeywordTokenizer) {
+                return KEYWORD;
+            }
+            if (tokenizer instanceof StandardTokenizer) {
+                int maxTokenLength = ((StandardTokenizer) tokenizer).getMaxTokenLength();
+                return (text, stopAfter, maxTokens) -> countStandard(text, stopAfter, maxTokens, maxTokenLength);
+            }
+        } catch (Exception e) {
+            // an unusable tokenizer is reported by the generic path
+        }
+        return NONE;
+    }
+
+    /**
+     * Whether the filter is a plain lowercase filter, judged by the filter it creates since any filter
+     * can be configured under the name {@code lowercase}. Language-specific lowercase filters are not.
+     */
+    private static boolean isLowercase(TokenFilterFactory filter) {
+        try (TokenStream stream = filter.create(new KeywordTokenizer())) {
+            return stream.getClass() == LowerCaseFilter.class;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accounts for one more token, failing once more than {@code maxTokens} tokens are read. Returns
+     * the new count, or {@code stopAfter} once the count is decided and no more tokens are read.
+     */
+    private static int add(int count, int stopAfter, int maxTokens) {
+        if (count >= stopAfter) {
+            return stopAfter;
+        }
+        if (count + 1 > maxTokens) {
+            throw TokenCountAnalyzer.tooManyTokens(maxTokens);
+        }
+        return count + 1;
+    }
+
+    static int countWhitespace(String text, int stopAfter, int maxTokens) {
+        if (text.isEmpty()) {
+            return UNSUPPORTED;
+        }
+        int count = 0;
+        int start = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            // no supplementary code point is whitespace, so surrogates can be checked one char at a time
+            boolean whitespace = i == length || Character.isWhitespace(text.charAt(i));
+            if (whitespace == false) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                if (i - start > WHITESPACE_MAX_TOKEN_LENGTH) {
+                    return UNSUPPORTED;
+                }
+                count = add(count, stopAfter, maxTokens);
+                if (count == stopAfter) {
+                    return stopAfter;
+                }
+                start = -1;
+            }
+        }
+        return Math.min(count, stopAfter);
+    }
+
+    // Word break classes of the ASCII characters, see Unicode Standard Annex #29
+    private static final byte OTHER = 0;
+    private static final byte LETTER = 1;
+    private static final byte NUMERIC = 2;
+    private static final byte EXTEND_NUM_LET = 3;
+    private static final byte MID_LETTER = 4;
+    private static final byte MID_NUM = 5;
+    private static final byte MID_NUM_LET = 6;
+    // characters that take part in emoji sequences, left to the tokenizer
+    private static final byte UNKNOWN = 7;
+
+    private static final byte[] WORD_BREAK_CLASSES = new byte[128];
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            WORD_BREAK_CLASSES[c] = LETTER;
+            WORD_BREAK_CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            WORD_BREAK_CLASSES[c] = NUMERIC;
+        }
+        WORD_BREAK_CLASSES['_'] = EXTEND_NUM_LET;
+        WORD_BREAK_CLASSES[':'] = MID_LETTER;
+        WORD_BREAK_CLASSES[','] = MID_NUM;
+        WORD_BREAK_CLASSES[';'] = MID_NUM;
+        WORD_BREAK_CLASSES['.'] = MID_NUM_LET;
+        WORD_BREAK_CLASSES['\''] = MID_NUM_LET;
+        WORD_BREAK_CLASSES['#'] = UNKNOWN;
+        WORD_BREAK_CLASSES['*'] = UNKNOWN;
+    }
+
+    /**
+     * Counts the tokens the standard tokenizer produces for ASCII text. A word is a run of letters,
+     * digits and underscores, which may also continue across a single {@code :}, {@code .} or
+     * {@code '} between two letters and a single {@code ,}, {@code ;}, {@code .} or {@code '} between
+     * two digits. Words made only of underscores produce no token.
+     */
+    static int countStandard(String text, int stopAfter, int maxTokens, int maxTokenLength) {
+        if (text.isEmpty()) {
+            return UNSUPPORTED;
+        }
+        int count = 0;
+        int start = -1;
+        boolean alphanumeric = false;
+        byte previous = OTHER;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            byte current = OTHER;
+            if (i < length) {
+                char c = text.charAt(i);
+                if (c >= WORD_BREAK_CLASSES.length || (current = WORD_BREAK_CLASSES[c]) == UNKNOWN) {
+                    return UNSUPPORTED;
+                }
+            }
+            if (current == LETTER || current == NUMERIC || current == EXTEND_NUM_LET) {
+                if (start < 0) {
+                    start = i;
+                    alphanumeric = false;
+                }
+                alphanumeric |= current != EXTEND_NUM_LET;
+                previous = current;
+                continue;
+            }
+            if (start >= 0 && current != OTHER && i + 1 < length) {
+                char next = text.charAt(i + 1);
+                if (next >= WORD_BREAK_CLASSES.length) {
+                    return UNSUPPORTED;
+                }
+                byte following = WORD_BREAK_CLASSES[next];
+                boolean joinsLetters = previous == LETTER && following == LETTER && (current == MID_LETTER || current == MID_NUM_LET);
+                boolean joinsNumbers = previous == NUMERIC && following == NUMERIC && (current == MID_NUM || current == MID_NUM_LET);
+                if (joinsLetters || joinsNumbers) {
+                    previous = current;
+                    continue;
+                }
+            }
+            if (start >= 0) {
+                if (i - start >= maxTokenLength) {
+                    // the tokenizer splits long words
+                    return UNSUPPORTED;
+                }
+                if (alphanumeric) {
+                    count = add(count, stopAfter, maxTokens);
+                    if (count == stopAfter) {
+                        return stopAfter;
+                    }
+                }
+                start = -1;
+            }
+            previous = current;
+        }
+        return Math.min(count, stopAfter);
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PointValues.IntersectVisitor;
+import org.apache.lucene.index.PointValues.Relation;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.DocIdSetBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Scores documents by how close the value of an integer field is to the nearest of a set of origins,
+ * as {@code boost * pivot / (pivot + distance)}. Only documents with a value match.
+ * <p>
+ * This is the integer counterpart of Lucene's distance feature query on long fields: once the
+ * collector raises the minimum competitive score, the values that can still compete form a window
+ * around each origin, and the scorer switches to iterating the documents the points of that window
+ * hold. A top-k "closest count" search therefore only visits the nearest counts instead of scoring
+ * every document.
+ */
+final class IntDistanceFeatureQuery extends Query {
+
+    private final String field;
+    private final int[] origins;
+    private final int pivot;
+
+    /**
+     * @param field The integer field holding the values, indexed with points and doc values
+     * @param origins The distinct origins in ascending order
+     * @param pivot The distance at which a document scores half of the boost
+     */
+    IntDistanceFeatureQuery(String field, int[] origins, int pivot) {
+        if (origins.length == 0) {
+            throw new IllegalArgumentException("origins cannot be empty");
+        }
+        if (pivot <= 0) {
+            throw new IllegalArgumentException("pivot must be greater than 0, got " + pivot);
+        }
+        this.field = field;
+        this.origins = origins;
+        this.pivot = pivot;
+    }
+
+    /**
+     * Returns the distance between the value and the nearest origin.
+     */
+    long distance(long value) {
+        int index = Arrays.binarySearch(origins, (int) value);
+        if (index >= 0) {
+            return 0;
+        }
+        int insertion = -index - 1;
+        long distance = Long.MAX_VALUE;
+        if (insertion < origins.length) {
+            distance = origins[insertion] - value;
+        }
+        if (insertion > 0) {
+            distance = Math.min(distance, value - origins[insertion - 1]);
+        }
+        return distance;
+    }
+
+    private long distance(SortedNumericDocValues docValues) throws IOException {
+        long distance = Long.MAX_VALUE;
+        for (int i = 0, count = docValues.docValueCount(); i < count; i++) {
+            distance = Math.min(distance, distance(docValues.nextValue()));
+        }
+        return distance;
+    }
+
+    private float score(float boost, double distance) {
+        return (float) (boost * (pivot / (pivot + distance)));
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new Weight(this) {
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return false;
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                SortedNumericDocValues docValues = DocValues.getSortedNumeric(context.reader(), field);
+                if (docValues.advanceExact(doc) == false) {
+                    return Explanation.noMatch("Document " + doc + " doesn't have a value for field " + field);
+                }
+                long distance = distance(docValues);
+                return Explanation.match(
+                    score(boost, distance),
+                    "Distance score, computed as weight * pivot / (pivot + distance to the nearest count) from:",
+                    Explanation.match(boost, "weight"),
+                    Explanation.match(pivot, "pivot"),
+                    Explanation.match(distance, "distance")
+                );
+            }
+
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                SortedNumericDocValues multiValues = DocValues.getSortedNumeric(context.reader(), field);
+                NumericDocValues singleton = DocValues.unwrapSingleton(multiValues);
+                NumericDocValues docValues;
+                if (singleton != null) {
+                    docValues = singleton;
+                } else {
+                    docValues = new NumericDocValues() {
+                        long distance;
+
+                        @Override
+                        public long longValue() {
+                            return distance;
+                        }
+
+                        @Override
+                        public boolean advanceExact(int target) throws IOException {
+                            if (multiValues.advanceExact(target)) {
+                                distance = distance(multiValues);
+                                return true;
+                            }
+                            return false;
+                        }
+
+                        @Override
+                        public int docID() {
+                            return multiValues.docID();
+                        }
+
+                        @Override
+                        public int nextDoc() {
+                            throw new UnsupportedOperationException();
+                        }
+
+                        @Override
+                        public int advance(int target) {
+                            throw new UnsupportedOperationException();
+                        }
+
+                        @Override
+                        public long cost() {
+                            return multiValues.cost();
+                        }
+                    };
+                }
+                boolean valuesAreDistances = singleton == null;
+                // a second instance drives the iteration over the documents that have a value
+                DocIdSetIterator withValues = DocValues.getSortedNumeric(context.reader(), field);
+                PointValues pointValues = context.reader().getPointValues(field);
+                int maxDoc = context.reader().maxDoc();
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) {
+                        return new DistanceScorer(maxDoc, leadCost, withValues, docValues, valuesAreDistances, pointValues, boost);
+                    }
+
+                    @Override
+                    public long cost() {
+                        return withValues.cost();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns a distance beyond which documents cannot reach the minimum score. Rounded up, so the
+     * window can only contain too many documents, never too few. Capped at the distance between any
+     * two ints, which a minimum score of zero or close to it reaches in double math.
+     */
+    static long computeMaxDistance(int pivot, float boost, float minScore) {
+        if (minScore <= 0) {
+            return 1L << 32;
+        }
+        double distance = pivot * (boost - (double) minScore) / minScore;
+        return (long) Math.min(Math.ceil(distance) + 1, 1L << 32);
+    }
+
+    private class DistanceScorer extends Scorer {
+
+        private final int maxDoc;
+        private final long leadCost;
+        private final NumericDocValues docValues;
+        private final boolean valuesAreDistances;
+        private final PointValues pointValues;
+        private final float boost;
+        private DocIdSetIterator it;
+        private int doc = -1;
+        private long maxDistance = Long.MAX_VALUE;
+        private int setMinCompetitiveScoreCounter = 0;
+
+        DistanceScorer(
+            int maxDoc,
+            long leadCost,
+            DocIdSetIterator it,
+            NumericDocValues docValues,
+            boolean valuesAreDistances,
+            PointValues pointValues,
+            float boost
+        ) {
+            this.maxDoc = maxDoc;
+            this.leadCost = leadCost;
+            this.it = it;
+            this.docValues = docValues;
+            this.valuesAreDistances = valuesAreDistances;
+            this.pointValues = pointValues;
+            this.boost = boost;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public float score() throws IOException {
+            if (docValues.advanceExact(docID()) == false) {
+                return 0;
+            }
+            long value = docValues.longValue();
+            return IntDistanceFeatureQuery.this.score(boost, valuesAreDistances ? value : distance(value));
+        }
+
+        @Override
+        public float getMaxScore(int upTo) {
+            return boost;
+        }
+
+        @Override
+        public DocIdSetIterator iterator() {
+            // indirection so that replacing 'it' is picked up by the caller
+            return new DocIdSetIterator() {
+
+                @Override
+                public int nextDoc() throws IOException {
+                    return advance(doc + 1);
+                }
+
+                @Override
+                public int docID() {
+                    return doc;
+                }
+
+                @Override
+                public long cost() {
+                    return it.cost();
+                }
+
+                @Override
+                public int advance(int target) throws IOException {
+                    return doc = it.advance(target);
+                }
+            };
+        }
+
+        @Override
+        public void setMinCompetitiveScore(float minScore) throws IOException {
+            if (minScore > boost) {
+                it = DocIdSetIterator.empty();
+                return;
+            }
+            if (pointValues == null || pointValues.getNumDimensions() != 1 || pointValues.getBytesPerDimension() != Integer.BYTES) {
+                return;
+            }
+            setMinCompetitiveScoreCounter++;
+            // rebuilding the iterator is expensive, so calls are sampled once they become frequent
+            if (setMinCompetitiveScoreCounter > 256 && (setMinCompetitiveScoreCounter & 0x1f) != 0x1f) {
+                return;
+            }
+            long previousMaxDistance = maxDistance;
+            maxDistance = computeMaxDistance(pivot, boost, minScore);
+            if (maxDistance >= previousMaxDistance) {
+                maxDistance = previousMaxDistance;
+                return;
+            }
+            long window = maxDistance;
+            DocIdSetBuilder result = new DocIdSetBuilder(maxDoc);
+            int currentDoc = docID();
+            IntersectVisitor visitor = new IntersectVisitor() {
+                DocIdSetBuilder.BulkAdder adder;
+
+                @Override
+                public void grow(int count) {
+                    adder = result.grow(count);
+                }
+
+                @Override
+                public void visit(int docID) {
+                    if (docID <= currentDoc) {
+                        return;
+                    }
+                    adder.add(docID);
+                }
+
+                @Override
+                public void visit(int docID, byte[] packedValue) {
+                    if (docID <= currentDoc) {
+                        return;
+                    }
+                    if (distance(IntPoint.decodeDimension(packedValue, 0)) <= window) {
+                        adder.add(docID);
+                    }
+                }
+
+                @Override
+                public Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                    return relate(IntPoint.decodeDimension(minPackedValue, 0), IntPoint.decodeDimension(maxPackedValue, 0), window);
+                }
+            };
+
+            long currentQueryCost = Math.min(leadCost, it.cost());
+            long threshold = currentQueryCost >>> 3;
+            // runs in O(log(numPoints))
+            long estimatedNumberOfMatches = pointValues.estimatePointCount(visitor);
+            if (estimatedNumberOfMatches >= threshold) {
+                // the window is not selective enough to be worth materializing
+                return;
+            }
+            pointValues.intersect(visitor);
+            it = result.build().iterator();
+        }
+    }
+
+    /**
+     * Relates the values of a cell to the windows of the given size around each origin.
+     */
+    private Relation relate(long min, long max, long window) {
+        for (int origin : origins) {
+            long lower = origin - window;
+            long upper = origin + window;
+            if (upper < min) {
+                continue;
+            }
+            if (lower > max) {
+                break;
+            }
+            return lower <= min && upper >= max ? Relation.CELL_INSIDE_QUERY : Relation.CELL_CROSSES_QUERY;
+        }
+        return Relation.CELL_OUTSIDE_QUERY;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('(');
+        if (field.equals(defaultField) == false) {
+            builder.append("field=").append(field).append(',');
+        }
+        return builder.append("origins=").append(Arrays.toString(origins)).append(",pivot=").append(pivot).append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        IntDistanceFeatureQuery that = (IntDistanceFeatureQuery) other;
+        return field.equals(that.field) && Arrays.equals(origins, that.origins) && pivot == that.pivot;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = classHash();
+        h = 31 * h + field.hashCode();
+        h = 31 * h + Arrays.hashCode(origins);
+        return 31 * h + pivot;
+    }
+}
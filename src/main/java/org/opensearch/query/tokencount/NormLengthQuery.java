@@ -0,0 +1,167 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.SmallFloat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Matches documents by the field length that Lucene stores in the norms of a text field.
+ * <p>
+ * The length is encoded in a single byte by {@link SmallFloat#intToByte4(int)}: lengths 0 to 39 are
+ * stored exactly, longer lengths are rounded down into buckets that keep 3 significant bits, so each
+ * bucket spans 1/8 of its magnitude (40-41, 42-43, ..., 56-59, ..., 88-95, ...). A document matches
+ * when any length of its bucket satisfies the comparison, so the query never misses a document but
+ * may match documents whose length lies in the same bucket as a bound.
+ */
+final class NormLengthQuery extends Query {
+
+    /**
+     * Field lengths up to this value are stored exactly in the norms.
+     */
+    static final int MAX_EXACT_LENGTH = 39;
+
+    private final String field;
+    // the norm bytes, read as unsigned, that satisfy the comparison
+    private final BitSet matchingNorms;
+
+    private NormLengthQuery(String field, BitSet matchingNorms) {
+        this.field = field;
+        this.matchingNorms = matchingNorms;
+    }
+
+    /**
+     * Creates a query matching documents whose field length compares to any of the given lengths.
+     *
+     * @param field The text field whose norms hold the length
+     * @param lengths The distinct lengths to compare against, in ascending order
+     * @param operator The comparison operator
+     */
+    static NormLengthQuery create(String field, int[] lengths, TokenCountQueryBuilder.Operator operator) {
+        int[] relevant = TokenCountQueryHelper.relevantCounts(lengths, operator);
+        BitSet matching = new BitSet(256);
+        if (operator == TokenCountQueryBuilder.Operator.EQ) {
+            for (int length : relevant) {
+                matching.set(SmallFloat.intToByte4(length) & 0xFF);
+            }
+            return new NormLengthQuery(field, matching);
+        }
+        long length = relevant[0];
+        long lower;
+        long upper;
+        switch (operator) {
+            case GT:
+                lower = length + 1;
+                upper = Integer.MAX_VALUE;
+                break;
+            case GTE:
+                lower = length;
+                upper = Integer.MAX_VALUE;
+                break;
+            case LT:
+                lower = 0;
+                upper = length - 1;
+                break;
+            case LTE:
+                lower = 0;
+                upper = length;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+        for (int norm = 0; norm < 256; norm++) {
+            long bucketLower = SmallFloat.byte4ToInt((byte) norm);
+            long bucketUpper = norm == 255 ? Integer.MAX_VALUE : SmallFloat.byte4ToInt((byte) (norm + 1)) - 1L;
+            if (bucketLower <= upper && bucketUpper >= lower) {
+                matching.set(norm);
+            }
+        }
+        return new NormLengthQuery(field, matching);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                if (matchingNorms.isEmpty()) {
+                    return null;
+                }
+                // documents missing the field have no norm and never match, present values without tokens have norm 0
+                NumericDocValues norms = context.reader().getNormValues(field);
+                if (norms == null) {
+                    return null;
+                }
+                TwoPhaseIterator iterator = new TwoPhaseIterator(norms) {
+                    @Override
+                    public boolean matches() throws IOException {
+                        return matchingNorms.get(((byte) norms.longValue()) & 0xFF);
+                    }
+
+                    @Override
+                    public float matchCost() {
+                        return 2;
+                    }
+                };
+                Scorer scorer = new ConstantScoreScorer(score(), scoreMode, iterator);
+                return new DefaultScorerSupplier(scorer);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        StringBuilder builder = new StringBuilder("NormLengthQuery(");
+        if (field.equals(defaultField) == false) {
+            builder.append(field).append(':');
+        }
+        int[] lengths = matchingNorms.stream().map(norm -> SmallFloat.byte4ToInt((byte) norm)).toArray();
+        return builder.append(Arrays.toString(lengths)).append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        NormLengthQuery that = (NormLengthQuery) other;
+        return field.equals(that.field) && matchingNorms.equals(that.matchingNorms);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * classHash() + field.hashCode()) + matchingNorms.hashCode();
+    }
+}
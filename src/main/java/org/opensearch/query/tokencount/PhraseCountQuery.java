@@ -0,0 +1,215 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.FilterWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Matches;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Matches the documents of a phrase query whose token count field holds a given count.
+ * <p>
+ * The count is checked against doc values in the verification phase, ahead of the phrase's own
+ * position check: the postings of the phrase terms lead the iteration, a cheap doc values lookup
+ * discards documents of the wrong length, and positions are only read for the documents that remain.
+ * Scores are those of the phrase.
+ */
+final class PhraseCountQuery extends Query {
+
+    private final Query phrase;
+    private final String countField;
+    private final int count;
+
+    PhraseCountQuery(Query phrase, String countField, int count) {
+        this.phrase = Objects.requireNonNull(phrase);
+        this.countField = Objects.requireNonNull(countField);
+        this.count = count;
+    }
+
+    Query getPhrase() {
+        return phrase;
+    }
+
+    String getCountField() {
+        return countField;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    @Override
+    public Query rewrite(IndexSearcher searcher) throws IOException {
+        Query rewritten = phrase.rewrite(searcher);
+        if (rewritten != phrase) {
+            return new PhraseCountQuery(rewritten, countField, count);
+        }
+        return super.rewrite(searcher);
+    }
+
+    private static boolean hasCount(SortedNumericDocValues counts, int doc, int count) throws IOException {
+        if (counts.advanceExact(doc) == false) {
+            return false;
+        }
+        for (int i = 0, size = counts.docValueCount(); i < size; i++) {
+            if (counts.nextValue() == count) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new FilterWeight(this, phrase.createWeight(searcher, scoreMode, boost)) {
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return DocValues.isCacheable(ctx, countField) && in.isCacheable(ctx);
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                Explanation explanation = in.explain(context, doc);
+                if (explanation.isMatch() && hasCount(DocValues.getSortedNumeric(context.reader(), countField), doc, count) == false) {
+                    return Explanation.noMatch("token count of field [" + countField + "] is not [" + count + "]", explanation);
+                }
+                return explanation;
+            }
+
+            @Override
+            public Matches matches(LeafReaderContext context, int doc) throws IOException {
+                if (hasCount(DocValues.getSortedNumeric(context.reader(), countField), doc, count) == false) {
+                    return null;
+                }
+                return in.matches(context, doc);
+            }
+
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                ScorerSupplier phraseSupplier = in.scorerSupplier(context);
+                if (phraseSupplier == null) {
+                    return null;
+                }
+                SortedNumericDocValues counts = DocValues.getSortedNumeric(context.reader(), countField);
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) throws IOException {
+                        return new CountCheckingScorer(phraseSupplier.get(leadCost), counts);
+                    }
+
+                    @Override
+                    public long cost() {
+                        return phraseSupplier.cost();
+                    }
+                };
+            }
+        };
+    }
+
+    private class CountCheckingScorer extends Scorer {
+
+        private final Scorer phraseScorer;
+        private final DocIdSetIterator approximation;
+        private final TwoPhaseIterator twoPhase;
+
+        CountCheckingScorer(Scorer phraseScorer, SortedNumericDocValues counts) {
+            this.phraseScorer = phraseScorer;
+            TwoPhaseIterator phraseTwoPhase = phraseScorer.twoPhaseIterator();
+            this.approximation = phraseTwoPhase == null ? phraseScorer.iterator() : phraseTwoPhase.approximation();
+            this.twoPhase = new TwoPhaseIterator(approximation) {
+                @Override
+                public boolean matches() throws IOException {
+                    // the doc values lookup is much cheaper than reading positions, so it goes first
+                    return hasCount(counts, approximation.docID(), count) && (phraseTwoPhase == null || phraseTwoPhase.matches());
+                }
+
+                @Override
+                public float matchCost() {
+                    return 1 + (phraseTwoPhase == null ? 0 : phraseTwoPhase.matchCost());
+                }
+            };
+        }
+
+        @Override
+        public int docID() {
+            return approximation.docID();
+        }
+
+        @Override
+        public DocIdSetIterator iterator() {
+            return TwoPhaseIterator.asDocIdSetIterator(twoPhase);
+        }
+
+        @Override
+        public TwoPhaseIterator twoPhaseIterator() {
+            return twoPhase;
+        }
+
+        @Override
+        public int advanceShallow(int target) throws IOException {
+            return phraseScorer.advanceShallow(target);
+        }
+
+        @Override
+        public float getMaxScore(int upTo) throws IOException {
+            return phraseScorer.getMaxScore(upTo);
+        }
+
+        @Override
+        public float score() throws IOException {
+            return phraseScorer.score();
+        }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        phrase.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+        if (visitor.acceptField(countField)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        return phrase.toString(defaultField) + " +" + countField + ":" + count;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        PhraseCountQuery that = (PhraseCountQuery) other;
+        return phrase.equals(that.phrase) && countField.equals(that.countField) && count == that.count;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = classHash();
+        h = 31 * h + phrase.hashCode();
+        h = 31 * h + countField.hashCode();
+        return 31 * h + count;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.FilterWeight;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Wraps the query of a token_count clause whose text was analyzed on the shard, so that the slow log
+ * finds the analysis in the query of the search and the search profile output shows it next to the
+ * timings of the query that matches the counts.
+ * <p>
+ * The profiler reports a query by its class and {@link #toString(String)}, which here carries the
+ * {@link AnalysisProfile} of the clause. The wrapper is otherwise transparent: its weight delegates
+ * every execution path, including counts and bulk scoring, to the weight of the wrapped query, which
+ * is created directly rather than through the searcher so that it is not cached a second time. Two
+ * wrappers are equal when their wrapped queries are.
+ */
+final class TokenCountAnalysisQuery extends Query {
+
+    private final Query query;
+    private final AnalysisProfile profile;
+
+    TokenCountAnalysisQuery(Query query, AnalysisProfile profile) {
+        this.query = Objects.requireNonNull(query);
+        this.profile = Objects.requireNonNull(profile);
+    }
+
+    Query getQuery() {
+        return query;
+    }
+
+    AnalysisProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Query rewrite(IndexSearcher searcher) throws IOException {
+        Query rewritten = query.rewrite(searcher);
+        if (rewritten instanceof MatchNoDocsQuery) {
+            return rewritten;
+        }
+        if (rewritten != query) {
+            return new TokenCountAnalysisQuery(rewritten, profile);
+        }
+        return super.rewrite(searcher);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        // the searcher caches this weight, so the wrapped one is created directly
+        return new FilterWeight(this, query.createWeight(searcher, scoreMode, boost)) {
+            @Override
+            public int count(LeafReaderContext context) throws IOException {
+                return in.count(context);
+            }
+
+            @Override
+            public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+                return in.bulkScorer(context);
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        query.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+    }
+
+    @Override
+    public String toString(String field) {
+        return "token_count_analysis(" + profile + ") " + query.toString(field);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return sameClassAs(other) && query.equals(((TokenCountAnalysisQuery) other).query);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * classHash() + query.hashCode();
+    }
+}
@@ -10,8 +10,10 @@ package org.opensearch.query.tokencount;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.opensearch.common.settings.Setting;
 
 import java.io.IOException;
+import java.util.function.IntConsumer;
 
 /**
  * Utility class for analyzing text and counting tokens.
@@ -19,6 +21,60 @@ import java.io.IOException;
  */
 public class TokenCountAnalyzer {
 
+    /**
+     * What a count measures.
+     */
+    public enum CountMode {
+        /**
+         * Token positions, including the gaps left by removed tokens, as stored by token_count fields.
+         */
+        POSITIONS,
+        /**
+         * Tokens that start a new position, as stored in the length norms of text fields and by
+         * token_count fields with {@code enable_position_increments: false}. Stacked tokens such as
+         * synonyms and gaps left by removed tokens are not counted.
+         */
+        NORM_LENGTH
+    }
+
+    /**
+     * Maximum number of characters of a text that the token_count query accepts for analysis.
+     */
+    public static final Setting<Integer> MAX_TEXT_CHARS_SETTING = Setting.intSetting(
+        "index.token_count.max_text_chars",
+        1_000_000,
+        1,
+        Setting.Property.Dynamic,
+        Setting.Property.IndexScope
+    );
+
+    /**
+     * How {@link #MAX_TEXT_CHARS_SETTING} is changed, as reported when a text exceeds it.
+     */
+    static final String MAX_TEXT_CHARS_LIMIT = "the [" + MAX_TEXT_CHARS_SETTING.getKey() + "] index level setting";
+
+    /**
+     * Maximum number of texts a single token_count query may ask to analyze.
+     */
+    public static final Setting<Integer> MAX_TEXTS_SETTING = Setting.intSetting(
+        "index.token_count.max_texts",
+        1024,
+        1,
+        Setting.Property.Dynamic,
+        Setting.Property.IndexScope
+    );
+
+    /**
+     * Maximum number of tokens the token_count query consumes from a text before giving up.
+     */
+    public static final Setting<Integer> MAX_ANALYZED_TOKENS_SETTING = Setting.intSetting(
+        "index.token_count.max_analyzed_tokens",
+        100_000,
+        1,
+        Setting.Property.Dynamic,
+        Setting.Property.IndexScope
+    );
+
     /**
      * Analyzes the given text with the specified analyzer and counts the tokens.
      * This uses position increments to accurately count tokens, which properly handles
@@ -30,25 +86,169 @@ public class TokenCountAnalyzer {
      * @throws IOException If an I/O error occurs during analysis
      */
     public static int countTokens(Analyzer analyzer, String text) throws IOException {
+        return countTokens(analyzer, text, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Analyzes the given text and counts the tokens, stopping as soon as the count reaches {@code stopAfter}.
+     *
+     * @param analyzer The analyzer to use
+     * @param text The text to analyze
+     * @param stopAfter The count at which analysis stops; the returned count never exceeds it
+     * @param maxTokens The maximum number of tokens to consume before failing
+     * @return The number of token positions produced by the analyzer, capped at {@code stopAfter}
+     * @throws IOException If an I/O error occurs during analysis
+     * @throws IllegalArgumentException If the text produces more than {@code maxTokens} tokens before the count is decided
+     */
+    public static int countTokens(Analyzer analyzer, String text, int stopAfter, int maxTokens) throws IOException {
+        return countTokens(analyzer, text, stopAfter, maxTokens, CountMode.POSITIONS);
+    }
+
+    /**
+     * Analyzes the given text and counts the tokens the way the given mode measures them, stopping as soon
+     * as the count reaches {@code stopAfter}.
+     *
+     * @param analyzer The analyzer to use
+     * @param text The text to analyze
+     * @param stopAfter The count at which analysis stops; the returned count never exceeds it
+     * @param maxTokens The maximum number of tokens to consume before failing
+     * @param mode What the count measures
+     * @return The count, capped at {@code stopAfter}
+     * @throws IOException If an I/O error occurs during analysis
+     * @throws IllegalArgumentException If the text produces more than {@code maxTokens} tokens before the count is decided
+     */
+    public static int countTokens(Analyzer analyzer, String text, int stopAfter, int maxTokens, CountMode mode) throws IOException {
+        return countTokens(analyzer, text, stopAfter, maxTokens, mode, null);
+    }
+
+    /**
+     * Same as {@link #countTokens(Analyzer, String, int, int, CountMode)}, also reporting the number of
+     * tokens read from the analyzer to {@code tokensRead} when it is not null.
+     */
+    static int countTokens(Analyzer analyzer, String text, int stopAfter, int maxTokens, CountMode mode, IntConsumer tokensRead)
+        throws IOException {
         if (analyzer == null) {
             throw new IllegalArgumentException("Analyzer cannot be null");
         }
         if (text == null || text.isEmpty()) {
             return 0;
         }
+        int count = FastTokenCounters.forAnalyzer(analyzer).count(text, stopAfter, maxTokens);
+        if (count != FastTokenCounters.UNSUPPORTED) {
+            // every token of the chains counted by scanning takes one position
+            if (tokensRead != null) {
+                tokensRead.accept(count);
+            }
+            return count;
+        }
+        try (TokenStream tokenStream = analyzer.tokenStream("field", text)) {
+            return count(tokenStream, stopAfter, maxTokens, mode, tokensRead);
+        }
+    }
 
-        // Implementation based on TokenCountFieldMapper.countPositions()
-        // from org.opensearch.index.mapper.TokenCountFieldMapper
+    /**
+     * Counts the tokens of a text by consuming the analyzer's token stream, which works for every
+     * analyzer. {@link #countTokens(Analyzer, String, int, int, CountMode)} only falls back to it for
+     * analyzers it cannot count by scanning the text.
+     */
+    static int countWithTokenStream(Analyzer analyzer, String text, int stopAfter, int maxTokens, CountMode mode) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
         try (TokenStream tokenStream = analyzer.tokenStream("field", text)) {
-            int count = 0;
-            PositionIncrementAttribute position = tokenStream.addAttribute(PositionIncrementAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
+            return count(tokenStream, stopAfter, maxTokens, mode, null);
+        }
+    }
+
+    /**
+     * Counts the tokens of a stream, like {@code TokenCountFieldMapper.countPositions()} does.
+     * <p>
+     * Once the count reaches {@code stopAfter} the stream is ended without being exhausted, the way
+     * Lucene's {@code LimitTokenCountFilter} ends it unless asked to consume all tokens: not reading the
+     * rest of the text is the point of stopping early. Tokenizers support this, the stream is reset
+     * before it is reused, and only the consumer checks of {@code MockTokenizer} reject it. The final
+     * position increment reported by {@link TokenStream#end()} is only counted for an exhausted stream.
+     */
+    private static int count(TokenStream tokenStream, int stopAfter, int maxTokens, CountMode mode, IntConsumer tokensRead)
+        throws IOException {
+        int count = 0;
+        int tokens = 0;
+        PositionIncrementAttribute position = tokenStream.addAttribute(PositionIncrementAttribute.class);
+        tokenStream.reset();
+        while (count < stopAfter && tokenStream.incrementToken()) {
+            if (++tokens > maxTokens) {
+                throw tooManyTokens(maxTokens);
+            }
+            if (mode == CountMode.POSITIONS) {
                 count += position.getPositionIncrement();
+            } else if (position.getPositionIncrement() > 0) {
+                count++;
             }
-            tokenStream.end();
+        }
+        // deliberately ends a stream that stopped early, see above
+        tokenStream.end();
+        if (count < stopAfter && mode == CountMode.POSITIONS) {
             count += position.getPositionIncrement();
-            return count;
         }
+        if (tokensRead != null) {
+            tokensRead.accept(tokens);
+        }
+        return Math.min(count, stopAfter);
+    }
+
+    /**
+     * Returns the error for a text given to {@code subject} that is longer than the index level setting allows.
+     */
+    public static IllegalArgumentException textTooLong(String subject, int length, int maxTextChars) {
+        return textTooLong(subject, length, maxTextChars, MAX_TEXT_CHARS_LIMIT);
+    }
+
+    /**
+     * Returns the error for a text given to {@code subject} that is longer than allowed.
+     *
+     * @param limit How the limit is changed, such as {@code the [max_text_chars] option}
+     */
+    public static IllegalArgumentException textTooLong(String subject, int length, int maxTextChars, String limit) {
+        return new IllegalArgumentException(
+            "The length of "
+                + subject
+                + " is ["
+                + length
+                + "] characters, which exceeds the allowed maximum of ["
+                + maxTextChars
+                + "]. This limit can be set by changing "
+                + limit
+                + "."
+        );
+    }
+
+    /**
+     * Returns the error for a request, described by {@code subject}, that asks to analyze more texts than
+     * the given setting allows.
+     */
+    public static IllegalArgumentException tooManyTexts(String subject, int texts, int maxTexts, Setting<Integer> setting) {
+        return new IllegalArgumentException(
+            "The "
+                + subject
+                + " asks to analyze ["
+                + texts
+                + "] texts, which exceeds the allowed maximum of ["
+                + maxTexts
+                + "]. This limit can be set by changing the ["
+                + setting.getKey()
+                + "] "
+                + (setting.hasIndexScope() ? "index" : "node")
+                + " level setting."
+        );
+    }
+
+    static IllegalArgumentException tooManyTokens(int maxTokens) {
+        return new IllegalArgumentException(
+            "The text produced more than ["
+                + maxTokens
+                + "] tokens. This limit can be set by changing the ["
+                + MAX_ANALYZED_TOKENS_SETTING.getKey()
+                + "] index level setting."
+        );
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts the tokens of a batch of texts, spreading large batches over an executor.
+ * The calling thread always takes part in the work and only ever waits for chunks that another
+ * thread has already started, so it is safe to fan out onto the pool the caller itself runs on.
+ */
+public final class TokenCountBatchAnalyzer {
+
+    /**
+     * Batches smaller than this are analyzed on the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    /**
+     * Number of texts handed to a thread at a time.
+     */
+    static final int CHUNK_SIZE = 16;
+
+    /**
+     * Upper bound on the number of pool threads borrowed by a single batch.
+     */
+    static final int MAX_HELPERS = 4;
+
+    /**
+     * Counts the tokens of a single text.
+     */
+    @FunctionalInterface
+    public interface Counter {
+        int count(String text) throws IOException;
+    }
+
+    private TokenCountBatchAnalyzer() {}
+
+    /**
+     * Counts the tokens of every text.
+     *
+     * @param texts The texts to analyze
+     * @param counter Counts the tokens of one text; must be safe to call concurrently
+     * @param executor The executor to borrow threads from, or null to analyze on the calling thread
+     * @return The token counts, in the order of the texts
+     * @throws IOException If an I/O error occurs during analysis
+     */
+    public static int[] countAll(List<String> texts, Counter counter, Executor executor) throws IOException {
+        final int[] counts = new int[texts.size()];
+        if (executor == null || texts.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = counter.count(texts.get(i));
+            }
+            return counts;
+        }
+
+        final int chunks = (counts.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunks);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                try {
+                    if (failure.get() == null) {
+                        int end = Math.min(counts.length, (chunk + 1) * CHUNK_SIZE);
+                        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                            counts[i] = counter.count(texts.get(i));
+                        }
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        int helpers = Math.min(MAX_HELPERS, chunks - 1);
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // the pool is saturated, the calling thread picks up the remaining chunks
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while counting tokens", e);
+        }
+
+        Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException("failed to count tokens", e);
+        }
+        return counts;
+    }
+}
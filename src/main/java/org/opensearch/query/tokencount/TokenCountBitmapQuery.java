@@ -0,0 +1,254 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Matches documents by token count from the per-segment bitmaps of {@link TokenCountBitmaps}. An
+ * equality on one count reads a single bitmap, other comparisons the union of the bitmaps of the
+ * counts they accept. Only comparisons whose accepted counts all have a bitmap can be answered, see
+ * {@link #create}.
+ * <p>
+ * The bitmaps of a segment are built by the first scorer that reads them, never while a query is
+ * planned. Until then the query costs as much as the field's doc values, so that wrapped in an
+ * {@link org.apache.lucene.search.IndexOrDocValuesQuery} a more selective clause keeps leading and
+ * checks the doc values of its candidates without building any bitmap.
+ */
+final class TokenCountBitmapQuery extends Query {
+
+    private final String field;
+    private final int maxCount;
+    // the bitmaps to read, slot maxCount holds the negative values
+    private final int[] slots;
+    private final TokenCountBitmaps bitmaps;
+
+    private TokenCountBitmapQuery(String field, int maxCount, int[] slots, TokenCountBitmaps bitmaps) {
+        this.field = field;
+        this.maxCount = maxCount;
+        this.slots = slots;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Creates a query that answers the comparison from the bitmaps of the counts below {@code maxCount},
+     * or returns null when the comparison accepts larger counts.
+     *
+     * @param field The integer field holding the counts, with doc values
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @param maxCount The count below which counts have a bitmap
+     * @param bitmaps The cache the bitmaps are built in
+     */
+    static Query create(
+        String field,
+        int[] tokenCounts,
+        TokenCountQueryBuilder.Operator operator,
+        int maxCount,
+        TokenCountBitmaps bitmaps
+    ) {
+        int[] counts = TokenCountQueryHelper.relevantCounts(tokenCounts, operator);
+        int[] slots;
+        if (counts.length > 1) {
+            if (counts[counts.length - 1] >= maxCount) {
+                return null;
+            }
+            slots = counts;
+        } else {
+            long[] range = TokenCountQueryHelper.range(counts[0], operator);
+            if (range[1] >= maxCount) {
+                return null;
+            }
+            long lower = Math.max(range[0], 0);
+            int size = range[1] < lower ? 0 : (int) (range[1] - lower + 1);
+            boolean negatives = range[0] < 0;
+            slots = new int[size + (negatives ? 1 : 0)];
+            for (int i = 0; i < size; i++) {
+                slots[i] = (int) lower + i;
+            }
+            if (negatives) {
+                slots[size] = maxCount;
+            }
+        }
+        return new TokenCountBitmapQuery(field, maxCount, slots, bitmaps);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                LeafReader reader = context.reader();
+                TokenCountBitmaps.Segment cached = bitmaps.getIfCached(reader, field, maxCount);
+                // planning never builds the bitmaps: until they are, every document with a count is a candidate
+                long cost = cached != null ? cost(cached) : DocValues.getSortedNumeric(reader, field).cost();
+                if (cost == 0) {
+                    return null;
+                }
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) throws IOException {
+                        TokenCountBitmaps.Segment segment = cached != null ? cached : bitmaps.get(reader, field, maxCount);
+                        return new ConstantScoreScorer(score(), scoreMode, iterator(segment));
+                    }
+
+                    @Override
+                    public long cost() {
+                        return cost;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                // the bitmaps already are a cache
+                return false;
+            }
+        };
+    }
+
+    private long cost(TokenCountBitmaps.Segment segment) {
+        long cost = 0;
+        for (int slot : slots) {
+            cost += segment.cardinality(slot);
+        }
+        return cost;
+    }
+
+    private DocIdSetIterator iterator(TokenCountBitmaps.Segment segment) throws IOException {
+        List<DocIdSetIterator> iterators = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            DocIdSetIterator iterator = segment.iterator(slot);
+            if (iterator != null) {
+                iterators.add(iterator);
+            }
+        }
+        if (iterators.isEmpty()) {
+            return DocIdSetIterator.empty();
+        }
+        if (iterators.size() == 1) {
+            return iterators.get(0);
+        }
+        return new UnionIterator(iterators, cost(segment));
+    }
+
+    /**
+     * Iterates the union of the bitmaps of several counts, keeping their iterators in a heap ordered by
+     * their current document like Lucene's disjunctions do, so that no bit set of the segment is
+     * allocated. A document holding several of the counts is returned once.
+     */
+    private static final class UnionIterator extends DocIdSetIterator {
+
+        private final DocIdSetIterator[] heap;
+        private final long cost;
+        private int size;
+        private int doc = -1;
+
+        UnionIterator(List<DocIdSetIterator> iterators, long cost) {
+            // unpositioned iterators are all on document -1, which already is a heap
+            this.heap = iterators.toArray(new DocIdSetIterator[0]);
+            this.size = heap.length;
+            this.cost = cost;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            while (size > 0 && heap[0].docID() < target) {
+                if (heap[0].advance(target) == NO_MORE_DOCS) {
+                    heap[0] = heap[--size];
+                    heap[size] = null;
+                }
+                siftDownTop();
+            }
+            return doc = size == 0 ? NO_MORE_DOCS : heap[0].docID();
+        }
+
+        private void siftDownTop() {
+            if (size == 0) {
+                return;
+            }
+            DocIdSetIterator top = heap[0];
+            int topDoc = top.docID();
+            int i = 0;
+            for (int child = 1; child < size; child = 2 * i + 1) {
+                if (child + 1 < size && heap[child + 1].docID() < heap[child].docID()) {
+                    child++;
+                }
+                if (heap[child].docID() >= topDoc) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = top;
+        }
+
+        @Override
+        public long cost() {
+            return cost;
+        }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        StringBuilder builder = new StringBuilder("TokenCountBitmapQuery(");
+        if (field.equals(defaultField) == false) {
+            builder.append(field).append(':');
+        }
+        return builder.append(Arrays.toString(slots)).append(" of ").append(maxCount).append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        TokenCountBitmapQuery that = (TokenCountBitmapQuery) other;
+        return field.equals(that.field) && maxCount == that.maxCount && Arrays.equals(slots, that.slots);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, maxCount, Arrays.hashCode(slots));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+
+import java.io.IOException;
+
+/**
+ * Node-level cache of the per-segment bitmaps of small token counts, built on first use from the
+ * field's doc values and charged to the token_count breaker until their segment is closed, see
+ * {@link TokenCountSegmentCache}.
+ * <p>
+ * A segment holds one set of bitmaps per field. When the maximum count of the index changes, the
+ * bitmaps of a segment are rebuilt for the new maximum by the first query that needs them, and the
+ * ones they replace are released.
+ */
+public class TokenCountBitmaps {
+
+    static final String BREAKER_LABEL = "<token_count_bitmaps>";
+
+    /**
+     * Counts below this value get a bitmap of the documents holding them. Zero disables the bitmaps.
+     */
+    public static final Setting<Integer> MAX_COUNT_SETTING = Setting.intSetting(
+        "index.token_count.bitmap_cache.max_count",
+        0,
+        0,
+        1024,
+        Setting.Property.Dynamic,
+        Setting.Property.IndexScope
+    );
+
+    private final TokenCountSegmentCache<Segment> segments;
+
+    public TokenCountBitmaps(CircuitBreaker breaker) {
+        this.segments = new TokenCountSegmentCache<>(breaker, BREAKER_LABEL);
+    }
+
+    /**
+     * Returns the bitmaps of the given field in the segment, building them if they are not cached yet
+     * or were built for another maximum count.
+     */
+    Segment get(LeafReader reader, String field, int maxCount) throws IOException {
+        // each document is in one bitmap per distinct value, sparse blocks take two bytes per document
+        long estimate = 2L * reader.maxDoc();
+        return segments.get(
+            reader,
+            field,
+            estimate,
+            segment -> Segment.build(segment, field, maxCount),
+            cached -> cached.maxCount() == maxCount
+        );
+    }
+
+    /**
+     * Returns the bitmaps of the given field in the segment if they are cached for the given maximum
+     * count, or null, without building them.
+     */
+    Segment getIfCached(LeafReader reader, String field, int maxCount) {
+        return segments.getIfCached(reader, field, cached -> cached.maxCount() == maxCount);
+    }
+
+    /**
+     * @return The memory held by the cached bitmaps
+     */
+    public long ramBytesUsed() {
+        return segments.ramBytesUsed();
+    }
+
+    /**
+     * @return The number of segments whose bitmaps are cached
+     */
+    public int count() {
+        return segments.count();
+    }
+
+    /**
+     * The bitmaps of a field in one segment: one per count below the maximum count, and one more, at
+     * index {@code maxCount}, for the documents holding a negative value.
+     */
+    static final class Segment implements Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Segment.class);
+
+        private final RoaringDocIdSet[] bitmaps;
+
+        private Segment(RoaringDocIdSet[] bitmaps) {
+            this.bitmaps = bitmaps;
+        }
+
+        static Segment build(LeafReader reader, String field, int maxCount) throws IOException {
+            RoaringDocIdSet.Builder[] builders = new RoaringDocIdSet.Builder[maxCount + 1];
+            SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                int previousSlot = -1;
+                for (int i = 0; i < values.docValueCount(); i++) {
+                    long value = values.nextValue();
+                    if (value >= maxCount) {
+                        // values are sorted, the remaining ones are larger still
+                        break;
+                    }
+                    int slot = value < 0 ? maxCount : (int) value;
+                    if (slot == previousSlot) {
+                        continue;
+                    }
+                    if (builders[slot] == null) {
+                        builders[slot] = new RoaringDocIdSet.Builder(reader.maxDoc());
+                    }
+                    builders[slot].add(doc);
+                    previousSlot = slot;
+                }
+            }
+            RoaringDocIdSet[] bitmaps = new RoaringDocIdSet[builders.length];
+            for (int slot = 0; slot < builders.length; slot++) {
+                if (builders[slot] != null) {
+                    bitmaps[slot] = builders[slot].build();
+                }
+            }
+            return new Segment(bitmaps);
+        }
+
+        /**
+         * @return The maximum count the bitmaps were built for
+         */
+        int maxCount() {
+            return bitmaps.length - 1;
+        }
+
+        /**
+         * @return The documents of the slot, or null if no document holds its count
+         */
+        DocIdSetIterator iterator(int slot) throws IOException {
+            return bitmaps[slot] == null ? null : bitmaps[slot].iterator();
+        }
+
+        /**
+         * @return The number of documents of the slot
+         */
+        int cardinality(int slot) {
+            return bitmaps[slot] == null ? 0 : bitmaps[slot].cardinality();
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(bitmaps);
+            for (RoaringDocIdSet bitmap : bitmaps) {
+                if (bitmap != null) {
+                    bytes += bitmap.ramBytesUsed();
+                }
+            }
+            return bytes;
+        }
+    }
+}
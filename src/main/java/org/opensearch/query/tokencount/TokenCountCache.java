@@ -0,0 +1,183 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.opensearch.common.cache.Cache;
+import org.opensearch.common.cache.CacheBuilder;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.core.index.Index;
+import org.opensearch.index.analysis.AnalyzerComponentsProvider;
+import org.opensearch.index.analysis.NamedAnalyzer;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Node-level cache of analyzed token counts.
+ * Entries are keyed by index, analyzer name, the analyzer's current components and the text,
+ * so that reloading updateable synonyms or re-creating an index never serves a count that was
+ * produced by a stale analyzer. Keys only weakly reference the components, so the synonym maps
+ * of a reloaded analyzer are not pinned by the entries computed with them until they are evicted.
+ */
+public class TokenCountCache {
+
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+        "plugins.token_count.cache.size",
+        "1%",
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> CACHE_EXPIRE_SETTING = Setting.positiveTimeSetting(
+        "plugins.token_count.cache.expire",
+        new TimeValue(0),
+        Setting.Property.NodeScope
+    );
+
+    private final Cache<Key, Integer> cache;
+    private final long maxEntryWeight;
+
+    public TokenCountCache(Settings settings) {
+        long size = CACHE_SIZE_SETTING.get(settings).getBytes();
+        TimeValue expire = CACHE_EXPIRE_SETTING.get(settings);
+        CacheBuilder<Key, Integer> builder = CacheBuilder.<Key, Integer>builder()
+            .setMaximumWeight(size)
+            .weigher((key, count) -> key.ramBytesUsed() + Integer.BYTES);
+        if (expire.millis() > 0) {
+            builder.setExpireAfterAccess(expire);
+        }
+        this.cache = builder.build();
+        // a single huge text must not be able to flush every hot phrase out of the cache
+        this.maxEntryWeight = size / 100;
+    }
+
+    /**
+     * Returns the cached count of the given text, or null if it has not been cached.
+     */
+    public Integer get(Index index, NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text) {
+        Key key = new Key(index, analyzer.name(), analysisVersion(analyzer), mode, text);
+        return isCacheable(key) ? cache.get(key) : null;
+    }
+
+    /**
+     * Caches the exact count of the given text. Counts of analyses that stopped early must not be cached.
+     */
+    public void put(Index index, NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text, int count) {
+        Key key = new Key(index, analyzer.name(), analysisVersion(analyzer), mode, text);
+        if (isCacheable(key)) {
+            cache.put(key, count);
+        }
+    }
+
+    private boolean isCacheable(Key key) {
+        return maxEntryWeight > 0 && key.ramBytesUsed() <= maxEntryWeight;
+    }
+
+    /**
+     * Drops every entry that belongs to the given index.
+     */
+    public void invalidate(Index index) {
+        for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+            if (iterator.next().index.equals(index)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The number of cached counts
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    /**
+     * @return The estimated memory used by the cached counts, in bytes
+     */
+    public long weight() {
+        return cache.weight();
+    }
+
+    /**
+     * Returns an object whose identity changes whenever the analyzer's components are replaced.
+     * Reloadable analyzers swap their components on a search analyzer reload, which makes every
+     * entry computed before the reload unreachable.
+     */
+    static Object analysisVersion(NamedAnalyzer analyzer) {
+        Analyzer delegate = analyzer.analyzer();
+        if (delegate instanceof AnalyzerComponentsProvider) {
+            return ((AnalyzerComponentsProvider) delegate).getComponents();
+        }
+        return delegate;
+    }
+
+    static final class Key implements Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class)
+            + RamUsageEstimator.shallowSizeOfInstance(WeakReference.class);
+
+        private final Index index;
+        private final String analyzer;
+        // weak, so that cached entries do not keep the components of a reloaded analyzer alive
+        private final WeakReference<Object> analysisVersion;
+        private final TokenCountAnalyzer.CountMode mode;
+        private final String text;
+        private final int hashCode;
+
+        Key(Index index, String analyzer, Object analysisVersion, TokenCountAnalyzer.CountMode mode, String text) {
+            this.index = index;
+            this.analyzer = analyzer;
+            this.analysisVersion = new WeakReference<>(analysisVersion);
+            this.mode = mode;
+            this.text = text;
+            this.hashCode = Objects.hash(index, analyzer, System.identityHashCode(analysisVersion), mode, text);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(analyzer) + RamUsageEstimator.sizeOf(text);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            Object version = analysisVersion.get();
+            // the entries of collected components match no key, they are only waiting to be evicted
+            return version != null
+                && version == other.analysisVersion.get()
+                && mode == other.mode
+                && index.equals(other.index)
+                && analyzer.equals(other.analyzer)
+                && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
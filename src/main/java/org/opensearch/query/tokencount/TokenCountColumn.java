@@ -0,0 +1,214 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+import org.opensearch.core.common.bytes.BytesArray;
+import org.opensearch.index.mapper.SourceFieldMapper;
+import org.opensearch.search.lookup.SourceLookup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * The exact token counts of a text field in one segment, for indices that have no token_count
+ * sub-field. Counts are computed once from the {@code _source} of every document with the field's
+ * index analyzer, one count per value of the field, exactly as a token_count sub-field would have
+ * indexed them. Deleted documents are counted too: columns are cached by the core of their segment,
+ * which outlives deletes, so like any other per-segment structure they leave deletes to the live docs
+ * that filter matches at search time.
+ * <p>
+ * Counts are kept as packed ints: the counts of document {@code d} are the values between
+ * {@code offsets[d]} and {@code offsets[d + 1]}. Documents without a value take no space beyond
+ * their offset, which compresses to a few bits per document.
+ */
+final class TokenCountColumn implements Accountable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(TokenCountColumn.class);
+
+    private final PackedLongValues offsets;
+    private final PackedLongValues values;
+
+    private TokenCountColumn(PackedLongValues offsets, PackedLongValues values) {
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * Counts the values found at the given source paths of every document of the segment.
+     *
+     * @param reader The segment
+     * @param sourcePaths The paths of the field's values in {@code _source}
+     * @param analyzer The index analyzer of the field
+     * @param maxTextChars The longest value that may be analyzed
+     * @param maxTokens The maximum number of tokens a value may produce
+     * @param checkCancelled Called before every document, throws to abandon the build
+     * @throws IllegalArgumentException If a value exceeds one of the limits
+     */
+    static TokenCountColumn build(
+        LeafReader reader,
+        Set<String> sourcePaths,
+        Analyzer analyzer,
+        int maxTextChars,
+        int maxTokens,
+        Runnable checkCancelled
+    ) throws IOException {
+        PackedLongValues.Builder offsets = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        PackedLongValues.Builder values = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        StoredFields storedFields = reader.storedFields();
+        for (int doc = 0; doc < reader.maxDoc(); doc++) {
+            checkCancelled.run();
+            offsets.add(values.size());
+            SourceVisitor visitor = new SourceVisitor();
+            storedFields.document(doc, visitor);
+            if (visitor.source == null) {
+                continue;
+            }
+            Map<String, Object> source = SourceLookup.sourceAsMap(new BytesArray(visitor.source));
+            for (String path : sourcePaths) {
+                for (Object value : XContentMapValues.extractRawValues(path, source)) {
+                    if (value != null) {
+                        String text = value.toString();
+                        if (text.length() > maxTextChars) {
+                            throw TokenCountAnalyzer.textTooLong("a value of [" + path + "] counted exactly", text.length(), maxTextChars);
+                        }
+                        values.add(
+                            TokenCountAnalyzer.countTokens(
+                                analyzer,
+                                text,
+                                Integer.MAX_VALUE,
+                                maxTokens,
+                                TokenCountAnalyzer.CountMode.POSITIONS
+                            )
+                        );
+                    }
+                }
+            }
+        }
+        offsets.add(values.size());
+        return new TokenCountColumn(offsets.build(), values.build());
+    }
+
+    /**
+     * Whether any count of the given document satisfies the predicate.
+     */
+    boolean matches(int doc, IntPredicate predicate) {
+        for (long i = offsets.get(doc), end = offsets.get(doc + 1); i < end; i++) {
+            if (predicate.test((int) values.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The counts as doc values, with the counts of every document in ascending order, so that
+     * they read like the counts of a token_count field
+     */
+    SortedNumericDocValues docValues() {
+        int maxDoc = Math.toIntExact(offsets.size() - 1);
+        return new SortedNumericDocValues() {
+            private int doc = -1;
+            private int[] docCounts = new int[1];
+            private int docValueCount;
+            private int next;
+
+            @Override
+            public boolean advanceExact(int target) {
+                doc = target;
+                return load(target);
+            }
+
+            @Override
+            public int docID() {
+                return doc;
+            }
+
+            @Override
+            public int nextDoc() {
+                return advance(doc + 1);
+            }
+
+            @Override
+            public int advance(int target) {
+                for (doc = target; doc < maxDoc; doc++) {
+                    if (load(doc)) {
+                        return doc;
+                    }
+                }
+                return doc = NO_MORE_DOCS;
+            }
+
+            @Override
+            public long cost() {
+                return maxDoc;
+            }
+
+            @Override
+            public long nextValue() {
+                return docCounts[next++];
+            }
+
+            @Override
+            public int docValueCount() {
+                return docValueCount;
+            }
+
+            private boolean load(int target) {
+                long start = offsets.get(target);
+                docValueCount = (int) (offsets.get(target + 1) - start);
+                docCounts = ArrayUtil.grow(docCounts, docValueCount);
+                for (int i = 0; i < docValueCount; i++) {
+                    docCounts[i] = (int) values.get(start + i);
+                }
+                Arrays.sort(docCounts, 0, docValueCount);
+                next = 0;
+                return docValueCount > 0;
+            }
+        };
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED + offsets.ramBytesUsed() + values.ramBytesUsed();
+    }
+
+    /**
+     * Reads the {@code _source} of a document and no other stored field.
+     */
+    private static final class SourceVisitor extends StoredFieldVisitor {
+        private byte[] source;
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) {
+            if (source != null) {
+                return Status.STOP;
+            }
+            return SourceFieldMapper.NAME.equals(fieldInfo.name) ? Status.YES : Status.NO;
+        }
+
+        @Override
+        public void binaryField(FieldInfo fieldInfo, byte[] value) {
+            source = value;
+        }
+    }
+}
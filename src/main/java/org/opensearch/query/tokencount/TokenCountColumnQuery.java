@@ -0,0 +1,172 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.opensearch.index.analysis.NamedAnalyzer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Matches documents by the exact token counts of a text field, read from the {@link TokenCountColumn}
+ * of each segment. Columns are built on first use, so the first query on a segment pays for counting
+ * it; documents are then checked one at a time, like a doc-values query.
+ */
+final class TokenCountColumnQuery extends Query {
+
+    private final String field;
+    private final Set<String> sourcePaths;
+    private final NamedAnalyzer analyzer;
+    private final int[] counts;
+    private final TokenCountQueryBuilder.Operator operator;
+    private final int maxTextChars;
+    private final int maxTokens;
+    private final TokenCountColumns columns;
+
+    /**
+     * @param field The text field whose counts are compared
+     * @param sourcePaths The paths of the field's values in {@code _source}
+     * @param analyzer The index analyzer of the field
+     * @param counts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @param maxTextChars The longest value a column build may analyze
+     * @param maxTokens The maximum number of tokens a value may produce in a column build
+     * @param columns The cache the columns are built in
+     */
+    TokenCountColumnQuery(
+        String field,
+        Set<String> sourcePaths,
+        NamedAnalyzer analyzer,
+        int[] counts,
+        TokenCountQueryBuilder.Operator operator,
+        int maxTextChars,
+        int maxTokens,
+        TokenCountColumns columns
+    ) {
+        this.field = field;
+        this.sourcePaths = sourcePaths;
+        this.analyzer = analyzer;
+        this.counts = TokenCountQueryHelper.relevantCounts(counts, operator);
+        this.operator = operator;
+        this.maxTextChars = maxTextChars;
+        this.maxTokens = maxTokens;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns a predicate that accepts the counts that compare to any of the counts with the operator.
+     */
+    private IntPredicate predicate() {
+        if (counts.length > 1) {
+            return count -> Arrays.binarySearch(counts, count) >= 0;
+        }
+        long[] range = TokenCountQueryHelper.range(counts[0], operator);
+        return count -> count >= range[0] && count <= range[1];
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        IntPredicate predicate = predicate();
+        Runnable checkCancelled = columns.cancellationCheck(searcher);
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+                int maxDoc = context.reader().maxDoc();
+                return new ScorerSupplier() {
+                    @Override
+                    public Scorer get(long leadCost) throws IOException {
+                        // built here rather than in scorerSupplier, so that planning a query never builds a column
+                        TokenCountColumn column = columns.get(
+                            context.reader(),
+                            field,
+                            sourcePaths,
+                            analyzer,
+                            maxTextChars,
+                            maxTokens,
+                            checkCancelled
+                        );
+                        DocIdSetIterator approximation = DocIdSetIterator.all(maxDoc);
+                        TwoPhaseIterator iterator = new TwoPhaseIterator(approximation) {
+                            @Override
+                            public boolean matches() {
+                                return column.matches(approximation.docID(), predicate);
+                            }
+
+                            @Override
+                            public float matchCost() {
+                                return 4;
+                            }
+                        };
+                        return new ConstantScoreScorer(score(), scoreMode, iterator);
+                    }
+
+                    @Override
+                    public long cost() {
+                        return maxDoc;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String defaultField) {
+        StringBuilder builder = new StringBuilder("TokenCountColumnQuery(");
+        if (field.equals(defaultField) == false) {
+            builder.append(field).append(':');
+        }
+        return builder.append(operator).append(' ').append(Arrays.toString(counts)).append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (sameClassAs(other) == false) {
+            return false;
+        }
+        TokenCountColumnQuery that = (TokenCountColumnQuery) other;
+        return field.equals(that.field)
+            && sourcePaths.equals(that.sourcePaths)
+            && analyzer.name().equals(that.analyzer.name())
+            && Arrays.equals(counts, that.counts)
+            && operator == that.operator
+            && maxTextChars == that.maxTextChars
+            && maxTokens == that.maxTokens;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, sourcePaths, analyzer.name(), Arrays.hashCode(counts), operator, maxTextChars, maxTokens);
+    }
+}
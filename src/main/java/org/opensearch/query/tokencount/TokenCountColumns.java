@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.index.analysis.NamedAnalyzer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Node-level cache of the {@link TokenCountColumn}s of segments, built on first use and charged to
+ * the token_count breaker until their segment is closed, see {@link TokenCountSegmentCache}. Indices
+ * that no node allocated get {@link #uncached() uncached} columns, which are built for every query.
+ * <p>
+ * A column is built on the search thread that first needs it, within the analysis limits of its index
+ * and for as long as the search that builds it is not cancelled, see {@link TokenCountSearchTasks}.
+ */
+public class TokenCountColumns {
+
+    static final String BREAKER_LABEL = "<token_count_column>";
+
+    private final TokenCountSegmentCache<TokenCountColumn> columns;
+    private final TokenCountSearchTasks searchTasks;
+
+    public TokenCountColumns(CircuitBreaker breaker) {
+        this(breaker, new TokenCountSearchTasks());
+    }
+
+    TokenCountColumns(CircuitBreaker breaker, TokenCountSearchTasks searchTasks) {
+        this(new TokenCountSegmentCache<>(breaker, BREAKER_LABEL), searchTasks);
+    }
+
+    private TokenCountColumns(TokenCountSegmentCache<TokenCountColumn> columns, TokenCountSearchTasks searchTasks) {
+        this.columns = columns;
+        this.searchTasks = searchTasks;
+    }
+
+    /**
+     * @return Columns that are built whenever a query needs them and dropped with the query
+     */
+    static TokenCountColumns uncached() {
+        return new TokenCountColumns(null, new TokenCountSearchTasks());
+    }
+
+    /**
+     * Returns a check that throws once the search that runs on the given searcher is cancelled.
+     */
+    Runnable cancellationCheck(IndexSearcher searcher) {
+        return searchTasks.cancellationCheck(searcher);
+    }
+
+    /**
+     * Returns the column of the given field in the segment, building it if it is not cached yet.
+     * Concurrent requests for the same column wait for a single build.
+     *
+     * @param maxTextChars The longest value the build may analyze
+     * @param maxTokens The maximum number of tokens a value may produce
+     * @param checkCancelled Called while the column is built, throws to abandon the build
+     */
+    TokenCountColumn get(
+        LeafReader reader,
+        String field,
+        Set<String> sourcePaths,
+        NamedAnalyzer analyzer,
+        int maxTextChars,
+        int maxTokens,
+        Runnable checkCancelled
+    ) throws IOException {
+        if (columns == null) {
+            return TokenCountColumn.build(reader, sourcePaths, analyzer, maxTextChars, maxTokens, checkCancelled);
+        }
+        // the column is at most a few bytes per document, charge a full int each until it is built
+        long estimate = (long) Integer.BYTES * reader.maxDoc();
+        return columns.get(
+            reader,
+            Arrays.asList(field, analyzer.name()),
+            estimate,
+            segment -> TokenCountColumn.build(segment, sourcePaths, analyzer, maxTextChars, maxTokens, checkCancelled)
+        );
+    }
+
+    /**
+     * @return The memory held by the cached columns
+     */
+    public long ramBytesUsed() {
+        return columns == null ? 0 : columns.ramBytesUsed();
+    }
+
+    /**
+     * @return The number of cached columns
+     */
+    public int count() {
+        return columns == null ? 0 : columns.count();
+    }
+}
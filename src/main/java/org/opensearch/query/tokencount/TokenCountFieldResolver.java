@@ -0,0 +1,188 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+import org.opensearch.core.common.bytes.BytesReference;
+import org.opensearch.core.index.Index;
+import org.opensearch.core.xcontent.ToXContent;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.DocumentMapper;
+import org.opensearch.index.mapper.Mapper;
+import org.opensearch.index.mapper.MapperService;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.query.tokencount.mapper.MultiTokenCountFieldMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the analyzer and counting mode of the fields targeted by token_count queries, once per
+ * index and mapping version.
+ * <p>
+ * A token_count field is counted with the analyzer and {@code enable_position_increments} setting
+ * of its own mapping, so the query always counts exactly like indexing did. The count of one analyzer
+ * of a multi_token_count field, addressed as {@code <field>.<analyzer>}, is counted with that analyzer
+ * and the field's {@code enable_position_increments} setting. Any other field is
+ * counted with the index's default search analyzer. Resolutions are dropped as soon as the mapping
+ * of the index changes.
+ */
+public class TokenCountFieldResolver {
+
+    static final String TOKEN_COUNT_TYPE = "token_count";
+
+    private final ConcurrentHashMap<Index, IndexResolutions> indices = new ConcurrentHashMap<>();
+
+    /**
+     * How the counts of a field are produced.
+     */
+    public static final class ResolvedField {
+        private final NamedAnalyzer analyzer;
+        private final TokenCountAnalyzer.CountMode mode;
+        private final boolean defaultAnalyzer;
+
+        ResolvedField(NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, boolean defaultAnalyzer) {
+            this.analyzer = analyzer;
+            this.mode = mode;
+            this.defaultAnalyzer = defaultAnalyzer;
+        }
+
+        /**
+         * @return The analyzer the field's values are counted with
+         */
+        public NamedAnalyzer analyzer() {
+            return analyzer;
+        }
+
+        /**
+         * @return What the field's counts measure
+         */
+        public TokenCountAnalyzer.CountMode mode() {
+            return mode;
+        }
+
+        /**
+         * @return Whether no mapping names an analyzer for the field and the index default search analyzer is used
+         */
+        public boolean isDefaultAnalyzer() {
+            return defaultAnalyzer;
+        }
+    }
+
+    private static final class IndexResolutions {
+        private final long mappingVersion;
+        private final WeakReference<DocumentMapper> mapper;
+        private final ConcurrentHashMap<String, ResolvedField> fields = new ConcurrentHashMap<>();
+
+        IndexResolutions(long mappingVersion, DocumentMapper mapper) {
+            this.mappingVersion = mappingVersion;
+            this.mapper = new WeakReference<>(mapper);
+        }
+
+        boolean isCurrent(long version, DocumentMapper documentMapper) {
+            return mappingVersion == version && mapper.get() == documentMapper;
+        }
+    }
+
+    /**
+     * Returns how the given field of the context's index is counted.
+     */
+    public ResolvedField resolve(QueryShardContext context, String field) {
+        return resolve(context.getMapperService(), field);
+    }
+
+    /**
+     * Returns how the given field of the mapper service's index is counted.
+     */
+    public ResolvedField resolve(MapperService mapperService, String field) {
+        DocumentMapper mapper = mapperService.documentMapper();
+        if (mapper == null) {
+            return resolve(mapperService, null, field);
+        }
+        long mappingVersion = mapperService.getIndexSettings().getIndexMetadata().getMappingVersion();
+        // plain reads on the common path, the map is only locked to replace a missing or stale entry
+        IndexResolutions resolutions = indices.get(mapperService.index());
+        if (resolutions == null || resolutions.isCurrent(mappingVersion, mapper) == false) {
+            resolutions = indices.compute(
+                mapperService.index(),
+                (index, current) -> current != null && current.isCurrent(mappingVersion, mapper)
+                    ? current
+                    : new IndexResolutions(mappingVersion, mapper)
+            );
+        }
+        ResolvedField resolved = resolutions.fields.get(field);
+        if (resolved == null) {
+            resolved = resolutions.fields.computeIfAbsent(field, f -> resolve(mapperService, mapper, f));
+        }
+        return resolved;
+    }
+
+    /**
+     * Drops the resolutions of the given index.
+     */
+    public void invalidate(Index index) {
+        indices.remove(index);
+    }
+
+    private static ResolvedField resolve(MapperService mapperService, DocumentMapper documentMapper, String field) {
+        Mapper mapper = documentMapper == null ? null : documentMapper.mappers().getMapper(field);
+        if (mapper == null) {
+            MultiTokenCountFieldMapper.MultiTokenCountFieldType multi = MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(
+                mapperService::fieldType,
+                field
+            );
+            if (multi != null) {
+                return new ResolvedField(multi.analyzers().get(multi.analyzerOf(field)), multi.mode(), false);
+            }
+        }
+        if (mapper != null && TOKEN_COUNT_TYPE.equals(mapper.typeName())) {
+            // the token_count mapper lives in a module this plugin cannot link against, so its
+            // parameters are read from its serialized mapping
+            Map<String, Object> parameters = mappingParameters(mapper);
+            String analyzerName = (String) parameters.get("analyzer");
+            NamedAnalyzer analyzer = mapperService.getIndexAnalyzers().get(analyzerName);
+            if (analyzer == null) {
+                throw new IllegalStateException("analyzer [" + analyzerName + "] of field [" + field + "] is not defined");
+            }
+            boolean positionIncrements = XContentMapValues.nodeBooleanValue(
+                parameters.get("enable_position_increments"),
+                "enable_position_increments",
+                true
+            );
+            return new ResolvedField(
+                analyzer,
+                positionIncrements ? TokenCountAnalyzer.CountMode.POSITIONS : TokenCountAnalyzer.CountMode.NORM_LENGTH,
+                false
+            );
+        }
+        return new ResolvedField(
+            mapperService.getIndexAnalyzers().getDefaultSearchAnalyzer(),
+            TokenCountAnalyzer.CountMode.POSITIONS,
+            true
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mappingParameters(Mapper mapper) {
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+            mapper.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            builder.endObject();
+            Map<String, Object> mapping = XContentHelper.convertToMap(BytesReference.bytes(builder), false, builder.contentType()).v2();
+            return (Map<String, Object>) mapping.get(mapper.simpleName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read the mapping of field [" + mapper.name() + "]", e);
+        }
+    }
+}
@@ -7,16 +7,37 @@
  */
 package org.opensearch.query.tokencount;
 
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.Query;
 import org.opensearch.core.common.ParsingException;
 import org.opensearch.core.common.io.stream.StreamInput;
 import org.opensearch.core.common.io.stream.StreamOutput;
 import org.opensearch.core.xcontent.XContentBuilder;
 import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.mapper.NumberFieldMapper;
+import org.opensearch.index.mapper.TextSearchInfo;
 import org.opensearch.index.query.AbstractQueryBuilder;
+import org.opensearch.index.query.MatchNoneQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryRewriteContext;
 import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.query.tokencount.mapper.MultiTokenCountFieldMapper;
+import org.opensearch.query.tokencount.stats.TokenCountTelemetry;
+import org.opensearch.telemetry.tracing.Span;
+import org.opensearch.telemetry.tracing.SpanScope;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
@@ -24,6 +45,18 @@ import java.util.Objects;
  * A query that matches documents based on the token count of analyzed text.
  * This performs server-side analysis of the provided text and compares the token count
  * against a token_count field using the specified operator.
+ * <p>
+ * Once a shard-level context is available the query rewrites itself into a compact form that
+ * carries the resolved count instead of the text, so the text is analyzed only once per shard
+ * request and requests whose texts produce the same count share request-cache entries.
+ * <p>
+ * In approximate mode the query can also target a plain text field, in which case the count is
+ * compared against the field length Lucene keeps in the field's norms, see {@link NormLengthQuery}.
+ * In exact mode a plain text field is compared against counts computed from {@code _source} once
+ * per segment, see {@link TokenCountColumnQuery}.
+ * <p>
+ * Matches are constant-score by default. With {@link ScoreMode#DECAY} documents are scored by how
+ * close their count is to the analyzed count instead, see {@link IntDistanceFeatureQuery}.
  */
 public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQueryBuilder> {
 
@@ -31,8 +64,17 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
 
     private final String fieldName;
     private final String text;
+    private final List<String> texts;
+    private final int[] counts;
     private Operator operator = Operator.EQ;
     private String analyzer;
+    private boolean approximate = false;
+    private boolean exact = false;
+    private ScoreMode scoreMode = ScoreMode.CONSTANT;
+    private Integer pivot;
+    // the analysis that resolved the counts of a rewritten query on this shard, reported when the query is
+    // built, or null if the counts were given
+    private AnalysisProfile analysisProfile;
 
     /**
      * Comparison operators for token count matching
@@ -69,6 +111,38 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
         }
     }
 
+    /**
+     * How matching documents are scored
+     */
+    public enum ScoreMode {
+        CONSTANT("constant"),
+        DECAY("decay");
+
+        private final String name;
+
+        ScoreMode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static ScoreMode fromString(String mode) {
+            for (ScoreMode scoreMode : values()) {
+                if (scoreMode.name.equalsIgnoreCase(mode)) {
+                    return scoreMode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown score_mode: " + mode);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
     /**
      * Constructs a new token count query.
      *
@@ -84,6 +158,68 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
         }
         this.fieldName = fieldName;
         this.text = text;
+        this.texts = null;
+        this.counts = null;
+    }
+
+    /**
+     * Constructs a token count query from an already resolved token count.
+     *
+     * @param fieldName The token_count field to query against
+     * @param count The token count to compare against
+     */
+    public TokenCountQueryBuilder(String fieldName, int count) {
+        this(fieldName, null, null, validateCounts(new int[] { count }));
+    }
+
+    private TokenCountQueryBuilder(String fieldName, String text, List<String> texts, int[] counts) {
+        if (fieldName == null || fieldName.isEmpty()) {
+            throw new IllegalArgumentException("field cannot be null or empty");
+        }
+        this.fieldName = fieldName;
+        this.text = text;
+        this.texts = texts;
+        this.counts = counts;
+    }
+
+    /**
+     * Creates a token count query that matches the token count of any of the given texts.
+     *
+     * @param fieldName The token_count field to query against
+     * @param texts The texts to analyze for token counting
+     */
+    public static TokenCountQueryBuilder forTexts(String fieldName, List<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            throw new IllegalArgumentException("texts cannot be null or empty");
+        }
+        for (String t : texts) {
+            if (t == null || t.isEmpty()) {
+                throw new IllegalArgumentException("texts cannot contain null or empty values");
+            }
+        }
+        return new TokenCountQueryBuilder(fieldName, null, Collections.unmodifiableList(new ArrayList<>(texts)), null);
+    }
+
+    /**
+     * Creates a token count query from already resolved token counts.
+     *
+     * @param fieldName The token_count field to query against
+     * @param counts The token counts to compare against
+     */
+    public static TokenCountQueryBuilder forCounts(String fieldName, int... counts) {
+        return new TokenCountQueryBuilder(fieldName, null, null, validateCounts(counts));
+    }
+
+    private static int[] validateCounts(int[] counts) {
+        if (counts == null || counts.length == 0) {
+            throw new IllegalArgumentException("counts cannot be null or empty");
+        }
+        for (int c : counts) {
+            if (c < 0) {
+                throw new IllegalArgumentException("count cannot be negative");
+            }
+        }
+        return Arrays.stream(counts).sorted().distinct().toArray();
     }
 
     /**
@@ -92,17 +228,32 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
     public TokenCountQueryBuilder(StreamInput in) throws IOException {
         super(in);
         this.fieldName = in.readString();
-        this.text = in.readString();
+        this.text = in.readOptionalString();
+        this.texts = in.readOptionalStringList();
+        this.counts = in.readBoolean() ? in.readVIntArray() : null;
         this.operator = Operator.valueOf(in.readString());
         this.analyzer = in.readOptionalString();
+        this.approximate = in.readBoolean();
+        this.exact = in.readBoolean();
+        this.scoreMode = ScoreMode.valueOf(in.readString());
+        this.pivot = in.readOptionalVInt();
     }
 
     @Override
     protected void doWriteTo(StreamOutput out) throws IOException {
         out.writeString(fieldName);
-        out.writeString(text);
+        out.writeOptionalString(text);
+        out.writeOptionalStringCollection(texts);
+        out.writeBoolean(counts != null);
+        if (counts != null) {
+            out.writeVIntArray(counts);
+        }
         out.writeString(operator.name());
         out.writeOptionalString(analyzer);
+        out.writeBoolean(approximate);
+        out.writeBoolean(exact);
+        out.writeString(scoreMode.name());
+        out.writeOptionalVInt(pivot);
     }
 
     /**
@@ -113,12 +264,33 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
     }
 
     /**
-     * @return The text to analyze
+     * @return The text to analyze, or null if the query carries a resolved count
      */
     public String text() {
         return text;
     }
 
+    /**
+     * @return The texts to analyze, or null if the query was built from a single text or from counts
+     */
+    public List<String> texts() {
+        return texts;
+    }
+
+    /**
+     * @return The resolved token count, or null if the text has not been analyzed yet or several counts are set
+     */
+    public Integer count() {
+        return counts != null && counts.length == 1 ? counts[0] : null;
+    }
+
+    /**
+     * @return The resolved distinct token counts in ascending order, or null if the texts have not been analyzed yet
+     */
+    public int[] counts() {
+        return counts == null ? null : counts.clone();
+    }
+
     /**
      * @return The comparison operator
      */
@@ -135,7 +307,7 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
     }
 
     /**
-     * @return The analyzer name, or null if using the field's analyzer
+     * @return The analyzer name, or null if using the analyzer of the field's mapping
      */
     public String analyzer() {
         return analyzer;
@@ -143,74 +315,527 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
 
     /**
      * Sets the analyzer to use for token counting.
-     * If not set, the analyzer configured for the parent field will be used.
+     * If not set, a token_count field is counted with the analyzer of its mapping, and any other
+     * field with the index default search analyzer.
      */
     public TokenCountQueryBuilder analyzer(String analyzer) {
         this.analyzer = analyzer;
         return this;
     }
 
+    /**
+     * @return Whether text fields are matched on the length stored in their norms
+     */
+    public boolean approximate() {
+        return approximate;
+    }
+
+    /**
+     * Sets whether a text field is matched on the length stored in its norms. Lengths up to
+     * {@value NormLengthQuery#MAX_EXACT_LENGTH} are exact, longer lengths are compared by bucket and
+     * may match documents that are slightly longer or shorter than the bound. Has no effect on
+     * token_count and other numeric fields, which are always matched exactly.
+     */
+    public TokenCountQueryBuilder approximate(boolean approximate) {
+        this.approximate = approximate;
+        return this;
+    }
+
+    /**
+     * @return Whether text fields are matched on exact counts computed from their source
+     */
+    public boolean exact() {
+        return exact;
+    }
+
+    /**
+     * Sets whether a text field is matched on the exact token counts of its values, computed from
+     * {@code _source} with the field's index analyzer the first time a segment is queried and kept
+     * until the segment is merged away. Cannot be combined with {@link #approximate(boolean)}. Has no
+     * effect on token_count and other numeric fields, which are always matched exactly.
+     */
+    public TokenCountQueryBuilder exact(boolean exact) {
+        this.exact = exact;
+        return this;
+    }
+
+    /**
+     * @return How matching documents are scored
+     */
+    public ScoreMode scoreMode() {
+        return scoreMode;
+    }
+
+    /**
+     * Sets how matching documents are scored. {@link ScoreMode#DECAY} scores documents by how close
+     * their count is to the analyzed count and requires a {@link #pivot(int) pivot}. With the
+     * {@code eq} operator every document with a count then matches; other operators still restrict
+     * the matches and rank them by closeness to the bound.
+     */
+    public TokenCountQueryBuilder scoreMode(ScoreMode scoreMode) {
+        this.scoreMode = Objects.requireNonNull(scoreMode, "score_mode cannot be null");
+        return this;
+    }
+
+    /**
+     * @return The distance at which a document scores half of the boost in decay mode, or null if not set
+     */
+    public Integer pivot() {
+        return pivot;
+    }
+
+    /**
+     * Sets the distance between a document's count and the analyzed count at which the document scores
+     * half of the boost in decay mode.
+     */
+    public TokenCountQueryBuilder pivot(int pivot) {
+        if (pivot <= 0) {
+            throw new IllegalArgumentException("pivot must be greater than 0");
+        }
+        this.pivot = pivot;
+        return this;
+    }
+
     @Override
     protected void doXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(NAME);
         builder.field("field", fieldName);
-        builder.field("text", text);
+        if (text != null) {
+            builder.field("text", text);
+        }
+        if (texts != null) {
+            builder.field("texts", texts);
+        }
+        if (counts != null) {
+            if (counts.length == 1) {
+                builder.field("count", counts[0]);
+            } else {
+                builder.array("counts", counts);
+            }
+        }
         builder.field("operator", operator.getName());
         if (analyzer != null) {
             builder.field("analyzer", analyzer);
         }
+        if (approximate) {
+            builder.field("approximate", true);
+        }
+        if (exact) {
+            builder.field("exact", true);
+        }
+        if (scoreMode != ScoreMode.CONSTANT) {
+            builder.field("score_mode", scoreMode.getName());
+        }
+        if (pivot != null) {
+            builder.field("pivot", pivot);
+        }
         printBoostAndQueryName(builder);
         builder.endObject();
     }
 
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        // The coordinating node has no access to the index analyzers, so the text is resolved
+        // by the first rewrite that runs against a shard
+        QueryShardContext context = queryRewriteContext.convertToShardContext();
+        if (context == null) {
+            return this;
+        }
+        if (counts != null) {
+            // shards whose indexed counts cannot compare to the counts are skipped by the can_match phase
+            return mayMatch(context, counts) ? this : new MatchNoneQueryBuilder();
+        }
+        TokenCountServices services = TokenCountServices.of(context);
+        AnalysisProfile profile = new AnalysisProfile(fieldName);
+        int[] resolved = TokenCountQueryHelper.relevantCounts(resolveCounts(context, services, profile), operator);
+        TokenCountQueryBuilder rewritten = forCounts(fieldName, resolved).operator(operator)
+            .approximate(approximate)
+            .exact(exact)
+            .scoreMode(scoreMode);
+        if (pivot != null) {
+            rewritten.pivot(pivot);
+        }
+        rewritten.analysisProfile = profile;
+        return rewritten;
+    }
+
     @Override
     protected Query doToQuery(QueryShardContext context) throws IOException {
-        // Get the appropriate analyzer
-        String analyzerName = this.analyzer;
-        if (analyzerName == null) {
-            // Extract the parent field name from the token_count field
-            // e.g., "title.token_count" -> "title"
-            String parentField = fieldName;
-            int dotIndex = fieldName.lastIndexOf('.');
-            if (dotIndex > 0) {
-                parentField = fieldName.substring(0, dotIndex);
+        TokenCountServices services = TokenCountServices.of(context);
+        TokenCountTelemetry tokenCountTelemetry = services.telemetry();
+        Span span = tokenCountTelemetry.startSpan(TokenCountTelemetry.TO_QUERY_SPAN);
+        try (SpanScope scope = tokenCountTelemetry.withSpanInScope(span)) {
+            span.addAttribute("field", fieldName);
+            span.addAttribute("operator", operator.getName());
+            return buildQuery(context, services);
+        } catch (IOException | RuntimeException e) {
+            span.setError(e);
+            throw e;
+        } finally {
+            span.endSpan();
+        }
+    }
+
+    private Query buildQuery(QueryShardContext context, TokenCountServices services) throws IOException {
+        AnalysisProfile profile = analysisProfile;
+        int[] tokenCounts = counts;
+        if (tokenCounts == null) {
+            profile = new AnalysisProfile(fieldName);
+            tokenCounts = resolveCounts(context, services, profile);
+        }
+        services.stats().onQuery(operator);
+        Query query = createQuery(context, services, tokenCounts);
+        if (profile == null) {
+            return query;
+        }
+        // surface the analysis in the slow log and the profile output of this search
+        return new TokenCountAnalysisQuery(query, profile);
+    }
+
+    private Query createQuery(QueryShardContext context, TokenCountServices services, int[] tokenCounts) {
+
+        // Create the appropriate numeric range or set query based on the operator, checking doc values
+        // instead of walking the points whenever the rest of the query is more selective
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        if (fieldType == null) {
+            MultiTokenCountFieldMapper.MultiTokenCountFieldType multi = MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(
+                context::fieldMapper,
+                fieldName
+            );
+            if (multi != null) {
+                if (scoreMode == ScoreMode.DECAY) {
+                    throw new IllegalArgumentException(
+                        "["
+                            + NAME
+                            + "] query with score_mode ["
+                            + ScoreMode.DECAY
+                            + "] does not support the counts of ["
+                            + MultiTokenCountFieldMapper.CONTENT_TYPE
+                            + "] field ["
+                            + multi.name()
+                            + "]"
+                    );
+                }
+                return TokenCountQueryHelper.createQuery(multi, multi.analyzerOf(fieldName), tokenCounts, operator);
             }
+        }
+        if (scoreMode == ScoreMode.DECAY) {
+            return createDecayQuery(context, fieldType, tokenCounts);
+        }
+        if (fieldType == null) {
+            return TokenCountQueryHelper.createQuery(fieldName, tokenCounts, operator);
+        }
+        if (matchesNorms(fieldType)) {
+            return NormLengthQuery.create(fieldName, tokenCounts, operator);
+        }
+        if (matchesColumn(context, fieldType)) {
+            return new TokenCountColumnQuery(
+                fieldName,
+                context.sourcePath(fieldName),
+                fieldType.indexAnalyzer(),
+                tokenCounts,
+                operator,
+                context.getIndexSettings().getValue(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING),
+                context.getIndexSettings().getValue(TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING),
+                services.columns()
+            );
+        }
+        boolean indexSorted = context.indexSortedOnField(fieldName);
+        // an index sorted on the counts answers the comparison from a range of doc ids, which no bitmap beats
+        if (indexSorted == false) {
+            Query bitmapQuery = createBitmapQuery(context, services, fieldType, tokenCounts);
+            if (bitmapQuery != null) {
+                return bitmapQuery;
+            }
+        }
+        return TokenCountQueryHelper.createQuery(
+            fieldName,
+            tokenCounts,
+            operator,
+            fieldType.isSearchable(),
+            fieldType.hasDocValues(),
+            indexSorted
+        );
+    }
 
-            // Get the analyzer from the parent field's mapping
-            if (context.getMapperService().fieldType(parentField) != null) {
-                analyzerName = context.getMapperService().fieldType(parentField).getTextSearchInfo().getSearchAnalyzer().name();
+    /**
+     * Answers the comparison from the cached bitmaps of small counts when they are enabled on the index
+     * and hold every count the comparison accepts, or returns null. Like the points of the field, the
+     * bitmaps give way to checking doc values whenever the rest of the query is more selective.
+     */
+    private Query createBitmapQuery(QueryShardContext context, TokenCountServices services, MappedFieldType fieldType, int[] tokenCounts) {
+        int maxCount = context.getIndexSettings().getValue(TokenCountBitmaps.MAX_COUNT_SETTING);
+        if (maxCount == 0
+            || services.bitmaps() == null
+            || fieldType instanceof NumberFieldMapper.NumberFieldType == false
+            || ((NumberFieldMapper.NumberFieldType) fieldType).numberType() != NumberFieldMapper.NumberType.INTEGER
+            || fieldType.hasDocValues() == false) {
+            return null;
+        }
+        Query bitmapQuery = TokenCountBitmapQuery.create(fieldName, tokenCounts, operator, maxCount, services.bitmaps());
+        if (bitmapQuery == null) {
+            return null;
+        }
+        return new IndexOrDocValuesQuery(bitmapQuery, TokenCountQueryHelper.createDocValuesQuery(fieldName, tokenCounts, operator));
+    }
+
+    private Query createDecayQuery(QueryShardContext context, MappedFieldType fieldType, int[] tokenCounts) {
+        if (pivot == null) {
+            throw new IllegalArgumentException("[" + NAME + "] query with score_mode [" + ScoreMode.DECAY + "] requires a pivot");
+        }
+        Query filter;
+        if (fieldType == null) {
+            filter = TokenCountQueryHelper.createQuery(fieldName, tokenCounts, operator);
+        } else {
+            if (matchesNorms(fieldType)) {
+                throw new IllegalArgumentException(
+                    "[" + NAME + "] query does not support score_mode [" + ScoreMode.DECAY + "] in approximate mode on text fields"
+                );
+            }
+            if (matchesColumn(context, fieldType)) {
+                throw new IllegalArgumentException(
+                    "[" + NAME + "] query does not support score_mode [" + ScoreMode.DECAY + "] in exact mode on text fields"
+                );
+            }
+            if (fieldType instanceof NumberFieldMapper.NumberFieldType == false
+                || ((NumberFieldMapper.NumberFieldType) fieldType).numberType() != NumberFieldMapper.NumberType.INTEGER
+                || fieldType.hasDocValues() == false) {
+                throw new IllegalArgumentException(
+                    "["
+                        + NAME
+                        + "] query with score_mode ["
+                        + ScoreMode.DECAY
+                        + "] requires an integer field with doc values, but ["
+                        + fieldName
+                        + "] is of type ["
+                        + fieldType.typeName()
+                        + "]"
+                );
             }
+            filter = TokenCountQueryHelper.createQuery(fieldName, tokenCounts, operator, fieldType.isSearchable(), true);
+        }
+        int[] origins = TokenCountQueryHelper.relevantCounts(tokenCounts, operator);
+        Query decay = new IntDistanceFeatureQuery(fieldName, origins, pivot);
+        if (operator == Operator.EQ) {
+            return decay;
         }
+        // the filter restricts the matches while the decay alone drives scoring and skipping
+        return new BooleanQuery.Builder().add(decay, BooleanClause.Occur.MUST).add(filter, BooleanClause.Occur.FILTER).build();
+    }
 
-        // Fall back to standard analyzer if none specified
-        if (analyzerName == null) {
-            analyzerName = "standard";
+    /**
+     * Analyzes the text, or every text of a multi-text query, and returns the distinct counts.
+     */
+    private int[] resolveCounts(QueryShardContext context, TokenCountServices services, AnalysisProfile profile) throws IOException {
+        TokenCountTelemetry tokenCountTelemetry = services.telemetry();
+        Span span = tokenCountTelemetry.startSpan(TokenCountTelemetry.RESOLVE_SPAN);
+        try (SpanScope scope = tokenCountTelemetry.withSpanInScope(span)) {
+            span.addAttribute("field", fieldName);
+            return resolveCounts(context, services, profile, span);
+        } catch (IOException | RuntimeException e) {
+            span.setError(e);
+            throw e;
+        } finally {
+            span.endSpan();
         }
+    }
 
-        // Analyze the text to get token count
-        org.apache.lucene.analysis.Analyzer luceneAnalyzer = context.getIndexAnalyzers().get(analyzerName);
-        if (luceneAnalyzer == null) {
-            // Fall back to the default analyzer
-            luceneAnalyzer = context.getIndexAnalyzers().getDefaultIndexAnalyzer();
+    private int[] resolveCounts(QueryShardContext context, TokenCountServices services, AnalysisProfile profile, Span span)
+        throws IOException {
+        long resolveStartNanos = System.nanoTime();
+        int maxTexts = context.getIndexSettings().getValue(TokenCountAnalyzer.MAX_TEXTS_SETTING);
+        if (texts != null && texts.size() > maxTexts) {
+            throw TokenCountAnalyzer.tooManyTexts("[" + NAME + "] query", texts.size(), maxTexts, TokenCountAnalyzer.MAX_TEXTS_SETTING);
         }
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        TokenCountAnalyzer.CountMode mode;
+        NamedAnalyzer luceneAnalyzer;
+        if (fieldType != null && matchesNorms(fieldType)) {
+            // norms hold the length produced by the analyzer the field was indexed with
+            mode = TokenCountAnalyzer.CountMode.NORM_LENGTH;
+            if (this.analyzer != null) {
+                luceneAnalyzer = explicitAnalyzer(context);
+            } else if (fieldType.indexAnalyzer() != null) {
+                luceneAnalyzer = fieldType.indexAnalyzer();
+            } else {
+                luceneAnalyzer = fieldType.getTextSearchInfo().getSearchAnalyzer();
+            }
+        } else if (fieldType != null && matchesColumn(context, fieldType)) {
+            // columns hold the number of positions each value took with the field's index analyzer
+            mode = TokenCountAnalyzer.CountMode.POSITIONS;
+            luceneAnalyzer = this.analyzer != null ? explicitAnalyzer(context) : fieldType.indexAnalyzer();
+        } else {
+            TokenCountFieldResolver.ResolvedField resolved = services.fieldResolver().resolve(context, fieldName);
+            mode = resolved.mode();
+            if (this.analyzer != null) {
+                luceneAnalyzer = explicitAnalyzer(context);
+            } else {
+                luceneAnalyzer = resolved.analyzer();
+                if (resolved.isDefaultAnalyzer()) {
+                    services.stats().onDefaultAnalyzerFallback();
+                    span.addAttribute("fallback_analyzer", true);
+                }
+            }
+        }
+        span.addAttribute("analyzer", luceneAnalyzer.name());
+        // decay scores depend on the exact count, so analysis can only stop early for constant scores
+        int stopAfter = scoreMode == ScoreMode.DECAY ? Integer.MAX_VALUE : countUpperBound(context);
+        if (profile != null) {
+            profile.onResolved(luceneAnalyzer.name(), System.nanoTime() - resolveStartNanos);
+        }
+        AnalysisLimits limits = AnalysisLimits.of("the text in [" + NAME + "] query", context.getIndexSettings()).stopAfter(stopAfter);
+        // other clauses of the search may already have analyzed the text with the same analyzer
+        AnalysisMemo memo = services.memo();
+        TokenCountBatchAnalyzer.Counter counter = t -> services.count(context.index(), luceneAnalyzer, mode, t, limits, memo, profile);
+        if (text != null) {
+            return new int[] { counter.count(text) };
+        }
+        int[] textCounts = TokenCountBatchAnalyzer.countAll(texts, counter, services.searchExecutor());
+        return Arrays.stream(textCounts).sorted().distinct().toArray();
+    }
+
+    /**
+     * Whether the query is matched against the norms of the given field instead of its values.
+     * Only approximate queries on tokenized fields do so; the field must keep its norms.
+     */
+    private boolean matchesNorms(MappedFieldType fieldType) {
+        if (approximate == false || fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            return false;
+        }
+        if (exact) {
+            throw new IllegalArgumentException("[" + NAME + "] query cannot be both approximate and exact");
+        }
+        TextSearchInfo textSearchInfo = fieldType.getTextSearchInfo();
+        if (textSearchInfo == TextSearchInfo.NONE || textSearchInfo.isTokenized() == false) {
+            return false;
+        }
+        if (textSearchInfo.hasNorms() == false) {
+            throw new IllegalArgumentException(
+                "[" + NAME + "] query in approximate mode requires norms, but they are disabled on field [" + fieldName + "]"
+            );
+        }
+        return true;
+    }
+
+    /**
+     * Whether the query is matched against the token count columns of the given field, which exact
+     * queries on tokenized fields are. Columns are computed from {@code _source}, so it must be enabled
+     * and hold every field: a value left out by its includes or excludes would silently count zero.
+     */
+    private boolean matchesColumn(QueryShardContext context, MappedFieldType fieldType) {
+        if (exact == false || fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            return false;
+        }
+        TextSearchInfo textSearchInfo = fieldType.getTextSearchInfo();
+        if (textSearchInfo == TextSearchInfo.NONE || textSearchInfo.isTokenized() == false || fieldType.indexAnalyzer() == null) {
+            return false;
+        }
+        if (context.getMapperService().documentMapper().sourceMapper().enabled() == false) {
+            throw new IllegalArgumentException(
+                "[" + NAME + "] query in exact mode requires _source, but it is disabled on index [" + context.index().getName() + "]"
+            );
+        }
+        if (context.getMapperService().documentMapper().sourceMapper().isComplete() == false) {
+            throw new IllegalArgumentException(
+                "["
+                    + NAME
+                    + "] query in exact mode requires the complete _source, but _source includes or excludes fields on index ["
+                    + context.index().getName()
+                    + "]"
+            );
+        }
+        return true;
+    }
+
+    /**
+     * Returns a count above which analysis can stop because the outcome of the comparison is decided.
+     * No document on the shard holds a count above the largest indexed point, so any count beyond it
+     * compares the same way against every document and counting stops one past it.
+     */
+    private int countUpperBound(QueryShardContext context) throws IOException {
+        int[] bounds = indexedBounds(context);
+        if (bounds == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (bounds.length == 0 || bounds[1] < 0) {
+            // no document on this shard has a count, every count compares the same way
+            return 0;
+        }
+        return bounds[1] == Integer.MAX_VALUE ? Integer.MAX_VALUE : bounds[1] + 1;
+    }
 
-        int tokenCount = TokenCountAnalyzer.countTokens(luceneAnalyzer, text);
+    /**
+     * Whether a document of the shard can hold a count that compares to one of the given counts, judged
+     * from the smallest and largest indexed points of the field. Fields whose bounds are unknown may
+     * always match, and so do decay queries with the {@code eq} operator, which match every document
+     * with a count.
+     */
+    private boolean mayMatch(QueryShardContext context, int[] tokenCounts) throws IOException {
+        if (scoreMode == ScoreMode.DECAY && operator == Operator.EQ) {
+            return true;
+        }
+        int[] bounds = indexedBounds(context);
+        if (bounds == null) {
+            return true;
+        }
+        if (bounds.length == 0) {
+            return false;
+        }
+        for (int count : TokenCountQueryHelper.relevantCounts(tokenCounts, operator)) {
+            long[] range = TokenCountQueryHelper.range(count, operator);
+            if (range[0] <= range[1] && range[0] <= bounds[1] && range[1] >= bounds[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the smallest and largest count indexed on the shard, an empty array if no document has a
+     * count, or null if the field is not an indexed integer field or the shard's reader is not available.
+     */
+    private int[] indexedBounds(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.fieldMapper(fieldName);
+        IndexReader reader = context.getIndexReader();
+        if (reader == null
+            || fieldType instanceof NumberFieldMapper.NumberFieldType == false
+            || ((NumberFieldMapper.NumberFieldType) fieldType).numberType() != NumberFieldMapper.NumberType.INTEGER
+            || fieldType.isSearchable() == false) {
+            return null;
+        }
+        byte[] minPackedValue = PointValues.getMinPackedValue(reader, fieldName);
+        byte[] maxPackedValue = PointValues.getMaxPackedValue(reader, fieldName);
+        if (minPackedValue == null || maxPackedValue == null) {
+            return new int[0];
+        }
+        return new int[] { IntPoint.decodeDimension(minPackedValue, 0), IntPoint.decodeDimension(maxPackedValue, 0) };
+    }
 
-        // Create the appropriate numeric range query based on the operator
-        return TokenCountQueryHelper.createQuery(fieldName, tokenCount, operator);
+    private NamedAnalyzer explicitAnalyzer(QueryShardContext context) {
+        NamedAnalyzer luceneAnalyzer = context.getIndexAnalyzers().get(analyzer);
+        if (luceneAnalyzer == null) {
+            throw new IllegalArgumentException("[" + NAME + "] analyzer [" + analyzer + "] not found");
+        }
+        return luceneAnalyzer;
     }
 
     @Override
     protected boolean doEquals(TokenCountQueryBuilder other) {
         return Objects.equals(fieldName, other.fieldName)
             && Objects.equals(text, other.text)
+            && Objects.equals(texts, other.texts)
+            && Arrays.equals(counts, other.counts)
             && Objects.equals(operator, other.operator)
-            && Objects.equals(analyzer, other.analyzer);
+            && Objects.equals(analyzer, other.analyzer)
+            && approximate == other.approximate
+            && exact == other.exact
+            && Objects.equals(scoreMode, other.scoreMode)
+            && Objects.equals(pivot, other.pivot);
     }
 
     @Override
     protected int doHashCode() {
-        return Objects.hash(fieldName, text, operator, analyzer);
+        return Objects.hash(fieldName, text, texts, Arrays.hashCode(counts), operator, analyzer, approximate, exact, scoreMode, pivot);
     }
 
     @Override
@@ -224,8 +849,15 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
     public static TokenCountQueryBuilder fromXContent(XContentParser parser) throws IOException {
         String fieldName = null;
         String text = null;
+        List<String> texts = null;
+        Integer count = null;
+        int[] counts = null;
         Operator operator = Operator.EQ;
         String analyzer = null;
+        boolean approximate = false;
+        boolean exact = false;
+        ScoreMode scoreMode = ScoreMode.CONSTANT;
+        Integer pivot = null;
         String queryName = null;
         float boost = DEFAULT_BOOST;
 
@@ -239,10 +871,20 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
                     fieldName = parser.text();
                 } else if ("text".equals(currentFieldName)) {
                     text = parser.text();
+                } else if ("count".equals(currentFieldName)) {
+                    count = parser.intValue();
                 } else if ("operator".equals(currentFieldName)) {
                     operator = Operator.fromString(parser.text());
                 } else if ("analyzer".equals(currentFieldName)) {
                     analyzer = parser.text();
+                } else if ("approximate".equals(currentFieldName)) {
+                    approximate = parser.booleanValue();
+                } else if ("exact".equals(currentFieldName)) {
+                    exact = parser.booleanValue();
+                } else if ("score_mode".equals(currentFieldName)) {
+                    scoreMode = ScoreMode.fromString(parser.text());
+                } else if ("pivot".equals(currentFieldName)) {
+                    pivot = parser.intValue();
                 } else if (AbstractQueryBuilder.BOOST_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
                     boost = parser.floatValue();
                 } else if (AbstractQueryBuilder.NAME_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
@@ -253,6 +895,17 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
                         "[" + NAME + "] query does not support [" + currentFieldName + "]"
                     );
                 }
+            } else if (token == XContentParser.Token.START_ARRAY && "texts".equals(currentFieldName)) {
+                texts = new ArrayList<>();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    texts.add(parser.text());
+                }
+            } else if (token == XContentParser.Token.START_ARRAY && "counts".equals(currentFieldName)) {
+                List<Integer> values = new ArrayList<>();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    values.add(parser.intValue());
+                }
+                counts = values.stream().mapToInt(Integer::intValue).toArray();
             } else {
                 throw new ParsingException(
                     parser.getTokenLocation(),
@@ -264,15 +917,48 @@ public class TokenCountQueryBuilder extends AbstractQueryBuilder<TokenCountQuery
         if (fieldName == null) {
             throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'field' parameter");
         }
-        if (text == null) {
-            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'text' parameter");
+        int sources = (text != null ? 1 : 0) + (texts != null ? 1 : 0) + (count != null ? 1 : 0) + (counts != null ? 1 : 0);
+        if (sources == 0) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] requires 'text', 'texts', 'count' or 'counts' parameter");
+        }
+        if (sources > 1) {
+            throw new ParsingException(
+                parser.getTokenLocation(),
+                "[" + NAME + "] only one of 'text', 'texts', 'count' or 'counts' can be specified"
+            );
         }
 
-        TokenCountQueryBuilder queryBuilder = new TokenCountQueryBuilder(fieldName, text);
+        if (approximate && exact) {
+            throw new ParsingException(parser.getTokenLocation(), "[" + NAME + "] 'approximate' and 'exact' cannot both be set");
+        }
+
+        if (scoreMode == ScoreMode.DECAY && pivot == null) {
+            throw new ParsingException(
+                parser.getTokenLocation(),
+                "[" + NAME + "] score_mode [" + ScoreMode.DECAY + "] requires 'pivot' parameter"
+            );
+        }
+
+        TokenCountQueryBuilder queryBuilder;
+        if (text != null) {
+            queryBuilder = new TokenCountQueryBuilder(fieldName, text);
+        } else if (texts != null) {
+            queryBuilder = forTexts(fieldName, texts);
+        } else if (count != null) {
+            queryBuilder = new TokenCountQueryBuilder(fieldName, count);
+        } else {
+            queryBuilder = forCounts(fieldName, counts);
+        }
         queryBuilder.operator(operator);
         if (analyzer != null) {
             queryBuilder.analyzer(analyzer);
         }
+        queryBuilder.approximate(approximate);
+        queryBuilder.exact(exact);
+        queryBuilder.scoreMode(scoreMode);
+        if (pivot != null) {
+            queryBuilder.pivot(pivot);
+        }
         queryBuilder.boost(boost);
         queryBuilder.queryName(queryName);
         return queryBuilder;
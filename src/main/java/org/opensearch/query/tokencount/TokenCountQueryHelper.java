@@ -8,13 +8,29 @@
 package org.opensearch.query.tokencount;
 
 import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSortSortedNumericDocValuesRangeQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.opensearch.query.tokencount.mapper.MultiTokenCountFieldMapper;
+
+import java.util.Arrays;
 
 /**
  * Helper class for creating Lucene queries based on token count comparisons.
  */
 public class TokenCountQueryHelper {
 
+    /**
+     * The largest number of disjoint counts matched through the index sort, one binary search each.
+     * Larger sets are cheaper to match with a single point-set query.
+     */
+    static final int MAX_INDEX_SORTED_RANGES = 16;
+
     /**
      * Creates a Lucene query for the given field, token count, and operator.
      *
@@ -24,17 +40,228 @@ public class TokenCountQueryHelper {
      * @return A Lucene query
      */
     public static Query createQuery(String fieldName, int tokenCount, TokenCountQueryBuilder.Operator operator) {
+        if (operator == TokenCountQueryBuilder.Operator.EQ) {
+            return IntPoint.newExactQuery(fieldName, tokenCount);
+        }
+        // the bounds are computed on longs, since gt Integer.MAX_VALUE and lt Integer.MIN_VALUE match no integer
+        long[] range = range(tokenCount, operator);
+        if (range[1] < range[0]) {
+            return new MatchNoDocsQuery("no integer is " + operator + " [" + tokenCount + "]");
+        }
+        return IntPoint.newRangeQuery(fieldName, (int) range[0], (int) range[1]);
+    }
+
+    /**
+     * Creates a single Lucene query that matches if the field compares to any of the given token counts.
+     * Equality against several counts becomes one point-set query, or one range query when the counts
+     * are contiguous, so the points are traversed once regardless of the number of counts.
+     *
+     * @param fieldName The field to query
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @return A Lucene query
+     */
+    public static Query createQuery(String fieldName, int[] tokenCounts, TokenCountQueryBuilder.Operator operator) {
+        int[] counts = relevantCounts(tokenCounts, operator);
+        if (counts.length == 1) {
+            return createQuery(fieldName, counts[0], operator);
+        }
+        int min = counts[0];
+        int max = counts[counts.length - 1];
+        if ((long) max - min + 1 == counts.length) {
+            return IntPoint.newRangeQuery(fieldName, min, max);
+        }
+        return IntPoint.newSetQuery(fieldName, counts);
+    }
+
+    /**
+     * Creates a Lucene query that picks the cheapest way to evaluate the comparison.
+     * When the field has both points and doc values, the query leads with the points when it
+     * drives the iteration and falls back to checking each candidate document's doc values when
+     * a more selective clause of the same conjunction leads, as decided by Lucene from the cost
+     * of the other clauses.
+     *
+     * @param fieldName The field to query
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @param hasPoints Whether the field is indexed with points
+     * @param hasDocValues Whether the field has doc values
+     * @return A Lucene query
+     */
+    public static Query createQuery(
+        String fieldName,
+        int[] tokenCounts,
+        TokenCountQueryBuilder.Operator operator,
+        boolean hasPoints,
+        boolean hasDocValues
+    ) {
+        if (hasDocValues == false) {
+            return createQuery(fieldName, tokenCounts, operator);
+        }
+        Query docValuesQuery = createDocValuesQuery(fieldName, tokenCounts, operator);
+        if (hasPoints == false) {
+            return docValuesQuery;
+        }
+        return new IndexOrDocValuesQuery(createQuery(fieldName, tokenCounts, operator), docValuesQuery);
+    }
+
+    /**
+     * Creates a Lucene query that picks the cheapest way to evaluate the comparison, like
+     * {@link #createQuery(String, int[], TokenCountQueryBuilder.Operator, boolean, boolean)}, and that
+     * takes advantage of an index sorted by the field. The documents of a sorted segment whose count
+     * falls within a range are contiguous, so the range is found with a binary search over the doc
+     * values instead of a traversal of the points. Segments that are not sorted by the field use the
+     * regular query.
+     *
+     * @param fieldName The field to query
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @param hasPoints Whether the field is indexed with points
+     * @param hasDocValues Whether the field has doc values
+     * @param indexSorted Whether the index is sorted by the field
+     * @return A Lucene query
+     */
+    public static Query createQuery(
+        String fieldName,
+        int[] tokenCounts,
+        TokenCountQueryBuilder.Operator operator,
+        boolean hasPoints,
+        boolean hasDocValues,
+        boolean indexSorted
+    ) {
+        Query query = createQuery(fieldName, tokenCounts, operator, hasPoints, hasDocValues);
+        if (indexSorted == false || hasDocValues == false) {
+            return query;
+        }
+        int[] counts = relevantCounts(tokenCounts, operator);
+        if (counts.length == 1) {
+            long[] range = range(counts[0], operator);
+            return new IndexSortSortedNumericDocValuesRangeQuery(fieldName, range[0], range[1], query);
+        }
+        int min = counts[0];
+        int max = counts[counts.length - 1];
+        if ((long) max - min + 1 == counts.length) {
+            return new IndexSortSortedNumericDocValuesRangeQuery(fieldName, min, max, query);
+        }
+        if (counts.length > MAX_INDEX_SORTED_RANGES) {
+            return query;
+        }
+        // one contiguous block of documents per count; each clause falls back to an exact query on unsorted segments
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (int count : counts) {
+            Query fallback = createQuery(fieldName, new int[] { count }, TokenCountQueryBuilder.Operator.EQ, hasPoints, true);
+            builder.add(new IndexSortSortedNumericDocValuesRangeQuery(fieldName, count, count, fallback), BooleanClause.Occur.SHOULD);
+        }
+        return new ConstantScoreQuery(builder.build());
+    }
+
+    /**
+     * Creates a Lucene query on the count of one analyzer of a multi_token_count field. Like
+     * {@link #createQuery(String, int[], TokenCountQueryBuilder.Operator)}, the points are traversed once
+     * however many counts are given.
+     *
+     * @param fieldType The multi_token_count field to query
+     * @param analyzer The analyzer whose count is compared
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @return A Lucene query
+     */
+    public static Query createQuery(
+        MultiTokenCountFieldMapper.MultiTokenCountFieldType fieldType,
+        String analyzer,
+        int[] tokenCounts,
+        TokenCountQueryBuilder.Operator operator
+    ) {
+        int[] counts = relevantCounts(tokenCounts, operator);
+        if (counts.length > 1) {
+            int min = counts[0];
+            int max = counts[counts.length - 1];
+            if ((long) max - min + 1 == counts.length) {
+                return fieldType.countRangeQuery(analyzer, min, max);
+            }
+            return fieldType.countSetQuery(analyzer, counts);
+        }
+        // counts are never negative, and the values of other analyzers must stay out of the range
+        long[] range = range(counts[0], operator);
+        long lower = Math.max(0, range[0]);
+        if (range[1] < lower) {
+            return new MatchNoDocsQuery("token counts are never negative");
+        }
+        return fieldType.countRangeQuery(analyzer, (int) lower, (int) range[1]);
+    }
+
+    /**
+     * Returns the inclusive bounds of the values that compare to the token count with the operator.
+     */
+    static long[] range(int tokenCount, TokenCountQueryBuilder.Operator operator) {
+        switch (operator) {
+            case EQ:
+                return new long[] { tokenCount, tokenCount };
+            case GT:
+                return new long[] { tokenCount + 1L, Integer.MAX_VALUE };
+            case LT:
+                return new long[] { Integer.MIN_VALUE, tokenCount - 1L };
+            case GTE:
+                return new long[] { tokenCount, Integer.MAX_VALUE };
+            case LTE:
+                return new long[] { Integer.MIN_VALUE, tokenCount };
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    /**
+     * Creates a Lucene query that verifies the comparison against the field's doc values one document at a time.
+     *
+     * @param fieldName The field to query
+     * @param tokenCounts The distinct token counts to compare against, in ascending order
+     * @param operator The comparison operator
+     * @return A Lucene query
+     */
+    public static Query createDocValuesQuery(String fieldName, int[] tokenCounts, TokenCountQueryBuilder.Operator operator) {
+        int[] counts = relevantCounts(tokenCounts, operator);
+        if (counts.length > 1) {
+            int min = counts[0];
+            int max = counts[counts.length - 1];
+            if ((long) max - min + 1 == counts.length) {
+                return SortedNumericDocValuesField.newSlowRangeQuery(fieldName, min, max);
+            }
+            return SortedNumericDocValuesField.newSlowSetQuery(fieldName, Arrays.stream(counts).asLongStream().toArray());
+        }
+        int tokenCount = counts[0];
         switch (operator) {
             case EQ:
-                return IntPoint.newExactQuery(fieldName, tokenCount);
+                return SortedNumericDocValuesField.newSlowExactQuery(fieldName, tokenCount);
             case GT:
-                return IntPoint.newRangeQuery(fieldName, tokenCount + 1, Integer.MAX_VALUE);
+                return SortedNumericDocValuesField.newSlowRangeQuery(fieldName, tokenCount + 1L, Integer.MAX_VALUE);
             case LT:
-                return IntPoint.newRangeQuery(fieldName, Integer.MIN_VALUE, tokenCount - 1);
+                return SortedNumericDocValuesField.newSlowRangeQuery(fieldName, Integer.MIN_VALUE, tokenCount - 1L);
             case GTE:
-                return IntPoint.newRangeQuery(fieldName, tokenCount, Integer.MAX_VALUE);
+                return SortedNumericDocValuesField.newSlowRangeQuery(fieldName, tokenCount, Integer.MAX_VALUE);
+            case LTE:
+                return SortedNumericDocValuesField.newSlowRangeQuery(fieldName, Integer.MIN_VALUE, tokenCount);
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
+    /**
+     * Reduces distinct, ascending token counts to the ones that decide the outcome of the operator:
+     * every count for equality, the smallest for lower bounds and the largest for upper bounds.
+     */
+    static int[] relevantCounts(int[] tokenCounts, TokenCountQueryBuilder.Operator operator) {
+        if (tokenCounts.length <= 1) {
+            return tokenCounts;
+        }
+        switch (operator) {
+            case EQ:
+                return tokenCounts;
+            case GT:
+            case GTE:
+                return new int[] { tokenCounts[0] };
+            case LT:
             case LTE:
-                return IntPoint.newRangeQuery(fieldName, Integer.MIN_VALUE, tokenCount);
+                return new int[] { tokenCounts[tokenCounts.length - 1] };
             default:
                 throw new IllegalArgumentException("Unknown operator: " + operator);
         }
@@ -7,26 +7,283 @@
  */
 package org.opensearch.query.tokencount;
 
+import org.opensearch.action.ActionRequest;
+import org.opensearch.action.support.ActionFilter;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.node.DiscoveryNodes;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.settings.ClusterSettings;
+import org.opensearch.common.settings.IndexScopedSettings;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.settings.SettingsFilter;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.common.util.concurrent.OpenSearchExecutors;
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
 import org.opensearch.core.common.io.stream.NamedWriteableRegistry;
-import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.opensearch.core.index.Index;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.env.Environment;
+import org.opensearch.env.NodeEnvironment;
+import org.opensearch.index.IndexModule;
+import org.opensearch.index.IndexService;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.mapper.Mapper;
+import org.opensearch.index.shard.IndexEventListener;
+import org.opensearch.indices.breaker.BreakerSettings;
+import org.opensearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
+import org.opensearch.ingest.Processor;
+import org.opensearch.plugins.ActionPlugin;
+import org.opensearch.plugins.CircuitBreakerPlugin;
+import org.opensearch.plugins.IngestPlugin;
+import org.opensearch.plugins.MapperPlugin;
+import org.opensearch.plugins.NetworkPlugin;
 import org.opensearch.plugins.Plugin;
 import org.opensearch.plugins.SearchPlugin;
+import org.opensearch.plugins.TelemetryAwarePlugin;
+import org.opensearch.query.tokencount.action.RestTokenCountAction;
+import org.opensearch.query.tokencount.action.TokenCountAction;
+import org.opensearch.query.tokencount.action.TransportTokenCountAction;
+import org.opensearch.query.tokencount.aggregations.InternalTokenCountHistogram;
+import org.opensearch.query.tokencount.aggregations.TokenCountHistogramAggregationBuilder;
+import org.opensearch.query.tokencount.ingest.TokenCountProcessor;
+import org.opensearch.query.tokencount.mapper.MultiTokenCountFieldMapper;
+import org.opensearch.query.tokencount.script.TokenCountFunction;
+import org.opensearch.query.tokencount.stats.RestTokenCountStatsAction;
+import org.opensearch.query.tokencount.stats.TokenCountStats;
+import org.opensearch.query.tokencount.stats.TokenCountStatsAction;
+import org.opensearch.query.tokencount.stats.TokenCountTelemetry;
+import org.opensearch.query.tokencount.stats.TransportTokenCountStatsAction;
+import org.opensearch.repositories.RepositoriesService;
+import org.opensearch.rest.RestController;
+import org.opensearch.rest.RestHandler;
+import org.opensearch.script.ScriptService;
+import org.opensearch.telemetry.metrics.MetricsRegistry;
+import org.opensearch.telemetry.tracing.Tracer;
+import org.opensearch.threadpool.ExecutorBuilder;
+import org.opensearch.threadpool.FixedExecutorBuilder;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportInterceptor;
+import org.opensearch.transport.client.Client;
+import org.opensearch.watcher.ResourceWatcherService;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Plugin that registers the token_count query for server-side text analysis and token counting.
  */
-public class TokenCountQueryPlugin extends Plugin implements SearchPlugin {
+public class TokenCountQueryPlugin extends Plugin
+    implements
+        SearchPlugin,
+        CircuitBreakerPlugin,
+        ActionPlugin,
+        IngestPlugin,
+        MapperPlugin,
+        NetworkPlugin,
+        TelemetryAwarePlugin {
+
+    public static final String CIRCUIT_BREAKER_NAME = "token_count";
+
+    /**
+     * The thread pool that serves {@code _token_count} requests, so that large batches cannot starve searches.
+     */
+    public static final String THREAD_POOL_NAME = "token_count";
+
+    public static final Setting<ByteSizeValue> CIRCUIT_BREAKER_LIMIT_SETTING = Setting.memorySizeSetting(
+        "plugins.token_count.breaker.limit",
+        "10%",
+        Setting.Property.NodeScope
+    );
+
+    private TokenCountCache cache;
+    private final TokenCountStats stats = new TokenCountStats();
+    private final TokenCountFieldResolver fieldResolver = new TokenCountFieldResolver();
+    private final TokenCountSearchTasks searchTasks = new TokenCountSearchTasks();
+    private final TokenCountServices services = new TokenCountServices();
+    private CircuitBreaker circuitBreaker = new NoopCircuitBreaker(CIRCUIT_BREAKER_NAME);
+    private volatile ThreadPool threadPool;
 
     @Override
-    public List<QuerySpec<?>> getQueries() {
+    public Collection<Object> createComponents(
+        Client client,
+        ClusterService clusterService,
+        ThreadPool threadPool,
+        ResourceWatcherService resourceWatcherService,
+        ScriptService scriptService,
+        NamedXContentRegistry xContentRegistry,
+        Environment environment,
+        NodeEnvironment nodeEnvironment,
+        NamedWriteableRegistry namedWriteableRegistry,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        Supplier<RepositoriesService> repositoriesServiceSupplier
+    ) {
+        cache = new TokenCountCache(environment.settings());
+        this.threadPool = threadPool;
+        TokenCountColumns columns = new TokenCountColumns(circuitBreaker, searchTasks);
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(circuitBreaker);
+        services.initialize(
+            cache,
+            threadPool.executor(ThreadPool.Names.SEARCH),
+            threadPool.getThreadContext(),
+            circuitBreaker,
+            stats,
+            fieldResolver,
+            columns,
+            bitmaps
+        );
+        return Arrays.asList(cache, stats, fieldResolver, columns, bitmaps, services);
+    }
+
+    @Override
+    public Collection<Object> createComponents(
+        Client client,
+        ClusterService clusterService,
+        ThreadPool threadPool,
+        ResourceWatcherService resourceWatcherService,
+        ScriptService scriptService,
+        NamedXContentRegistry xContentRegistry,
+        Environment environment,
+        NodeEnvironment nodeEnvironment,
+        NamedWriteableRegistry namedWriteableRegistry,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        Supplier<RepositoriesService> repositoriesServiceSupplier,
+        Tracer tracer,
+        MetricsRegistry metricsRegistry
+    ) {
+        TokenCountTelemetry telemetry = new TokenCountTelemetry(tracer, metricsRegistry);
+        services.initializeTelemetry(telemetry);
+        return Collections.singletonList(telemetry);
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return Arrays.asList(
+            TokenCountCache.CACHE_SIZE_SETTING,
+            TokenCountCache.CACHE_EXPIRE_SETTING,
+            CIRCUIT_BREAKER_LIMIT_SETTING,
+            TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING,
+            TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING,
+            TokenCountAnalyzer.MAX_TEXTS_SETTING,
+            TokenCountBitmaps.MAX_COUNT_SETTING,
+            TransportTokenCountAction.MAX_TEXTS_SETTING
+        );
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        return new BreakerSettings(CIRCUIT_BREAKER_NAME, CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(), 1.0);
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void onIndexModule(IndexModule indexModule) {
+        indexModule.addIndexEventListener(new IndexEventListener() {
+            @Override
+            public void afterIndexCreated(IndexService indexService) {
+                services.register(indexService.getIndexSettings());
+                TokenCountFunction.indices().register(indexService, services);
+            }
+
+            @Override
+            public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
+                services.remove(index, indexSettings);
+                TokenCountFunction.indices().remove(index, services);
+            }
+        });
+        indexModule.addSearchOperationListener(new TokenCountSlowLog(indexModule));
+        indexModule.addSearchOperationListener(searchTasks);
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return Arrays.asList(
+            new ActionHandler<>(TokenCountStatsAction.INSTANCE, TransportTokenCountStatsAction.class),
+            new ActionHandler<>(TokenCountAction.INSTANCE, TransportTokenCountAction.class)
+        );
+    }
+
+    @Override
+    public List<ActionFilter> getActionFilters() {
+        return Collections.singletonList(new AnalysisMemoFilter(() -> threadPool));
+    }
+
+    @Override
+    public List<TransportInterceptor> getTransportInterceptors(NamedWriteableRegistry namedWriteableRegistry, ThreadContext threadContext) {
+        return Collections.singletonList(new AnalysisMemoInterceptor(threadContext));
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(
+        Settings settings,
+        RestController restController,
+        ClusterSettings clusterSettings,
+        IndexScopedSettings indexScopedSettings,
+        SettingsFilter settingsFilter,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        Supplier<DiscoveryNodes> nodesInCluster
+    ) {
+        return Arrays.asList(new RestTokenCountStatsAction(), new RestTokenCountAction());
+    }
+
+    @Override
+    public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+        int processors = OpenSearchExecutors.allocatedProcessors(settings);
+        return Collections.singletonList(
+            new FixedExecutorBuilder(settings, THREAD_POOL_NAME, processors, 1000, "thread_pool." + THREAD_POOL_NAME)
+        );
+    }
+
+    @Override
+    public Map<String, Processor.Factory> getProcessors(Processor.Parameters parameters) {
+        // processors are registered before the node components exist, pipelines are only created once they do
+        Supplier<Executor> executor = () -> threadPool == null ? null : threadPool.executor(THREAD_POOL_NAME);
+        return Collections.singletonMap(
+            TokenCountProcessor.TYPE,
+            new TokenCountProcessor.Factory(parameters.analysisRegistry, services, executor)
+        );
+    }
+
+    @Override
+    public Map<String, Mapper.TypeParser> getMappers() {
+        return Collections.singletonMap(MultiTokenCountFieldMapper.CONTENT_TYPE, MultiTokenCountFieldMapper.PARSER);
+    }
+
+    @Override
+    public List<AggregationSpec> getAggregations() {
         return Collections.singletonList(
+            new AggregationSpec(
+                TokenCountHistogramAggregationBuilder.NAME,
+                TokenCountHistogramAggregationBuilder::new,
+                TokenCountHistogramAggregationBuilder::parse
+            ).addResultReader(InternalTokenCountHistogram::new)
+        );
+    }
+
+    @Override
+    public List<QuerySpec<?>> getQueries() {
+        return Arrays.asList(
             new QuerySpec<>(
                 TokenCountQueryBuilder.NAME,
                 TokenCountQueryBuilder::new,
                 TokenCountQueryBuilder::fromXContent
+            ),
+            new QuerySpec<>(
+                ExactPhraseQueryBuilder.NAME,
+                ExactPhraseQueryBuilder::new,
+                ExactPhraseQueryBuilder::fromXContent
             )
         );
     }
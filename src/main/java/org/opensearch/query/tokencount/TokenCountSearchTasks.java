@@ -0,0 +1,62 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.opensearch.action.search.SearchShardTask;
+import org.opensearch.core.tasks.TaskCancelledException;
+import org.opensearch.index.shard.SearchOperationListener;
+import org.opensearch.search.internal.SearchContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the task of every search in its query phase by the searcher the search runs on, so that work
+ * done deep inside a query, like building a {@link TokenCountColumn}, stops once the search is cancelled.
+ */
+final class TokenCountSearchTasks implements SearchOperationListener {
+
+    private static final Runnable NOT_CANCELLABLE = () -> {};
+
+    private final Map<IndexSearcher, SearchShardTask> tasks = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPreQueryPhase(SearchContext searchContext) {
+        SearchShardTask task = searchContext.getTask();
+        if (task != null) {
+            tasks.put(searchContext.searcher(), task);
+        }
+    }
+
+    @Override
+    public void onFailedQueryPhase(SearchContext searchContext) {
+        tasks.remove(searchContext.searcher());
+    }
+
+    @Override
+    public void onQueryPhase(SearchContext searchContext, long tookInNanos) {
+        tasks.remove(searchContext.searcher());
+    }
+
+    /**
+     * Returns a check that throws a {@link TaskCancelledException} once the search that runs on the
+     * given searcher is cancelled. Searchers outside of a query phase are never cancelled.
+     */
+    Runnable cancellationCheck(IndexSearcher searcher) {
+        SearchShardTask task = tasks.get(searcher);
+        if (task == null) {
+            return NOT_CANCELLABLE;
+        }
+        return () -> {
+            if (task.isCancelled()) {
+                throw new TaskCancelledException("The search was cancelled while token counts were computed");
+            }
+        };
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.util.Accountable;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Caches structures derived from a segment, built on first use, for as long as the segment is open.
+ * <p>
+ * Like fielddata, values are charged to a circuit breaker while they are built and for as long as
+ * they are cached. A value is dropped and its memory released as soon as its segment is closed, for
+ * example once it has been merged away or its index deleted.
+ *
+ * @param <T> The type of the cached values
+ */
+final class TokenCountSegmentCache<T extends Accountable> {
+
+    /**
+     * Builds the value of a segment.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(LeafReader reader) throws IOException;
+    }
+
+    private final CircuitBreaker breaker;
+    private final String label;
+    private final ConcurrentHashMap<Key, Entry> values = new ConcurrentHashMap<>();
+
+    /**
+     * @param breaker The breaker values are charged to
+     * @param label The label of the charges, reported when the breaker trips
+     */
+    TokenCountSegmentCache(CircuitBreaker breaker, String label) {
+        this.breaker = breaker;
+        this.label = label;
+    }
+
+    /**
+     * Returns the value of the segment for the given id, building it if it is not cached yet.
+     * Concurrent requests for the same value wait for a single build.
+     *
+     * @param reader The segment
+     * @param id Identifies the value among the values cached for the segment
+     * @param estimate The memory to charge while the value is built
+     * @param loader Builds the value
+     */
+    T get(LeafReader reader, Object id, long estimate, Loader<T> loader) throws IOException {
+        return get(reader, id, estimate, loader, value -> true);
+    }
+
+    /**
+     * Same as {@link #get(LeafReader, Object, long, Loader)}, also replacing a cached value that the
+     * given predicate rejects, for example one built with settings that have changed since.
+     *
+     * @param isCurrent Whether a cached value can still be used
+     */
+    T get(LeafReader reader, Object id, long estimate, Loader<T> loader, Predicate<T> isCurrent) throws IOException {
+        IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            // segments that cannot tell when they are closed are never cached
+            return build(reader, estimate, loader, true);
+        }
+        Key key = new Key(cacheHelper.getKey(), id);
+        Entry entry = values.get(key);
+        if (entry == null) {
+            Entry created = new Entry();
+            entry = values.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                cacheHelper.addClosedListener(closed -> release(key));
+            }
+        }
+        return entry.get(reader, estimate, loader, isCurrent);
+    }
+
+    /**
+     * Returns the value of the segment for the given id if it is cached and the given predicate accepts
+     * it, or null, without ever building it.
+     */
+    T getIfCached(LeafReader reader, Object id, Predicate<T> isCurrent) {
+        IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            return null;
+        }
+        Entry entry = values.get(new Key(cacheHelper.getKey(), id));
+        T current = entry == null ? null : entry.value.get();
+        return current != null && isCurrent.test(current) ? current : null;
+    }
+
+    /**
+     * @return The memory held by the cached values
+     */
+    long ramBytesUsed() {
+        long bytes = 0;
+        for (Entry entry : values.values()) {
+            T value = entry.value.get();
+            if (value != null) {
+                bytes += value.ramBytesUsed();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of cached values
+     */
+    int count() {
+        return values.size();
+    }
+
+    private T build(LeafReader reader, long estimate, Loader<T> loader, boolean transientValue) throws IOException {
+        breaker.addEstimateBytesAndMaybeBreak(estimate, label);
+        T value;
+        try {
+            value = loader.load(reader);
+        } finally {
+            breaker.addWithoutBreaking(-estimate);
+        }
+        if (transientValue == false) {
+            breaker.addWithoutBreaking(value.ramBytesUsed());
+        }
+        return value;
+    }
+
+    private void release(Key key) {
+        Entry entry = values.remove(key);
+        if (entry != null) {
+            entry.release();
+        }
+    }
+
+    private final class Entry {
+        private final AtomicReference<T> value = new AtomicReference<>();
+        private volatile boolean released;
+
+        T get(LeafReader reader, long estimate, Loader<T> loader, Predicate<T> isCurrent) throws IOException {
+            T current = value.get();
+            if (current != null && isCurrent.test(current)) {
+                return current;
+            }
+            synchronized (this) {
+                current = value.get();
+                if (current != null && isCurrent.test(current)) {
+                    return current;
+                }
+                T built = build(reader, estimate, loader, false);
+                T replaced = value.getAndSet(built);
+                if (replaced != null) {
+                    breaker.addWithoutBreaking(-replaced.ramBytesUsed());
+                }
+                // the segment may have been closed while the value was built
+                if (released && value.compareAndSet(built, null)) {
+                    breaker.addWithoutBreaking(-built.ramBytesUsed());
+                }
+                return built;
+            }
+        }
+
+        /**
+         * Releases the value without waiting for a build in progress, which releases it on completion.
+         */
+        void release() {
+            released = true;
+            T current = value.getAndSet(null);
+            if (current != null) {
+                breaker.addWithoutBreaking(-current.ramBytesUsed());
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Object segment;
+        private final Object id;
+
+        Key(Object segment, Object id) {
+            this.segment = segment;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return segment.equals(key.segment) && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(segment, id);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.core.index.Index;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.query.tokencount.stats.TokenCountStats;
+import org.opensearch.query.tokencount.stats.TokenCountTelemetry;
+import org.opensearch.telemetry.tracing.Span;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * The node-level services the queries of this plugin count and match with. Every
+ * {@link TokenCountQueryPlugin} instance owns one, wires it once the node components are created and
+ * registers it for every index allocated on its node, so that nodes sharing a JVM keep their own cache,
+ * breaker and stats. Queries look the services up by the index they run on, see {@link #of(QueryShardContext)};
+ * an index of no node, like the throwaway indices mappings are validated against, gets unwired services
+ * that cache nothing, keep no per-segment structures beyond the query and never break.
+ */
+public final class TokenCountServices {
+
+    static final String BREAKER_LABEL = "<" + TokenCountQueryBuilder.NAME + "_analysis>";
+
+    // the services of every node of the JVM, by the settings of each index allocated on the node
+    private static final Map<IndexSettings, TokenCountServices> INDICES = new ConcurrentHashMap<>();
+
+    private volatile TokenCountCache cache;
+    private volatile Executor searchExecutor;
+    private volatile ThreadContext threadContext;
+    private volatile CircuitBreaker circuitBreaker = new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME);
+    private volatile TokenCountStats stats = new TokenCountStats();
+    private volatile TokenCountFieldResolver fieldResolver = new TokenCountFieldResolver();
+    private volatile TokenCountColumns columns = TokenCountColumns.uncached();
+    private volatile TokenCountBitmaps bitmaps;
+    private volatile TokenCountTelemetry telemetry = TokenCountTelemetry.NOOP;
+
+    /**
+     * Creates services that are not wired to a node.
+     */
+    public TokenCountServices() {}
+
+    /**
+     * Creates services that are not wired to a node and charge analyses to the given breaker.
+     */
+    public TokenCountServices(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Returns the services of the node the index of the given context is allocated on, or unwired
+     * services if no node registered the index.
+     */
+    static TokenCountServices of(QueryShardContext context) {
+        TokenCountServices services = INDICES.get(context.getIndexSettings());
+        return services != null ? services : new TokenCountServices();
+    }
+
+    /**
+     * Returns the exact token counts of a text field in one segment of the index of the given context,
+     * as doc values holding the counts of every document in ascending order. They are read from the
+     * {@link TokenCountColumn} of the segment, which the node builds on first use and caches exactly as
+     * it does for queries in exact mode; the build stops once the search on {@code searcher} is cancelled.
+     *
+     * @throws IllegalArgumentException If a value of the field exceeds the analysis limits of the index
+     */
+    public static SortedNumericDocValues columnCounts(QueryShardContext context, IndexSearcher searcher, LeafReader reader, String field)
+        throws IOException {
+        TokenCountColumns columns = of(context).columns();
+        TokenCountColumn column = columns.get(
+            reader,
+            field,
+            context.sourcePath(field),
+            context.fieldMapper(field).indexAnalyzer(),
+            context.getIndexSettings().getValue(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING),
+            context.getIndexSettings().getValue(TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING),
+            columns.cancellationCheck(searcher)
+        );
+        return column.docValues();
+    }
+
+    /**
+     * Registers an index allocated on the node. Called by {@link TokenCountQueryPlugin} as indices are created.
+     */
+    void register(IndexSettings indexSettings) {
+        INDICES.put(indexSettings, this);
+    }
+
+    /**
+     * Forgets an index of the node and everything resolved or built for it. Called by
+     * {@link TokenCountQueryPlugin} as indices are removed.
+     */
+    void remove(Index index, IndexSettings indexSettings) {
+        INDICES.remove(indexSettings, this);
+        TokenCountCache tokenCountCache = cache;
+        if (tokenCountCache != null) {
+            tokenCountCache.invalidate(index);
+        }
+        fieldResolver.invalidate(index);
+    }
+
+    /**
+     * Wires the node components. Called by {@link TokenCountQueryPlugin} once they are created.
+     */
+    void initialize(
+        TokenCountCache tokenCountCache,
+        Executor executor,
+        ThreadContext nodeThreadContext,
+        CircuitBreaker breaker,
+        TokenCountStats tokenCountStats,
+        TokenCountFieldResolver tokenCountFieldResolver,
+        TokenCountColumns tokenCountColumns,
+        TokenCountBitmaps tokenCountBitmaps
+    ) {
+        cache = tokenCountCache;
+        searchExecutor = executor;
+        threadContext = nodeThreadContext;
+        circuitBreaker = breaker;
+        stats = tokenCountStats;
+        fieldResolver = tokenCountFieldResolver;
+        columns = tokenCountColumns;
+        bitmaps = tokenCountBitmaps;
+    }
+
+    /**
+     * Wires the tracer and metrics of the node. Called by {@link TokenCountQueryPlugin} once the
+     * telemetry-aware node components are created.
+     */
+    void initializeTelemetry(TokenCountTelemetry tokenCountTelemetry) {
+        telemetry = tokenCountTelemetry;
+    }
+
+    /**
+     * @return The node cache of token counts, or null until the node components are created
+     */
+    public TokenCountCache cache() {
+        return cache;
+    }
+
+    Executor searchExecutor() {
+        return searchExecutor;
+    }
+
+    /**
+     * @return The memo of the search request served on the calling thread, or a memo of its own if the
+     * thread serves no request or the services are not wired to a node
+     */
+    AnalysisMemo memo() {
+        return AnalysisMemo.of(threadContext);
+    }
+
+    CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    TokenCountStats stats() {
+        return stats;
+    }
+
+    TokenCountFieldResolver fieldResolver() {
+        return fieldResolver;
+    }
+
+    TokenCountColumns columns() {
+        return columns;
+    }
+
+    /**
+     * @return The node cache of token count bitmaps, or null if the services are not wired to a node
+     */
+    TokenCountBitmaps bitmaps() {
+        return bitmaps;
+    }
+
+    TokenCountTelemetry telemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Counts the tokens of a text with an analyzer of the given index, reusing the counts of the search
+     * request served on the calling thread, if any, and of the node cache, charging the text to the
+     * breaker while it is analyzed and recording the analysis in the node stats. This is the single path
+     * every count of the plugin takes.
+     *
+     * @throws IllegalArgumentException If the text exceeds one of the limits
+     */
+    public int count(Index index, NamedAnalyzer analyzer, TokenCountAnalyzer.CountMode mode, String text, AnalysisLimits limits)
+        throws IOException {
+        return count(index, analyzer, analyzer.name(), mode, text, limits, AnalysisMemo.current(threadContext), null);
+    }
+
+    /**
+     * Counts the tokens of a text with an analyzer that belongs to no index, such as a built-in
+     * analyzer. Counts are not cached, the analysis is charged and recorded like any other.
+     */
+    public int count(Analyzer analyzer, String analyzerName, TokenCountAnalyzer.CountMode mode, String text, AnalysisLimits limits)
+        throws IOException {
+        return count(null, analyzer, analyzerName, mode, text, limits, null, null);
+    }
+
+    /**
+     * Counts the tokens of a text of the given index, reusing the counts of {@code memo}, unless it is
+     * null, and of the node cache. The work done is recorded in {@code profile} unless it is null.
+     */
+    int count(
+        Index index,
+        NamedAnalyzer analyzer,
+        TokenCountAnalyzer.CountMode mode,
+        String text,
+        AnalysisLimits limits,
+        AnalysisMemo memo,
+        AnalysisProfile profile
+    ) throws IOException {
+        return count(index, analyzer, analyzer.name(), mode, text, limits, memo, profile);
+    }
+
+    /**
+     * An analysis of a text that counts its tokens while doing more with them, such as building a phrase.
+     *
+     * @param <T> The result of the analysis, which holds the count
+     */
+    @FunctionalInterface
+    interface CountingAnalysis<T> {
+        /**
+         * @param tokensRead Receives the number of tokens the analysis read
+         */
+        T run(IntConsumer tokensRead) throws IOException;
+    }
+
+    /**
+     * Runs an analysis of the caller that counts the tokens of a text of the given index, and accounts
+     * for it like {@link #count} accounts for its own: the text is charged to the breaker while it is
+     * analyzed and the analysis is traced, recorded in the node stats and telemetry and, unless it is
+     * null, in {@code profile}. The count is then memoized in {@code memo}, unless it is null, and cached,
+     * so that later counts of the text with {@code analyzer} reuse it.
+     *
+     * @param analyzer The analyzer the count is memoized and cached under
+     * @param count Returns the token count held by the result of the analysis
+     * @throws IllegalArgumentException If the text is longer than the limits allow
+     */
+    <T> T analyze(
+        Index index,
+        NamedAnalyzer analyzer,
+        TokenCountAnalyzer.CountMode mode,
+        String text,
+        AnalysisLimits limits,
+        AnalysisMemo memo,
+        AnalysisProfile profile,
+        CountingAnalysis<T> analysis,
+        ToIntFunction<T> count
+    ) throws IOException {
+        limits.checkLength(text);
+        T result = run(analyzer.name(), text, profile, analysis, count);
+        int tokenCount = count.applyAsInt(result);
+        if (memo != null) {
+            memo.put(analyzer, mode, text, tokenCount, Integer.MAX_VALUE);
+        }
+        TokenCountCache tokenCountCache = cache;
+        if (tokenCountCache != null) {
+            tokenCountCache.put(index, analyzer, mode, text, tokenCount);
+        }
+        return result;
+    }
+
+    private int count(
+        Index index,
+        Analyzer analyzer,
+        String analyzerName,
+        TokenCountAnalyzer.CountMode mode,
+        String value,
+        AnalysisLimits limits,
+        AnalysisMemo memo,
+        AnalysisProfile profile
+    ) throws IOException {
+        limits.checkLength(value);
+        int stopAfter = limits.stopAfter();
+        // counts are cached and memoized by the analyzer instance of an index
+        NamedAnalyzer namedAnalyzer = index != null && analyzer instanceof NamedAnalyzer ? (NamedAnalyzer) analyzer : null;
+        // The clause may already have analyzed the text with the same analyzer
+        Integer memoized = memo == null || namedAnalyzer == null ? null : memo.get(namedAnalyzer, mode, value, stopAfter);
+        if (memoized != null) {
+            if (profile != null) {
+                profile.onCacheHit();
+            }
+            return memoized;
+        }
+
+        TokenCountStats tokenCountStats = stats;
+        TokenCountCache tokenCountCache = namedAnalyzer == null ? null : cache;
+        if (tokenCountCache != null) {
+            Integer cached = tokenCountCache.get(index, namedAnalyzer, mode, value);
+            if (cached != null) {
+                tokenCountStats.onCacheHit();
+                if (profile != null) {
+                    profile.onCacheHit();
+                }
+                if (memo != null) {
+                    memo.put(namedAnalyzer, mode, value, cached, Integer.MAX_VALUE);
+                }
+                return Math.min(cached, stopAfter);
+            }
+            tokenCountStats.onCacheMiss();
+        }
+
+        int maxTokens = limits.maxTokens();
+        int tokenCount = run(
+            analyzerName,
+            value,
+            profile,
+            tokensRead -> TokenCountAnalyzer.countTokens(analyzer, value, stopAfter, maxTokens, mode, tokensRead),
+            Integer::intValue
+        );
+        if (memo != null && namedAnalyzer != null) {
+            memo.put(namedAnalyzer, mode, value, tokenCount, stopAfter);
+        }
+        if (tokenCountCache != null && tokenCount < stopAfter) {
+            tokenCountCache.put(index, namedAnalyzer, mode, value, tokenCount);
+        }
+        return tokenCount;
+    }
+
+    /**
+     * Runs an analysis, charging the text to the breaker for its duration so that oversized texts fail
+     * fast, and records it in the span, telemetry and stats of the node and in {@code profile}.
+     */
+    private <T> T run(String analyzerName, String text, AnalysisProfile profile, CountingAnalysis<T> analysis, ToIntFunction<T> count)
+        throws IOException {
+        long bytes = 2L * text.length();
+        CircuitBreaker breaker = circuitBreaker;
+        breaker.addEstimateBytesAndMaybeBreak(bytes, BREAKER_LABEL);
+        T result;
+        int[] tokensRead = new int[1];
+        TokenCountTelemetry tokenCountTelemetry = telemetry;
+        Span span = tokenCountTelemetry.startSpan(TokenCountTelemetry.ANALYSIS_SPAN);
+        long startNanos = System.nanoTime();
+        try {
+            result = analysis.run(t -> tokensRead[0] = t);
+        } catch (IOException | RuntimeException e) {
+            span.setError(e);
+            span.endSpan();
+            throw e;
+        } finally {
+            breaker.addWithoutBreaking(-bytes);
+        }
+        long tookNanos = System.nanoTime() - startNanos;
+        int tokenCount = count.applyAsInt(result);
+        tokenCountTelemetry.onAnalysis(span, analyzerName, text.length(), tokenCount, tookNanos);
+        span.endSpan();
+        stats.onAnalysis(analyzerName, text.length(), tokenCount, tookNanos);
+        if (profile != null) {
+            profile.onAnalyzed(tokensRead[0], tokenCount, tookNanos);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.common.unit.TimeValue;
+import org.opensearch.index.IndexModule;
+import org.opensearch.index.SearchSlowLog;
+import org.opensearch.index.shard.SearchOperationListener;
+import org.opensearch.search.internal.SearchContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the analysis behind the token_count clauses of searches that cross the query thresholds of the
+ * search slow log, next to the time the query phase took, so that the cost of the analysis can be told
+ * apart from the cost of matching the counts.
+ * <p>
+ * Texts are analyzed while the request is parsed, before the query phase starts, so a search is
+ * compared against the thresholds by its query phase and analysis times together.
+ * <p>
+ * Entries are written to the {@value #LOGGER_NAME} logger, a child of the query slow log logger,
+ * and follow the same {@code index.search.slowlog.threshold.query.*} index settings. Nothing is
+ * logged while none of these thresholds is set.
+ */
+final class TokenCountSlowLog implements SearchOperationListener {
+
+    static final String LOGGER_NAME = "index.search.slowlog.query.token_count";
+
+    private static final Logger logger = LogManager.getLogger(LOGGER_NAME);
+
+    private volatile long warnThreshold;
+    private volatile long infoThreshold;
+    private volatile long debugThreshold;
+    private volatile long traceThreshold;
+
+    TokenCountSlowLog(IndexModule indexModule) {
+        warnThreshold = SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_WARN_SETTING.get(indexModule.getSettings()).nanos();
+        infoThreshold = SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_INFO_SETTING.get(indexModule.getSettings()).nanos();
+        debugThreshold = SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_DEBUG_SETTING.get(indexModule.getSettings()).nanos();
+        traceThreshold = SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_TRACE_SETTING.get(indexModule.getSettings()).nanos();
+        indexModule.addSettingsUpdateConsumer(
+            SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_WARN_SETTING,
+            value -> warnThreshold = value.nanos()
+        );
+        indexModule.addSettingsUpdateConsumer(
+            SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_INFO_SETTING,
+            value -> infoThreshold = value.nanos()
+        );
+        indexModule.addSettingsUpdateConsumer(
+            SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_DEBUG_SETTING,
+            value -> debugThreshold = value.nanos()
+        );
+        indexModule.addSettingsUpdateConsumer(
+            SearchSlowLog.INDEX_SEARCH_SLOWLOG_THRESHOLD_QUERY_TRACE_SETTING,
+            value -> traceThreshold = value.nanos()
+        );
+    }
+
+    @Override
+    public void onQueryPhase(SearchContext searchContext, long tookInNanos) {
+        if (warnThreshold < 0 && infoThreshold < 0 && debugThreshold < 0 && traceThreshold < 0) {
+            return;
+        }
+        List<AnalysisProfile> profiles = AnalysisProfile.of(searchContext.query());
+        if (profiles.isEmpty()) {
+            return;
+        }
+        Level level = level(tookInNanos + analysisNanos(profiles));
+        if (level != null && logger.isEnabled(level)) {
+            logger.log(level, "{}", message(searchContext.indexShard().shardId().toString(), tookInNanos, profiles));
+        }
+    }
+
+    private static long analysisNanos(List<AnalysisProfile> profiles) {
+        long nanos = 0;
+        for (AnalysisProfile profile : profiles) {
+            nanos += profile.resolveNanos() + profile.analysisNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * Returns the most severe level whose threshold the given time reaches, or null if none is reached.
+     * Negative thresholds are disabled.
+     */
+    Level level(long tookInNanos) {
+        if (warnThreshold >= 0 && tookInNanos > warnThreshold) {
+            return Level.WARN;
+        }
+        if (infoThreshold >= 0 && tookInNanos > infoThreshold) {
+            return Level.INFO;
+        }
+        if (debugThreshold >= 0 && tookInNanos > debugThreshold) {
+            return Level.DEBUG;
+        }
+        if (traceThreshold >= 0 && tookInNanos > traceThreshold) {
+            return Level.TRACE;
+        }
+        return null;
+    }
+
+    static String message(String shard, long tookInNanos, List<AnalysisProfile> profiles) {
+        StringBuilder clauses = new StringBuilder();
+        for (AnalysisProfile profile : profiles) {
+            if (clauses.length() > 0) {
+                clauses.append(", ");
+            }
+            clauses.append('{').append(profile).append('}');
+        }
+        return shard
+            + " took["
+            + TimeValue.timeValueNanos(tookInNanos)
+            + "], took_millis["
+            + TimeUnit.NANOSECONDS.toMillis(tookInNanos)
+            + "], token_count_analysis_millis["
+            + TimeUnit.NANOSECONDS.toMillis(analysisNanos(profiles))
+            + "], token_count_clauses["
+            + clauses
+            + "]";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestToXContentListener;
+import org.opensearch.transport.client.node.NodeClient;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.opensearch.rest.RestRequest.Method.GET;
+import static org.opensearch.rest.RestRequest.Method.POST;
+
+public class RestTokenCountAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "token_count_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(GET, "/_token_count"),
+            new Route(POST, "/_token_count"),
+            new Route(GET, "/{index}/_token_count"),
+            new Route(POST, "/{index}/_token_count")
+        );
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        TokenCountRequest tokenCountRequest = new TokenCountRequest(request.param("index"));
+        try (XContentParser parser = request.contentOrSourceParamParser()) {
+            tokenCountRequest.parse(parser);
+        }
+        return channel -> client.execute(TokenCountAction.INSTANCE, tokenCountRequest, new RestToXContentListener<>(channel));
+    }
+}
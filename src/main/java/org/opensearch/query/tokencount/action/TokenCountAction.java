@@ -0,0 +1,23 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.opensearch.action.ActionType;
+
+/**
+ * Counts the tokens of a batch of texts without returning the tokens themselves.
+ */
+public class TokenCountAction extends ActionType<TokenCountResponse> {
+
+    public static final TokenCountAction INSTANCE = new TokenCountAction();
+    public static final String NAME = "indices:admin/token_count";
+
+    private TokenCountAction() {
+        super(NAME, TokenCountResponse::new);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.action.support.single.shard.SingleShardRequest;
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static org.opensearch.action.ValidateActions.addValidationError;
+
+/**
+ * A batch of texts to count, either with a named analyzer or the way a token_count query on a
+ * field of the index would count them.
+ */
+public class TokenCountRequest extends SingleShardRequest<TokenCountRequest> {
+
+    static final ParseField TEXTS_FIELD = new ParseField("texts");
+    static final ParseField FIELD_FIELD = new ParseField("field");
+    static final ParseField ANALYZER_FIELD = new ParseField("analyzer");
+
+    private List<String> texts = Collections.emptyList();
+    private String field;
+    private String analyzer;
+
+    public TokenCountRequest() {}
+
+    /**
+     * @param index The index whose analyzers and mappings are used, or null for built-in analyzers
+     */
+    public TokenCountRequest(String index) {
+        super(index);
+    }
+
+    public TokenCountRequest(StreamInput in) throws IOException {
+        super(in);
+        texts = in.readStringList();
+        field = in.readOptionalString();
+        analyzer = in.readOptionalString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeStringCollection(texts);
+        out.writeOptionalString(field);
+        out.writeOptionalString(analyzer);
+    }
+
+    public List<String> texts() {
+        return texts;
+    }
+
+    public TokenCountRequest texts(List<String> texts) {
+        this.texts = Objects.requireNonNull(texts, "texts cannot be null");
+        return this;
+    }
+
+    /**
+     * @return The field whose token_count query counting is reproduced, or null
+     */
+    public String field() {
+        return field;
+    }
+
+    public TokenCountRequest field(String field) {
+        this.field = field;
+        return this;
+    }
+
+    /**
+     * @return The analyzer name, or null to use the field's analyzer
+     */
+    public String analyzer() {
+        return analyzer;
+    }
+
+    public TokenCountRequest analyzer(String analyzer) {
+        this.analyzer = analyzer;
+        return this;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = null;
+        if (texts.isEmpty()) {
+            validationException = addValidationError("texts is missing", validationException);
+        }
+        for (String text : texts) {
+            if (text == null) {
+                validationException = addValidationError("texts cannot contain null values", validationException);
+                break;
+            }
+        }
+        if (field != null && index() == null) {
+            validationException = addValidationError("index is required with field", validationException);
+        }
+        if (field == null && analyzer == null && index() == null) {
+            validationException = addValidationError("analyzer is required without index", validationException);
+        }
+        return validationException;
+    }
+
+    /**
+     * Parses the body of a {@code _token_count} request into this request.
+     */
+    public TokenCountRequest parse(XContentParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException("Malformed content, must start with an object");
+        }
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_ARRAY && TEXTS_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                List<String> values = new ArrayList<>();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    if (parser.currentToken().isValue() == false) {
+                        throw new IllegalArgumentException("[" + TEXTS_FIELD.getPreferredName() + "] must be an array of strings");
+                    }
+                    values.add(parser.text());
+                }
+                texts(values);
+            } else if (token.isValue() && TEXTS_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                texts(Collections.singletonList(parser.text()));
+            } else if (token.isValue() && FIELD_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                field(parser.text());
+            } else if (token.isValue() && ANALYZER_FIELD.match(currentFieldName, parser.getDeprecationHandler())) {
+                analyzer(parser.text());
+            } else {
+                throw new IllegalArgumentException(
+                    "Unknown parameter [" + currentFieldName + "] in request body or parameter is of the wrong type"
+                );
+            }
+        }
+        return this;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.opensearch.core.action.ActionResponse;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ToXContentObject;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The counts of a {@link TokenCountRequest}, in the order of its texts.
+ */
+public class TokenCountResponse extends ActionResponse implements ToXContentObject {
+
+    private final String analyzer;
+    private final int[] counts;
+
+    public TokenCountResponse(String analyzer, int[] counts) {
+        this.analyzer = analyzer;
+        this.counts = counts;
+    }
+
+    public TokenCountResponse(StreamInput in) throws IOException {
+        super(in);
+        analyzer = in.readString();
+        counts = in.readVIntArray();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(analyzer);
+        out.writeVIntArray(counts);
+    }
+
+    /**
+     * @return The name of the analyzer the texts were counted with
+     */
+    public String analyzer() {
+        return analyzer;
+    }
+
+    public int[] counts() {
+        return counts;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("analyzer", analyzer);
+        builder.startArray("counts");
+        for (int count : counts) {
+            builder.value(count);
+        }
+        builder.endArray();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TokenCountResponse other = (TokenCountResponse) o;
+        return analyzer.equals(other.analyzer) && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * analyzer.hashCode() + Arrays.hashCode(counts);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.single.shard.TransportSingleShardAction;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.routing.ShardsIterator;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.common.settings.Setting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.core.index.shard.ShardId;
+import org.opensearch.index.IndexService;
+import org.opensearch.index.analysis.AnalysisRegistry;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.MapperService;
+import org.opensearch.indices.IndicesService;
+import org.opensearch.query.tokencount.AnalysisLimits;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.query.tokencount.TokenCountBatchAnalyzer;
+import org.opensearch.query.tokencount.TokenCountFieldResolver;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+import org.opensearch.query.tokencount.TokenCountServices;
+import org.opensearch.query.tokencount.stats.TokenCountStats;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Counts a batch of texts on a shard of the requested index, or on the coordinating node with a
+ * built-in analyzer when no index is given. Texts are counted on the {@code token_count} thread
+ * pool without materializing their tokens, and large batches are spread over that pool.
+ */
+public class TransportTokenCountAction extends TransportSingleShardAction<TokenCountRequest, TokenCountResponse> {
+
+    /**
+     * Maximum number of texts in a single {@code _token_count} request. Every count of a request is
+     * held in memory until the response is sent, so larger batches must be split by the client.
+     */
+    public static final Setting<Integer> MAX_TEXTS_SETTING = Setting.intSetting(
+        "plugins.token_count.batch.max_texts",
+        10_000,
+        1,
+        Setting.Property.NodeScope
+    );
+
+    private static final String TEXT_SUBJECT = "a text in [" + TokenCountAction.NAME + "] request";
+
+    private final IndicesService indicesService;
+    private final AnalysisRegistry analysisRegistry;
+    private final TokenCountServices services;
+    private final TokenCountStats stats;
+    private final TokenCountFieldResolver fieldResolver;
+    private final int maxTexts;
+
+    @Inject
+    public TransportTokenCountAction(
+        Settings settings,
+        ThreadPool threadPool,
+        ClusterService clusterService,
+        TransportService transportService,
+        ActionFilters actionFilters,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        IndicesService indicesService,
+        AnalysisRegistry analysisRegistry,
+        TokenCountServices services,
+        TokenCountStats stats,
+        TokenCountFieldResolver fieldResolver
+    ) {
+        super(
+            TokenCountAction.NAME,
+            threadPool,
+            clusterService,
+            transportService,
+            actionFilters,
+            indexNameExpressionResolver,
+            TokenCountRequest::new,
+            TokenCountQueryPlugin.THREAD_POOL_NAME
+        );
+        this.indicesService = indicesService;
+        this.analysisRegistry = analysisRegistry;
+        this.services = services;
+        this.stats = stats;
+        this.fieldResolver = fieldResolver;
+        this.maxTexts = MAX_TEXTS_SETTING.get(settings);
+    }
+
+    @Override
+    protected Writeable.Reader<TokenCountResponse> getResponseReader() {
+        return TokenCountResponse::new;
+    }
+
+    @Override
+    protected boolean resolveIndex(TokenCountRequest request) {
+        return request.index() != null;
+    }
+
+    @Override
+    protected ShardsIterator shards(ClusterState state, InternalRequest request) {
+        if (request.concreteIndex() == null) {
+            // built-in analyzers are available on every node, count locally
+            return null;
+        }
+        return state.routingTable().index(request.concreteIndex()).randomAllActiveShardsIt();
+    }
+
+    @Override
+    protected TokenCountResponse shardOperation(TokenCountRequest request, ShardId shardId) throws IOException {
+        if (request.texts().size() > maxTexts) {
+            throw TokenCountAnalyzer.tooManyTexts(
+                "[" + TokenCountAction.NAME + "] request",
+                request.texts().size(),
+                maxTexts,
+                MAX_TEXTS_SETTING
+            );
+        }
+        Executor executor = threadPool.executor(TokenCountQueryPlugin.THREAD_POOL_NAME);
+        if (shardId == null) {
+            Analyzer analyzer = analysisRegistry.getAnalyzer(request.analyzer());
+            if (analyzer == null) {
+                throw new IllegalArgumentException("failed to find global analyzer [" + request.analyzer() + "]");
+            }
+            AnalysisLimits limits = AnalysisLimits.defaults(TEXT_SUBJECT);
+            TokenCountBatchAnalyzer.Counter counter = text -> services.count(
+                analyzer,
+                request.analyzer(),
+                TokenCountAnalyzer.CountMode.POSITIONS,
+                text,
+                limits
+            );
+            return new TokenCountResponse(request.analyzer(), TokenCountBatchAnalyzer.countAll(request.texts(), counter, executor));
+        }
+
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        MapperService mapperService = indexService.mapperService();
+        NamedAnalyzer analyzer;
+        TokenCountAnalyzer.CountMode mode = TokenCountAnalyzer.CountMode.POSITIONS;
+        if (request.field() != null) {
+            TokenCountFieldResolver.ResolvedField resolved = fieldResolver.resolve(mapperService, request.field());
+            mode = resolved.mode();
+            analyzer = resolved.analyzer();
+            if (request.analyzer() == null && resolved.isDefaultAnalyzer()) {
+                stats.onDefaultAnalyzerFallback();
+            }
+        } else {
+            analyzer = mapperService.getIndexAnalyzers().getDefaultSearchAnalyzer();
+        }
+        if (request.analyzer() != null) {
+            analyzer = mapperService.getIndexAnalyzers().get(request.analyzer());
+            if (analyzer == null) {
+                throw new IllegalArgumentException(
+                    "analyzer [" + request.analyzer() + "] not found for index [" + shardId.getIndexName() + "]"
+                );
+            }
+        }
+        AnalysisLimits limits = AnalysisLimits.of(TEXT_SUBJECT, indexService.getIndexSettings());
+        NamedAnalyzer namedAnalyzer = analyzer;
+        TokenCountAnalyzer.CountMode countMode = mode;
+        TokenCountBatchAnalyzer.Counter counter = text -> services.count(shardId.getIndex(), namedAnalyzer, countMode, text, limits);
+        return new TokenCountResponse(namedAnalyzer.name(), TokenCountBatchAnalyzer.countAll(request.texts(), counter, executor));
+    }
+}
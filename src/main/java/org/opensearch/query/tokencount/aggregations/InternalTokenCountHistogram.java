@@ -0,0 +1,185 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.apache.lucene.util.InPlaceMergeSorter;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.search.aggregations.InternalAggregation;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The buckets of a {@code token_count_histogram} aggregation, held in primitive arrays sorted by key.
+ */
+public class InternalTokenCountHistogram extends InternalAggregation {
+
+    private final int interval;
+    private final long[] keys;
+    private final long[] docCounts;
+
+    InternalTokenCountHistogram(String name, int interval, long[] keys, long[] docCounts, Map<String, Object> metadata) {
+        super(name, metadata);
+        this.interval = interval;
+        this.keys = keys;
+        this.docCounts = docCounts;
+    }
+
+    public InternalTokenCountHistogram(StreamInput in) throws IOException {
+        super(in);
+        interval = in.readVInt();
+        keys = new long[in.readVInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = in.readZLong();
+        }
+        docCounts = in.readVLongArray();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeVInt(interval);
+        // plain integer fields can hold negative values, which variable-length longs cannot encode
+        out.writeVInt(keys.length);
+        for (long key : keys) {
+            out.writeZLong(key);
+        }
+        out.writeVLongArray(docCounts);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TokenCountHistogramAggregationBuilder.NAME;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return The smallest count of every bucket, in ascending order
+     */
+    public long[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * @return The number of documents of every bucket, in the order of the keys
+     */
+    public long[] getDocCounts() {
+        return docCounts;
+    }
+
+    @Override
+    public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        long[] mergedKeys = new long[0];
+        long[] mergedCounts = new long[0];
+        for (InternalAggregation aggregation : aggregations) {
+            InternalTokenCountHistogram histogram = (InternalTokenCountHistogram) aggregation;
+            long[][] merged = merge(mergedKeys, mergedCounts, histogram.keys, histogram.docCounts);
+            mergedKeys = merged[0];
+            mergedCounts = merged[1];
+        }
+        if (reduceContext.isFinalReduce()) {
+            reduceContext.consumeBucketsAndMaybeBreak(mergedKeys.length);
+        }
+        return new InternalTokenCountHistogram(name, interval, mergedKeys, mergedCounts, getMetadata());
+    }
+
+    /**
+     * Merges two histograms sorted by key, summing the counts of equal keys.
+     */
+    static long[][] merge(long[] keys1, long[] counts1, long[] keys2, long[] counts2) {
+        long[] keys = new long[keys1.length + keys2.length];
+        long[] counts = new long[keys.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < keys1.length || j < keys2.length) {
+            if (j == keys2.length || (i < keys1.length && keys1[i] < keys2[j])) {
+                keys[size] = keys1[i];
+                counts[size++] = counts1[i++];
+            } else if (i == keys1.length || keys2[j] < keys1[i]) {
+                keys[size] = keys2[j];
+                counts[size++] = counts2[j++];
+            } else {
+                keys[size] = keys1[i];
+                counts[size++] = counts1[i++] + counts2[j++];
+            }
+        }
+        return new long[][] { Arrays.copyOf(keys, size), Arrays.copyOf(counts, size) };
+    }
+
+    /**
+     * Sorts the buckets by key.
+     */
+    static void sortByKey(long[] keys, long[] counts) {
+        new InPlaceMergeSorter() {
+            @Override
+            protected int compare(int i, int j) {
+                return Long.compare(keys[i], keys[j]);
+            }
+
+            @Override
+            protected void swap(int i, int j) {
+                long key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+                long count = counts[i];
+                counts[i] = counts[j];
+                counts[j] = count;
+            }
+        }.sort(0, keys.length);
+    }
+
+    @Override
+    protected boolean mustReduceOnSingleInternalAgg() {
+        return false;
+    }
+
+    @Override
+    public Object getProperty(List<String> path) {
+        if (path.isEmpty()) {
+            return this;
+        }
+        throw new IllegalArgumentException("path not supported for [" + getName() + "]: " + path);
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        builder.startArray("buckets");
+        for (int i = 0; i < keys.length; i++) {
+            builder.startObject();
+            builder.field("key", keys[i]);
+            builder.field("doc_count", docCounts[i]);
+            builder.endObject();
+        }
+        return builder.endArray();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass() || super.equals(obj) == false) {
+            return false;
+        }
+        InternalTokenCountHistogram other = (InternalTokenCountHistogram) obj;
+        return interval == other.interval && Arrays.equals(keys, other.keys) && Arrays.equals(docCounts, other.docCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), interval, Arrays.hashCode(keys), Arrays.hashCode(docCounts));
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.opensearch.core.ParseField;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ObjectParser;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.mapper.NumberFieldMapper;
+import org.opensearch.index.mapper.TextSearchInfo;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.aggregations.AbstractAggregationBuilder;
+import org.opensearch.search.aggregations.AggregationBuilder;
+import org.opensearch.search.aggregations.AggregationInitializationException;
+import org.opensearch.search.aggregations.AggregatorFactories;
+import org.opensearch.search.aggregations.AggregatorFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds a histogram of the token counts of a field, without scripts.
+ * <p>
+ * Integer fields, such as token_count fields, are read from their doc values. Text fields are counted
+ * exactly from {@code _source} with their index analyzer, once per segment, like queries in exact mode
+ * do. In approximate mode text fields are read from their norms instead, the field length Lucene
+ * computes per segment at index time: lengths up to 39 are exact and longer lengths fall into the
+ * bucket of their norm, keyed by its smallest length.
+ */
+public class TokenCountHistogramAggregationBuilder extends AbstractAggregationBuilder<TokenCountHistogramAggregationBuilder> {
+
+    public static final String NAME = "token_count_histogram";
+
+    static final ParseField FIELD_FIELD = new ParseField("field");
+    static final ParseField INTERVAL_FIELD = new ParseField("interval");
+    static final ParseField APPROXIMATE_FIELD = new ParseField("approximate");
+
+    private static final ObjectParser<TokenCountHistogramAggregationBuilder, String> PARSER = ObjectParser.fromBuilder(
+        NAME,
+        TokenCountHistogramAggregationBuilder::new
+    );
+    static {
+        PARSER.declareString(TokenCountHistogramAggregationBuilder::field, FIELD_FIELD);
+        PARSER.declareInt(TokenCountHistogramAggregationBuilder::interval, INTERVAL_FIELD);
+        PARSER.declareBoolean(TokenCountHistogramAggregationBuilder::approximate, APPROXIMATE_FIELD);
+    }
+
+    private String field;
+    private int interval = 1;
+    private boolean approximate = false;
+
+    public TokenCountHistogramAggregationBuilder(String name) {
+        super(name);
+    }
+
+    protected TokenCountHistogramAggregationBuilder(
+        TokenCountHistogramAggregationBuilder clone,
+        AggregatorFactories.Builder factoriesBuilder,
+        Map<String, Object> metadata
+    ) {
+        super(clone, factoriesBuilder, metadata);
+        this.field = clone.field;
+        this.interval = clone.interval;
+        this.approximate = clone.approximate;
+    }
+
+    public TokenCountHistogramAggregationBuilder(StreamInput in) throws IOException {
+        super(in);
+        field = in.readString();
+        interval = in.readVInt();
+        approximate = in.readBoolean();
+    }
+
+    public static TokenCountHistogramAggregationBuilder parse(XContentParser parser, String aggregationName) throws IOException {
+        TokenCountHistogramAggregationBuilder builder = PARSER.parse(parser, aggregationName);
+        if (builder.field == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires the [" + FIELD_FIELD.getPreferredName() + "] parameter");
+        }
+        return builder;
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(field);
+        out.writeVInt(interval);
+        out.writeBoolean(approximate);
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public TokenCountHistogramAggregationBuilder field(String field) {
+        if (field == null || field.isEmpty()) {
+            throw new IllegalArgumentException("[" + FIELD_FIELD.getPreferredName() + "] must not be null or empty: [" + name + "]");
+        }
+        this.field = field;
+        return this;
+    }
+
+    /**
+     * @return The width of the buckets, in tokens
+     */
+    public int interval() {
+        return interval;
+    }
+
+    public TokenCountHistogramAggregationBuilder interval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException(
+                "["
+                    + INTERVAL_FIELD.getPreferredName()
+                    + "] must be 1 or greater for aggregation ["
+                    + name
+                    + "]"
+            );
+        }
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * @return Whether text fields are read from their norms rather than counted exactly
+     */
+    public boolean approximate() {
+        return approximate;
+    }
+
+    /**
+     * Sets whether a text field is read from its norms, which is cheaper than counting its values but
+     * groups lengths above 39 by norm bucket. Has no effect on integer fields, which hold exact counts.
+     */
+    public TokenCountHistogramAggregationBuilder approximate(boolean approximate) {
+        this.approximate = approximate;
+        return this;
+    }
+
+    @Override
+    public TokenCountHistogramAggregationBuilder subAggregations(AggregatorFactories.Builder subFactories) {
+        throw new AggregationInitializationException(
+            "Aggregator ["
+                + name
+                + "] of type ["
+                + getType()
+                + "] cannot accept sub-aggregations"
+        );
+    }
+
+    @Override
+    public TokenCountHistogramAggregationBuilder subAggregation(AggregationBuilder aggregation) {
+        throw new AggregationInitializationException(
+            "Aggregator ["
+                + name
+                + "] of type ["
+                + getType()
+                + "] cannot accept sub-aggregations"
+        );
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(AggregatorFactories.Builder factoriesBuilder, Map<String, Object> metadata) {
+        return new TokenCountHistogramAggregationBuilder(this, factoriesBuilder, metadata);
+    }
+
+    @Override
+    public BucketCardinality bucketCardinality() {
+        return BucketCardinality.MANY;
+    }
+
+    @Override
+    protected AggregatorFactory doBuild(
+        QueryShardContext queryShardContext,
+        AggregatorFactory parent,
+        AggregatorFactories.Builder subFactoriesBuilder
+    ) throws IOException {
+        return new TokenCountHistogramAggregatorFactory(
+            name,
+            resolveSource(queryShardContext, queryShardContext.fieldMapper(field)),
+            field,
+            interval,
+            queryShardContext,
+            parent,
+            subFactoriesBuilder,
+            metadata
+        );
+    }
+
+    /**
+     * Returns where the counts of the field are read from, or null if the field is not mapped. Exact
+     * counts of a text field are computed from {@code _source}, so it must be enabled and hold every
+     * field: a value left out by its includes or excludes would silently count zero.
+     */
+    private TokenCountHistogramAggregator.CountSource resolveSource(QueryShardContext context, MappedFieldType fieldType) {
+        if (fieldType == null) {
+            return null;
+        }
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            if (((NumberFieldMapper.NumberFieldType) fieldType).numberType() == NumberFieldMapper.NumberType.INTEGER
+                && fieldType.hasDocValues()) {
+                return TokenCountHistogramAggregator.CountSource.DOC_VALUES;
+            }
+        } else {
+            TextSearchInfo textSearchInfo = fieldType.getTextSearchInfo();
+            if (textSearchInfo != TextSearchInfo.NONE && textSearchInfo.isTokenized() && fieldType.indexAnalyzer() != null) {
+                return approximate ? requireNorms(textSearchInfo) : requireSource(context);
+            }
+        }
+        throw new IllegalArgumentException(
+            "["
+                + NAME
+                + "] requires a token_count or integer field with doc values, or a text field, but ["
+                + field
+                + "] is of type ["
+                + fieldType.typeName()
+                + "]"
+        );
+    }
+
+    private TokenCountHistogramAggregator.CountSource requireNorms(TextSearchInfo textSearchInfo) {
+        if (textSearchInfo.hasNorms() == false) {
+            throw new IllegalArgumentException(
+                "[" + NAME + "] in approximate mode requires norms, but they are disabled on field [" + field + "]"
+            );
+        }
+        return TokenCountHistogramAggregator.CountSource.NORMS;
+    }
+
+    private TokenCountHistogramAggregator.CountSource requireSource(QueryShardContext context) {
+        if (context.getMapperService().documentMapper().sourceMapper().enabled() == false) {
+            throw new IllegalArgumentException(
+                "["
+                    + NAME
+                    + "] on text field ["
+                    + field
+                    + "] requires _source, but it is disabled on index ["
+                    + context.index().getName()
+                    + "]; set [approximate] to read the norms instead"
+            );
+        }
+        if (context.getMapperService().documentMapper().sourceMapper().isComplete() == false) {
+            throw new IllegalArgumentException(
+                "["
+                    + NAME
+                    + "] on text field ["
+                    + field
+                    + "] requires the complete _source, but _source includes or excludes fields on index ["
+                    + context.index().getName()
+                    + "]; set [approximate] to read the norms instead"
+            );
+        }
+        return TokenCountHistogramAggregator.CountSource.COLUMN;
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(FIELD_FIELD.getPreferredName(), field);
+        builder.field(INTERVAL_FIELD.getPreferredName(), interval);
+        if (approximate) {
+            builder.field(APPROXIMATE_FIELD.getPreferredName(), true);
+        }
+        return builder.endObject();
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), field, interval, approximate);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass() || super.equals(obj) == false) {
+            return false;
+        }
+        TokenCountHistogramAggregationBuilder other = (TokenCountHistogramAggregationBuilder) obj;
+        return Objects.equals(field, other.field) && interval == other.interval && approximate == other.approximate;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.SmallFloat;
+import org.opensearch.common.lease.Releasables;
+import org.opensearch.common.util.LongArray;
+import org.opensearch.query.tokencount.TokenCountServices;
+import org.opensearch.search.aggregations.Aggregator;
+import org.opensearch.search.aggregations.CardinalityUpperBound;
+import org.opensearch.search.aggregations.InternalAggregation;
+import org.opensearch.search.aggregations.LeafBucketCollector;
+import org.opensearch.search.aggregations.LeafBucketCollectorBase;
+import org.opensearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
+import org.opensearch.search.aggregations.metrics.MetricsAggregator;
+import org.opensearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Collects the token counts of a field into buckets keyed by primitive longs, so no value is boxed
+ * while collecting.
+ */
+final class TokenCountHistogramAggregator extends MetricsAggregator {
+
+    /**
+     * Where the counts of a field are read from.
+     */
+    enum CountSource {
+        /**
+         * The values of an integer field, such as a token_count field.
+         */
+        DOC_VALUES,
+        /**
+         * The exact counts of a text field, computed from {@code _source} with its index analyzer.
+         */
+        COLUMN,
+        /**
+         * The field length in the norms of a text field, which is approximate above 39 tokens.
+         */
+        NORMS
+    }
+
+    // the smallest field length of every norm byte, read as unsigned
+    private static final int[] NORM_LENGTHS = new int[256];
+    static {
+        for (int i = 0; i < NORM_LENGTHS.length; i++) {
+            NORM_LENGTHS[i] = SmallFloat.byte4ToInt((byte) i);
+        }
+    }
+
+    private final CountSource source;
+    private final String field;
+    private final int interval;
+    private final LongKeyedBucketOrds bucketOrds;
+    private LongArray docCounts;
+
+    TokenCountHistogramAggregator(
+        String name,
+        CountSource source,
+        String field,
+        int interval,
+        SearchContext context,
+        Aggregator parent,
+        CardinalityUpperBound cardinality,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, context, parent, metadata);
+        this.source = source;
+        this.field = field;
+        this.interval = interval;
+        this.bucketOrds = LongKeyedBucketOrds.build(context.bigArrays(), cardinality);
+        this.docCounts = context.bigArrays().newLongArray(1, true);
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        if (source == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        if (source == CountSource.NORMS) {
+            NumericDocValues norms = ctx.reader().getNormValues(field);
+            if (norms == null) {
+                return LeafBucketCollector.NO_OP_COLLECTOR;
+            }
+            return new LeafBucketCollectorBase(sub, null) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    if (norms.advanceExact(doc)) {
+                        increment(owningBucketOrd, key(NORM_LENGTHS[((byte) norms.longValue()) & 0xFF]));
+                    }
+                }
+            };
+        }
+        SortedNumericDocValues values = source == CountSource.COLUMN
+            ? TokenCountServices.columnCounts(context.getQueryShardContext(), context.searcher(), ctx.reader(), field)
+            : DocValues.getSortedNumeric(ctx.reader(), field);
+        NumericDocValues singleton = DocValues.unwrapSingleton(values);
+        if (singleton != null) {
+            return new LeafBucketCollectorBase(sub, null) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    if (singleton.advanceExact(doc)) {
+                        increment(owningBucketOrd, key(singleton.longValue()));
+                    }
+                }
+            };
+        }
+        return new LeafBucketCollectorBase(sub, null) {
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (values.advanceExact(doc)) {
+                    // values are sorted, so a document is counted once per bucket by skipping repeated keys
+                    long previousKey = Long.MIN_VALUE;
+                    for (int i = 0, count = values.docValueCount(); i < count; i++) {
+                        long key = key(values.nextValue());
+                        if (i == 0 || key != previousKey) {
+                            increment(owningBucketOrd, key);
+                        }
+                        previousKey = key;
+                    }
+                }
+            }
+        };
+    }
+
+    private long key(long count) {
+        return Math.floorDiv(count, interval) * interval;
+    }
+
+    private void increment(long owningBucketOrd, long key) {
+        long ord = bucketOrds.add(owningBucketOrd, key);
+        if (ord < 0) {
+            ord = -1 - ord;
+        } else {
+            docCounts = context.bigArrays().grow(docCounts, ord + 1);
+        }
+        docCounts.increment(ord, 1);
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long owningBucketOrd) {
+        int size = Math.toIntExact(bucketOrds.bucketsInOrd(owningBucketOrd));
+        long[] keys = new long[size];
+        long[] counts = new long[size];
+        LongKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(owningBucketOrd);
+        for (int i = 0; ordsEnum.next(); i++) {
+            keys[i] = ordsEnum.value();
+            counts[i] = docCounts.get(ordsEnum.ord());
+        }
+        InternalTokenCountHistogram.sortByKey(keys, counts);
+        return new InternalTokenCountHistogram(name, interval, keys, counts, metadata());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalTokenCountHistogram(name, interval, new long[0], new long[0], metadata());
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(bucketOrds, docCounts);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.search.aggregations.Aggregator;
+import org.opensearch.search.aggregations.AggregatorFactories;
+import org.opensearch.search.aggregations.AggregatorFactory;
+import org.opensearch.search.aggregations.CardinalityUpperBound;
+import org.opensearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Map;
+
+class TokenCountHistogramAggregatorFactory extends AggregatorFactory {
+
+    private final TokenCountHistogramAggregator.CountSource source;
+    private final String field;
+    private final int interval;
+
+    TokenCountHistogramAggregatorFactory(
+        String name,
+        TokenCountHistogramAggregator.CountSource source,
+        String field,
+        int interval,
+        QueryShardContext queryShardContext,
+        AggregatorFactory parent,
+        AggregatorFactories.Builder subFactoriesBuilder,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, queryShardContext, parent, subFactoriesBuilder, metadata);
+        this.source = source;
+        this.field = field;
+        this.interval = interval;
+    }
+
+    @Override
+    protected Aggregator createInternal(
+        SearchContext searchContext,
+        Aggregator parent,
+        CardinalityUpperBound cardinality,
+        Map<String, Object> metadata
+    ) throws IOException {
+        return new TokenCountHistogramAggregator(name, source, field, interval, searchContext, parent, cardinality, metadata);
+    }
+
+    @Override
+    protected boolean supportsConcurrentSegmentSearch() {
+        return true;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.ingest;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.index.analysis.AnalysisRegistry;
+import org.opensearch.ingest.AbstractProcessor;
+import org.opensearch.ingest.ConfigurationUtils;
+import org.opensearch.ingest.IngestDocument;
+import org.opensearch.ingest.IngestDocumentWrapper;
+import org.opensearch.ingest.Processor;
+import org.opensearch.query.tokencount.AnalysisLimits;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.query.tokencount.TokenCountBatchAnalyzer;
+import org.opensearch.query.tokencount.TokenCountServices;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes the token counts of a text field into one or more numeric fields, one per analyzer, so that
+ * counts can be backfilled with {@code _reindex} or {@code _update_by_query} instead of adding a
+ * token_count sub-field and reindexing.
+ * <p>
+ * Each distinct analyzer analyzes a text once, however many target fields it feeds. Batched bulk
+ * requests analyze every distinct text of the batch once per analyzer, spread over the
+ * {@code token_count} thread pool.
+ * <p>
+ * Pipelines run outside of any index, so texts are bounded by limits of the processor, which default
+ * to those of the token_count query, and are charged to the token_count circuit breaker while they
+ * are analyzed.
+ */
+public final class TokenCountProcessor extends AbstractProcessor {
+
+    public static final String TYPE = "token_count";
+
+    private final String field;
+    private final Map<String, String> analyzerByTarget;
+    private final Map<String, Analyzer> analyzers;
+    private final TokenCountAnalyzer.CountMode mode;
+    private final boolean ignoreMissing;
+    private final int maxTextChars;
+    private final int maxTokens;
+    private final AnalysisLimits limits;
+    private final TokenCountServices services;
+    private final Executor executor;
+
+    /**
+     * @param analyzerByTarget The analyzer name of every target field
+     * @param analyzers The analyzers, by name
+     * @param maxTextChars The maximum length of a text
+     * @param maxTokens The maximum number of tokens consumed from a text
+     * @param services The services texts are counted with, which charge them to the breaker while they are analyzed
+     * @param executor The executor large batches are spread over, or null to analyze on the calling thread
+     */
+    TokenCountProcessor(
+        String tag,
+        String description,
+        String field,
+        Map<String, String> analyzerByTarget,
+        Map<String, Analyzer> analyzers,
+        TokenCountAnalyzer.CountMode mode,
+        boolean ignoreMissing,
+        int maxTextChars,
+        int maxTokens,
+        TokenCountServices services,
+        Executor executor
+    ) {
+        super(tag, description);
+        this.field = field;
+        this.analyzerByTarget = analyzerByTarget;
+        this.analyzers = analyzers;
+        this.mode = mode;
+        this.ignoreMissing = ignoreMissing;
+        this.maxTextChars = maxTextChars;
+        this.maxTokens = maxTokens;
+        this.limits = new AnalysisLimits(
+            "the text in field [" + field + "]",
+            maxTextChars,
+            "the [max_text_chars] option of the [" + TYPE + "] processor",
+            maxTokens
+        );
+        this.services = services;
+        this.executor = executor;
+    }
+
+    String getField() {
+        return field;
+    }
+
+    Map<String, String> getAnalyzerByTarget() {
+        return analyzerByTarget;
+    }
+
+    TokenCountAnalyzer.CountMode getMode() {
+        return mode;
+    }
+
+    boolean isIgnoreMissing() {
+        return ignoreMissing;
+    }
+
+    int getMaxTextChars() {
+        return maxTextChars;
+    }
+
+    int getMaxTokens() {
+        return maxTokens;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public IngestDocument execute(IngestDocument document) throws IOException {
+        Object value = document.getFieldValue(field, Object.class, ignoreMissing);
+        if (value == null) {
+            if (ignoreMissing) {
+                return document;
+            }
+            throw new IllegalArgumentException("field [" + field + "] is null, cannot count tokens.");
+        }
+        List<String> texts = texts(value);
+        Map<String, int[]> countsByAnalyzer = new HashMap<>();
+        for (Map.Entry<String, Analyzer> analyzer : analyzers.entrySet()) {
+            int[] counts = new int[texts.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = count(analyzer.getKey(), analyzer.getValue(), texts.get(i));
+            }
+            countsByAnalyzer.put(analyzer.getKey(), counts);
+        }
+        write(document, value instanceof List, countsByAnalyzer, null);
+        return document;
+    }
+
+    @Override
+    public void batchExecute(List<IngestDocumentWrapper> ingestDocumentWrappers, Consumer<List<IngestDocumentWrapper>> handler) {
+        // the distinct texts of the batch, and for every document the positions of its texts among them
+        Map<String, Integer> textIds = new HashMap<>();
+        List<String> distinctTexts = new ArrayList<>();
+        List<PendingDocument> pending = new ArrayList<>(ingestDocumentWrappers.size());
+        List<IngestDocumentWrapper> results = new ArrayList<>(ingestDocumentWrappers.size());
+        for (IngestDocumentWrapper wrapper : ingestDocumentWrappers) {
+            try {
+                Object value = wrapper.getIngestDocument().getFieldValue(field, Object.class, ignoreMissing);
+                if (value == null && ignoreMissing == false) {
+                    throw new IllegalArgumentException("field [" + field + "] is null, cannot count tokens.");
+                }
+                if (value != null) {
+                    List<String> texts = texts(value);
+                    int[] ids = new int[texts.size()];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = textIds.computeIfAbsent(texts.get(i), text -> {
+                            distinctTexts.add(text);
+                            return distinctTexts.size() - 1;
+                        });
+                    }
+                    pending.add(new PendingDocument(results.size(), value instanceof List, ids));
+                }
+                results.add(wrapper);
+            } catch (Exception e) {
+                results.add(new IngestDocumentWrapper(wrapper.getSlot(), null, e));
+            }
+        }
+
+        Map<String, int[]> countsByAnalyzer = new HashMap<>();
+        try {
+            for (Map.Entry<String, Analyzer> analyzer : analyzers.entrySet()) {
+                Analyzer luceneAnalyzer = analyzer.getValue();
+                countsByAnalyzer.put(
+                    analyzer.getKey(),
+                    TokenCountBatchAnalyzer.countAll(distinctTexts, text -> count(analyzer.getKey(), luceneAnalyzer, text), executor)
+                );
+            }
+        } catch (Exception e) {
+            // a text of the batch cannot be counted, process documents one by one so only its documents fail
+            super.batchExecute(ingestDocumentWrappers, handler);
+            return;
+        }
+
+        for (PendingDocument document : pending) {
+            IngestDocumentWrapper wrapper = results.get(document.result);
+            try {
+                write(wrapper.getIngestDocument(), document.multiValued, countsByAnalyzer, document.textIds);
+            } catch (Exception e) {
+                results.set(document.result, new IngestDocumentWrapper(wrapper.getSlot(), null, e));
+            }
+        }
+        handler.accept(results);
+    }
+
+    private static final class PendingDocument {
+        private final int result;
+        private final boolean multiValued;
+        private final int[] textIds;
+
+        PendingDocument(int result, boolean multiValued, int[] textIds) {
+            this.result = result;
+            this.multiValued = multiValued;
+            this.textIds = textIds;
+        }
+    }
+
+    private int count(String analyzerName, Analyzer analyzer, String text) throws IOException {
+        return services.count(analyzer, analyzerName, mode, text, limits);
+    }
+
+    /**
+     * Writes the counts of every target field.
+     *
+     * @param counts The counts of every analyzer, indexed by {@code ids} or by the document's own texts if null
+     */
+    private void write(IngestDocument document, boolean multiValued, Map<String, int[]> counts, int[] ids) {
+        for (Map.Entry<String, String> target : analyzerByTarget.entrySet()) {
+            int[] analyzerCounts = counts.get(target.getValue());
+            int size = ids == null ? analyzerCounts.length : ids.length;
+            if (multiValued) {
+                List<Integer> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(analyzerCounts[ids == null ? i : ids[i]]);
+                }
+                document.setFieldValue(target.getKey(), values);
+            } else {
+                document.setFieldValue(target.getKey(), analyzerCounts[ids == null ? 0 : ids[0]]);
+            }
+        }
+    }
+
+    private List<String> texts(Object value) {
+        if (value instanceof String) {
+            return Collections.singletonList((String) value);
+        }
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<String> texts = new ArrayList<>(values.size());
+            for (Object element : values) {
+                if (element instanceof String == false) {
+                    throw new IllegalArgumentException(
+                        "field [" + field + "] of type [" + typeName(element) + "] cannot be cast to [String]"
+                    );
+                }
+                texts.add((String) element);
+            }
+            return texts;
+        }
+        throw new IllegalArgumentException("field [" + field + "] of type [" + typeName(value) + "] cannot be cast to [String]");
+    }
+
+    private static String typeName(Object value) {
+        return value == null ? "null" : value.getClass().getName();
+    }
+
+    public static final class Factory implements Processor.Factory {
+
+        private final AnalysisRegistry analysisRegistry;
+        private final TokenCountServices services;
+        private final Supplier<Executor> executor;
+
+        /**
+         * @param services The services of the node texts are counted with
+         * @param executor Supplies the executor batches are spread over, or null before the node is started
+         */
+        public Factory(AnalysisRegistry analysisRegistry, TokenCountServices services, Supplier<Executor> executor) {
+            this.analysisRegistry = analysisRegistry;
+            this.services = services;
+            this.executor = executor;
+        }
+
+        @Override
+        public TokenCountProcessor create(
+            Map<String, Processor.Factory> registry,
+            String processorTag,
+            String description,
+            Map<String, Object> config
+        ) throws Exception {
+            String field = ConfigurationUtils.readStringProperty(TYPE, processorTag, config, "field");
+            Map<String, Object> targets = ConfigurationUtils.readMap(TYPE, processorTag, config, "counts");
+            boolean ignoreMissing = ConfigurationUtils.readBooleanProperty(TYPE, processorTag, config, "ignore_missing", false);
+            boolean positionIncrements = ConfigurationUtils.readBooleanProperty(
+                TYPE,
+                processorTag,
+                config,
+                "enable_position_increments",
+                true
+            );
+            int maxTextChars = readLimit(
+                processorTag,
+                config,
+                "max_text_chars",
+                TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getDefault(Settings.EMPTY)
+            );
+            int maxTokens = readLimit(
+                processorTag,
+                config,
+                "max_analyzed_tokens",
+                TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING.getDefault(Settings.EMPTY)
+            );
+            if (targets.isEmpty()) {
+                throw ConfigurationUtils.newConfigurationException(TYPE, processorTag, "counts", "must contain at least one target field");
+            }
+            Map<String, String> analyzerByTarget = new LinkedHashMap<>();
+            Map<String, Analyzer> analyzers = new HashMap<>();
+            for (Map.Entry<String, Object> target : targets.entrySet()) {
+                if (target.getValue() instanceof String == false) {
+                    throw ConfigurationUtils.newConfigurationException(
+                        TYPE,
+                        processorTag,
+                        "counts",
+                        "the analyzer of target field [" + target.getKey() + "] must be a string"
+                    );
+                }
+                String analyzerName = (String) target.getValue();
+                if (analyzers.containsKey(analyzerName) == false) {
+                    Analyzer analyzer = analysisRegistry.getAnalyzer(analyzerName);
+                    if (analyzer == null) {
+                        throw ConfigurationUtils.newConfigurationException(
+                            TYPE,
+                            processorTag,
+                            "counts",
+                            "analyzer [" + analyzerName + "] not found"
+                        );
+                    }
+                    analyzers.put(analyzerName, analyzer);
+                }
+                analyzerByTarget.put(target.getKey(), analyzerName);
+            }
+            return new TokenCountProcessor(
+                processorTag,
+                description,
+                field,
+                analyzerByTarget,
+                analyzers,
+                positionIncrements ? TokenCountAnalyzer.CountMode.POSITIONS : TokenCountAnalyzer.CountMode.NORM_LENGTH,
+                ignoreMissing,
+                maxTextChars,
+                maxTokens,
+                services,
+                executor.get()
+            );
+        }
+
+        private static int readLimit(String processorTag, Map<String, Object> config, String propertyName, int defaultValue) {
+            int limit = ConfigurationUtils.readIntProperty(TYPE, processorTag, config, propertyName, defaultValue);
+            if (limit < 1) {
+                throw ConfigurationUtils.newConfigurationException(TYPE, processorTag, propertyName, "must be at least 1");
+            }
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.mapper;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.Query;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+import org.opensearch.index.analysis.IndexAnalyzers;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.FieldMapper;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.mapper.MapperParsingException;
+import org.opensearch.index.mapper.ParametrizedFieldMapper;
+import org.opensearch.index.mapper.ParseContext;
+import org.opensearch.index.mapper.SimpleMappedFieldType;
+import org.opensearch.index.mapper.SourceValueFetcher;
+import org.opensearch.index.mapper.TextSearchInfo;
+import org.opensearch.index.mapper.ValueFetcher;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.search.lookup.SearchLookup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A field that holds the token counts of a text for several analyzers, as an alternative to one
+ * token_count sub-field per analyzer.
+ * <p>
+ * The text is read once per document and counted with every analyzer of the mapping; analyzers that
+ * resolve to the same instance are only run once. All counts go into a single point field and a single
+ * sorted numeric doc values field, each count encoded with the position of its analyzer in the
+ * mapping as {@code ordinal << 32 | count}, so the counts of one analyzer form a contiguous range of
+ * values. The count of one analyzer is addressed by the name {@code <field>.<analyzer>}, for example
+ * {@code title.counts.english} in token_count queries.
+ */
+public class MultiTokenCountFieldMapper extends ParametrizedFieldMapper {
+
+    public static final String CONTENT_TYPE = "multi_token_count";
+
+    private static MultiTokenCountFieldMapper toType(FieldMapper in) {
+        return (MultiTokenCountFieldMapper) in;
+    }
+
+    /**
+     * Builder for {@link MultiTokenCountFieldMapper}.
+     */
+    public static class Builder extends ParametrizedFieldMapper.Builder {
+
+        private final Parameter<Boolean> index = Parameter.indexParam(m -> toType(m).index, true);
+        private final Parameter<Boolean> hasDocValues = Parameter.docValuesParam(m -> toType(m).hasDocValues, true);
+        private final Parameter<List<String>> analyzers = new Parameter<>(
+            "analyzers",
+            false,
+            Collections::emptyList,
+            (n, c, o) -> Arrays.asList(XContentMapValues.nodeStringArrayValue(o)),
+            m -> toType(m).analyzers
+        ).setValidator(Builder::validateAnalyzers);
+        private final Parameter<Boolean> enablePositionIncrements = Parameter.boolParam(
+            "enable_position_increments",
+            false,
+            m -> toType(m).enablePositionIncrements,
+            true
+        );
+        private final Parameter<Map<String, String>> meta = Parameter.metaParam();
+
+        private final IndexAnalyzers indexAnalyzers;
+
+        public Builder(String name, IndexAnalyzers indexAnalyzers) {
+            super(name);
+            this.indexAnalyzers = indexAnalyzers;
+        }
+
+        private static void validateAnalyzers(List<String> names) {
+            if (names.isEmpty()) {
+                throw new MapperParsingException("[analyzers] must not be empty");
+            }
+            if (new HashSet<>(names).size() != names.size()) {
+                throw new MapperParsingException("[analyzers] must not contain duplicates, got " + names);
+            }
+        }
+
+        @Override
+        protected List<Parameter<?>> getParameters() {
+            return Arrays.asList(index, hasDocValues, analyzers, enablePositionIncrements, meta);
+        }
+
+        @Override
+        public MultiTokenCountFieldMapper build(BuilderContext context) {
+            Map<String, NamedAnalyzer> resolved = new LinkedHashMap<>();
+            for (String analyzerName : analyzers.getValue()) {
+                NamedAnalyzer analyzer = indexAnalyzers.get(analyzerName);
+                if (analyzer == null) {
+                    throw new MapperParsingException("analyzer [" + analyzerName + "] not found for field [" + name + "]");
+                }
+                resolved.put(analyzerName, analyzer);
+            }
+            MultiTokenCountFieldType fieldType = new MultiTokenCountFieldType(
+                buildFullName(context),
+                index.getValue(),
+                hasDocValues.getValue(),
+                resolved,
+                enablePositionIncrements.getValue(),
+                meta.getValue()
+            );
+            return new MultiTokenCountFieldMapper(name, fieldType, multiFieldsBuilder.build(this, context), copyTo.build(), this);
+        }
+    }
+
+    public static final TypeParser PARSER = new TypeParser((n, c) -> new Builder(n, c.getIndexAnalyzers()));
+
+    /**
+     * Field type of {@link MultiTokenCountFieldMapper}.
+     */
+    public static final class MultiTokenCountFieldType extends SimpleMappedFieldType {
+
+        private final Map<String, NamedAnalyzer> analyzers;
+        private final Map<String, Integer> ordinals = new LinkedHashMap<>();
+        private final TokenCountAnalyzer.CountMode mode;
+
+        public MultiTokenCountFieldType(
+            String name,
+            boolean isSearchable,
+            boolean hasDocValues,
+            Map<String, NamedAnalyzer> analyzers,
+            boolean enablePositionIncrements,
+            Map<String, String> meta
+        ) {
+            super(name, isSearchable, false, hasDocValues, TextSearchInfo.NONE, meta);
+            this.analyzers = Collections.unmodifiableMap(new LinkedHashMap<>(analyzers));
+            for (String analyzerName : analyzers.keySet()) {
+                ordinals.put(analyzerName, ordinals.size());
+            }
+            this.mode = enablePositionIncrements ? TokenCountAnalyzer.CountMode.POSITIONS : TokenCountAnalyzer.CountMode.NORM_LENGTH;
+        }
+
+        /**
+         * Returns the multi_token_count field that holds the count addressed by a name of the form
+         * {@code <field>.<analyzer>}, or null if the name does not address the count of one. Both field
+         * and analyzer names may contain dots, so every split is tried against the analyzers of the field.
+         */
+        public static MultiTokenCountFieldType forCountName(Function<String, MappedFieldType> fieldTypes, String countName) {
+            for (int dot = countName.lastIndexOf('.'); dot > 0; dot = countName.lastIndexOf('.', dot - 1)) {
+                MappedFieldType parent = fieldTypes.apply(countName.substring(0, dot));
+                if (parent instanceof MultiTokenCountFieldType
+                    && ((MultiTokenCountFieldType) parent).analyzers.containsKey(countName.substring(dot + 1))) {
+                    return (MultiTokenCountFieldType) parent;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return The name of the analyzer whose count the given count name of this field addresses
+         */
+        public String analyzerOf(String countName) {
+            return countName.substring(name().length() + 1);
+        }
+
+        /**
+         * @return The analyzers the counts are produced with, by name, in the order of the mapping
+         */
+        public Map<String, NamedAnalyzer> analyzers() {
+            return analyzers;
+        }
+
+        /**
+         * @return What the counts measure
+         */
+        public TokenCountAnalyzer.CountMode mode() {
+            return mode;
+        }
+
+        /**
+         * Encodes the count of the analyzer at the given position of the mapping as an indexed value.
+         */
+        static long encode(int ordinal, int count) {
+            return ((long) ordinal << 32) | count;
+        }
+
+        /**
+         * Counts the tokens of a text with every analyzer, in the order of the mapping.
+         */
+        int[] count(String text) throws IOException {
+            int[] counts = new int[analyzers.size()];
+            Analyzer[] counted = new Analyzer[counts.length];
+            int i = 0;
+            for (NamedAnalyzer analyzer : analyzers.values()) {
+                counted[i] = analyzer.analyzer();
+                counts[i] = -1;
+                for (int j = 0; j < i; j++) {
+                    if (counted[j] == counted[i]) {
+                        counts[i] = counts[j];
+                        break;
+                    }
+                }
+                if (counts[i] < 0) {
+                    counts[i] = TokenCountAnalyzer.countTokens(analyzer, text, Integer.MAX_VALUE, Integer.MAX_VALUE, mode);
+                }
+                i++;
+            }
+            return counts;
+        }
+
+        /**
+         * Creates a query that matches documents whose count for the given analyzer is within the
+         * inclusive bounds, which must not be negative.
+         */
+        public Query countRangeQuery(String analyzer, int lowerCount, int upperCount) {
+            int ordinal = ordinal(analyzer);
+            long lower = encode(ordinal, lowerCount);
+            long upper = encode(ordinal, upperCount);
+            return query(
+                isSearchable() ? LongPoint.newRangeQuery(name(), lower, upper) : null,
+                hasDocValues() ? SortedNumericDocValuesField.newSlowRangeQuery(name(), lower, upper) : null
+            );
+        }
+
+        /**
+         * Creates a query that matches documents whose count for the given analyzer is any of the
+         * given counts, which must not be negative.
+         */
+        public Query countSetQuery(String analyzer, int[] counts) {
+            int ordinal = ordinal(analyzer);
+            long[] values = Arrays.stream(counts).mapToLong(count -> encode(ordinal, count)).toArray();
+            return query(
+                isSearchable() ? LongPoint.newSetQuery(name(), values) : null,
+                hasDocValues() ? SortedNumericDocValuesField.newSlowSetQuery(name(), values) : null
+            );
+        }
+
+        private int ordinal(String analyzer) {
+            Integer ordinal = ordinals.get(analyzer);
+            if (ordinal == null) {
+                throw new IllegalArgumentException("field [" + name() + "] has no count for analyzer [" + analyzer + "]");
+            }
+            return ordinal;
+        }
+
+        private Query query(Query pointQuery, Query docValuesQuery) {
+            if (pointQuery != null && docValuesQuery != null) {
+                return new IndexOrDocValuesQuery(pointQuery, docValuesQuery);
+            }
+            if (pointQuery != null) {
+                return pointQuery;
+            }
+            if (docValuesQuery != null) {
+                return docValuesQuery;
+            }
+            throw new IllegalArgumentException("Cannot search on field [" + name() + "] since it is not indexed nor has doc values.");
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public ValueFetcher valueFetcher(QueryShardContext context, SearchLookup searchLookup, String format) {
+            if (format != null) {
+                throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] doesn't support formats.");
+            }
+            return new SourceValueFetcher(name(), context) {
+                @Override
+                protected Object parseSourceValue(Object value) {
+                    try {
+                        int[] counts = count(value.toString());
+                        Map<String, Integer> byAnalyzer = new LinkedHashMap<>();
+                        for (String analyzer : analyzers.keySet()) {
+                            byAnalyzer.put(analyzer, counts[byAnalyzer.size()]);
+                        }
+                        return byAnalyzer;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new IllegalArgumentException(
+                "Field ["
+                    + name()
+                    + "] of type ["
+                    + typeName()
+                    + "] does not support term queries, query the count of one analyzer as ["
+                    + name()
+                    + ".<analyzer>] with a [token_count] query"
+            );
+        }
+    }
+
+    private final boolean index;
+    private final boolean hasDocValues;
+    private final List<String> analyzers;
+    private final boolean enablePositionIncrements;
+    private final IndexAnalyzers indexAnalyzers;
+
+    protected MultiTokenCountFieldMapper(
+        String simpleName,
+        MultiTokenCountFieldType fieldType,
+        MultiFields multiFields,
+        CopyTo copyTo,
+        Builder builder
+    ) {
+        super(simpleName, fieldType, multiFields, copyTo);
+        this.index = builder.index.getValue();
+        this.hasDocValues = builder.hasDocValues.getValue();
+        this.analyzers = builder.analyzers.getValue();
+        this.enablePositionIncrements = builder.enablePositionIncrements.getValue();
+        this.indexAnalyzers = builder.indexAnalyzers;
+    }
+
+    @Override
+    public MultiTokenCountFieldType fieldType() {
+        return (MultiTokenCountFieldType) super.fieldType();
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context) throws IOException {
+        String value;
+        if (context.externalValueSet()) {
+            value = context.externalValue().toString();
+        } else {
+            value = context.parser().textOrNull();
+        }
+        if (value == null) {
+            return;
+        }
+        int[] counts = fieldType().count(value);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            long encoded = MultiTokenCountFieldType.encode(ordinal, counts[ordinal]);
+            if (index) {
+                context.doc().add(new LongPoint(name(), encoded));
+            }
+            if (hasDocValues) {
+                context.doc().add(new SortedNumericDocValuesField(name(), encoded));
+            }
+        }
+        if (hasDocValues == false && index) {
+            createFieldNamesField(context);
+        }
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public ParametrizedFieldMapper.Builder getMergeBuilder() {
+        return new Builder(simpleName(), indexAnalyzers).init(this);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.script;
+
+import org.opensearch.core.index.Index;
+import org.opensearch.index.IndexService;
+import org.opensearch.index.analysis.IndexAnalyzers;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.query.tokencount.AnalysisLimits;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.query.tokencount.TokenCountServices;
+import org.opensearch.script.ScoreScript;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Backs the {@code tokenCount(analyzer, text)} function of score scripts, which counts the token
+ * positions of a text like the token_count query does.
+ * <p>
+ * Painless binds one instance to each call site of a script instance and creates it on the first
+ * call, so the analyzer is resolved once rather than per document; later calls from the same site
+ * must name the same analyzer. A null text counts zero tokens, like a missing value. Texts are
+ * counted like those of the token_count query: memoized for the search request, so a text is analyzed
+ * once per request on each node however many segments and documents the script runs on, cached on
+ * the node, charged to its breaker and recorded in its stats.
+ */
+public final class TokenCountFunction {
+
+    // Painless creates the function from the script alone, so the indices of every node in the JVM are kept here
+    private static final TokenCountScriptIndices INDICES = new TokenCountScriptIndices();
+
+    private final Index index;
+    private final TokenCountServices services;
+    private final IndexAnalyzers indexAnalyzers;
+    private final AnalysisLimits limits;
+    // the analyzer of the first call, which every later call from the call site must name
+    private String analyzerName;
+    private NamedAnalyzer analyzer;
+
+    /**
+     * @return The indices scripts can count with, maintained by {@link org.opensearch.query.tokencount.TokenCountQueryPlugin}
+     */
+    public static TokenCountScriptIndices indices() {
+        return INDICES;
+    }
+
+    /**
+     * Called by Painless with the script instance on the first call.
+     */
+    public TokenCountFunction(ScoreScript script) {
+        this(INDICES.get(script._getIndex()));
+    }
+
+    private TokenCountFunction(TokenCountScriptIndices.Registration registration) {
+        this(registration.indexService, registration.services);
+    }
+
+    TokenCountFunction(IndexService indexService, TokenCountServices services) {
+        this.index = indexService.index();
+        this.services = services;
+        this.indexAnalyzers = indexService.getIndexAnalyzers();
+        this.limits = AnalysisLimits.of("the text passed to [tokenCount]", indexService.getIndexSettings());
+    }
+
+    /**
+     * @return The number of token positions the analyzer produces for the text, zero for a null text
+     * @throws IllegalArgumentException If the analyzer does not exist or differs from the one of the first call
+     */
+    public int tokenCount(String analyzerName, String text) {
+        NamedAnalyzer namedAnalyzer = analyzer(analyzerName);
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return services.count(index, namedAnalyzer, TokenCountAnalyzer.CountMode.POSITIONS, text, limits);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resolves the analyzer on the first call and checks that later calls name the same one, so that
+     * the analyzer is looked up once per call site.
+     */
+    private NamedAnalyzer analyzer(String name) {
+        if (analyzer != null) {
+            if (analyzerName.equals(name) == false) {
+                throw new IllegalArgumentException(
+                    "[tokenCount] must be called with the same analyzer from each call site, got ["
+                        + name
+                        + "] after ["
+                        + analyzerName
+                        + "]; use a constant analyzer name or one call site per analyzer"
+                );
+            }
+            return analyzer;
+        }
+        NamedAnalyzer resolved = name == null ? null : indexAnalyzers.get(name);
+        if (resolved == null) {
+            throw new IllegalArgumentException("analyzer [" + name + "] not found in index [" + index.getName() + "]");
+        }
+        analyzerName = name;
+        analyzer = resolved;
+        return resolved;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.script;
+
+import org.opensearch.core.index.Index;
+import org.opensearch.index.IndexService;
+import org.opensearch.query.tokencount.TokenCountServices;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The indices allocated in this JVM by name, together with the services of the node each one lives on,
+ * so that scripts, which only know the name of the index they run on, can reach its analyzers, settings
+ * and node cache. Every {@link org.opensearch.query.tokencount.TokenCountQueryPlugin} instance registers
+ * and removes the indices of its own node, so nodes sharing a JVM do not replace each other's entries.
+ */
+public class TokenCountScriptIndices {
+
+    private final ConcurrentHashMap<String, List<Registration>> indices = new ConcurrentHashMap<>();
+
+    public void register(IndexService indexService, TokenCountServices services) {
+        Registration registration = new Registration(indexService, services);
+        indices.compute(indexService.index().getName(), (name, registrations) -> {
+            List<Registration> updated = new ArrayList<>();
+            if (registrations != null) {
+                for (Registration existing : registrations) {
+                    // a newer index with the same name replaces the one this node held before
+                    if (existing.services != services) {
+                        updated.add(existing);
+                    }
+                }
+            }
+            updated.add(registration);
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    public void remove(Index index, TokenCountServices services) {
+        indices.computeIfPresent(index.getName(), (name, registrations) -> {
+            List<Registration> updated = new ArrayList<>();
+            for (Registration existing : registrations) {
+                // a newer index with the same name may already have replaced the removed one
+                if (existing.services != services || existing.indexService.index().equals(index) == false) {
+                    updated.add(existing);
+                }
+            }
+            return updated.isEmpty() ? null : Collections.unmodifiableList(updated);
+        });
+    }
+
+    /**
+     * Returns the index with the given name. Copies of an index on nodes sharing the JVM have the same
+     * analyzers and settings, so any of them counts the same way.
+     */
+    Registration get(String indexName) {
+        List<Registration> registrations = indices.get(indexName);
+        if (registrations == null) {
+            throw new IllegalStateException("index [" + indexName + "] is not allocated on this node");
+        }
+        return registrations.get(0);
+    }
+
+    /**
+     * An index together with the services of the node it is allocated on.
+     */
+    static final class Registration {
+        final IndexService indexService;
+        final TokenCountServices services;
+
+        Registration(IndexService indexService, TokenCountServices services) {
+            this.indexService = indexService;
+            this.services = services;
+        }
+    }
+}
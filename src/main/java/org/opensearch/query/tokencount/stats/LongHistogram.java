@@ -0,0 +1,153 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.core.xcontent.ToXContentFragment;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values with power-of-two buckets. Recording never takes a lock: every
+ * bucket is a {@link LongAdder}, which stripes contended updates across cells.
+ */
+public final class LongHistogram {
+
+    static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LongHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets[bucket(v)].increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Values in bucket {@code b > 0} are in {@code [2^(b-1), 2^b)}, bucket 0 only holds 0.
+     */
+    static int bucket(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, sum.sum(), max.get());
+    }
+
+    /**
+     * A point-in-time copy of a histogram. The counts are read bucket by bucket while values may still
+     * be recorded, so the total can be marginally off from the sum of a concurrent snapshot.
+     */
+    public static final class Snapshot implements Writeable, ToXContentFragment {
+
+        private final long[] counts;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public Snapshot(StreamInput in) throws IOException {
+            this.counts = in.readVLongArray();
+            this.sum = in.readVLong();
+            this.max = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLongArray(counts);
+            out.writeVLong(sum);
+            out.writeVLong(max);
+        }
+
+        public long count() {
+            return Arrays.stream(counts).sum();
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @return The number of recorded values in bucket {@code b}, see {@link LongHistogram#bucket(long)}
+         */
+        public long bucketCount(int b) {
+            return counts[b];
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            long count = count();
+            builder.field("count", count);
+            builder.field("sum", sum);
+            builder.field("max", max);
+            builder.field("avg", count == 0 ? 0 : (double) sum / count);
+            builder.startArray("buckets");
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] == 0) {
+                    continue;
+                }
+                builder.startObject();
+                builder.field("from", b == 0 ? 0 : 1L << (b - 1));
+                if (b < Long.SIZE - 1) {
+                    builder.field("to", b == 0 ? 1 : 1L << b);
+                }
+                builder.field("count", counts[b]);
+                builder.endObject();
+            }
+            builder.endArray();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Snapshot other = (Snapshot) o;
+            return sum == other.sum && max == other.max && Arrays.equals(counts, other.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(counts) + Long.hashCode(sum)) + Long.hashCode(max);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.core.common.Strings;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.action.RestActions;
+import org.opensearch.transport.client.node.NodeClient;
+
+import java.util.List;
+
+import static org.opensearch.rest.RestRequest.Method.GET;
+
+/**
+ * Exposes the token_count query statistics under {@code _plugins/token_count/_stats}.
+ */
+public class RestTokenCountStatsAction extends BaseRestHandler {
+
+    @Override
+    public String getName() {
+        return "token_count_stats_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(GET, "/_plugins/token_count/_stats"), new Route(GET, "/_plugins/token_count/{nodeId}/_stats"));
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) {
+        String[] nodesIds = Strings.splitStringByCommaToArray(request.param("nodeId"));
+        TokenCountStatsRequest statsRequest = new TokenCountStatsRequest(nodesIds);
+        statsRequest.timeout(request.param("timeout"));
+        return channel -> client.execute(
+            TokenCountStatsAction.INSTANCE,
+            statsRequest,
+            new RestActions.NodesResponseRestListener<>(channel)
+        );
+    }
+}
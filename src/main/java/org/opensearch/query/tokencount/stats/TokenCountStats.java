@@ -0,0 +1,97 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.query.tokencount.TokenCountQueryBuilder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node-level statistics of the token_count query. Every counter is a {@link LongAdder} or a
+ * {@link LongHistogram}, so recording from many search threads never contends on a lock.
+ */
+public final class TokenCountStats {
+
+    private final ConcurrentHashMap<String, LongHistogram> analysisNanosByAnalyzer = new ConcurrentHashMap<>();
+    private final LongHistogram textChars = new LongHistogram();
+    private final LongHistogram tokenCounts = new LongHistogram();
+    private final LongAdder[] operators = new LongAdder[TokenCountQueryBuilder.Operator.values().length];
+    private final LongAdder defaultAnalyzerFallbacks = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public TokenCountStats() {
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a query that was turned into a Lucene query.
+     */
+    public void onQuery(TokenCountQueryBuilder.Operator operator) {
+        operators[operator.ordinal()].increment();
+    }
+
+    /**
+     * Records the analysis of a text.
+     *
+     * @param analyzer The name of the analyzer
+     * @param chars The length of the text in characters
+     * @param tokens The resulting count
+     * @param tookNanos The time spent analyzing
+     */
+    public void onAnalysis(String analyzer, int chars, int tokens, long tookNanos) {
+        analysisNanosByAnalyzer.computeIfAbsent(analyzer, k -> new LongHistogram()).record(tookNanos);
+        textChars.record(chars);
+        tokenCounts.record(tokens);
+    }
+
+    public void onCacheHit() {
+        cacheHits.increment();
+    }
+
+    public void onCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * Records that neither the query nor the mapping of the field named an analyzer and the index
+     * default search analyzer was used.
+     */
+    public void onDefaultAnalyzerFallback() {
+        defaultAnalyzerFallbacks.increment();
+    }
+
+    /**
+     * @param cacheEntries The number of counts currently cached on the node
+     * @param cacheMemoryBytes The memory used by the cached counts
+     */
+    public TokenCountStatsSnapshot snapshot(long cacheEntries, long cacheMemoryBytes) {
+        Map<String, LongHistogram.Snapshot> analysis = new TreeMap<>();
+        analysisNanosByAnalyzer.forEach((name, histogram) -> analysis.put(name, histogram.snapshot()));
+        Map<String, Long> operatorCounts = new TreeMap<>();
+        for (TokenCountQueryBuilder.Operator operator : TokenCountQueryBuilder.Operator.values()) {
+            operatorCounts.put(operator.getName(), operators[operator.ordinal()].sum());
+        }
+        return new TokenCountStatsSnapshot(
+            analysis,
+            textChars.snapshot(),
+            tokenCounts.snapshot(),
+            operatorCounts,
+            defaultAnalyzerFallbacks.sum(),
+            cacheHits.sum(),
+            cacheMisses.sum(),
+            cacheEntries,
+            cacheMemoryBytes
+        );
+    }
+}
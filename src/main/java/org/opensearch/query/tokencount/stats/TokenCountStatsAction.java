@@ -0,0 +1,23 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.action.ActionType;
+
+/**
+ * Collects the token_count query statistics of the selected nodes.
+ */
+public class TokenCountStatsAction extends ActionType<TokenCountStatsResponse> {
+
+    public static final TokenCountStatsAction INSTANCE = new TokenCountStatsAction();
+    public static final String NAME = "cluster:monitor/token_count/stats";
+
+    private TokenCountStatsAction() {
+        super(NAME, TokenCountStatsResponse::new);
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.transport.TransportRequest;
+
+import java.io.IOException;
+
+/**
+ * Request for the token_count query statistics of a single node.
+ */
+public class TokenCountStatsNodeRequest extends TransportRequest {
+
+    public TokenCountStatsNodeRequest() {}
+
+    public TokenCountStatsNodeRequest(StreamInput in) throws IOException {
+        super(in);
+    }
+}
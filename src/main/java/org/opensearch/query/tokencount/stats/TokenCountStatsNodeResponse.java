@@ -0,0 +1,50 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.action.support.nodes.BaseNodeResponse;
+import org.opensearch.cluster.node.DiscoveryNode;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.xcontent.ToXContentFragment;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The token_count query statistics of a single node.
+ */
+public class TokenCountStatsNodeResponse extends BaseNodeResponse implements ToXContentFragment {
+
+    private final TokenCountStatsSnapshot stats;
+
+    public TokenCountStatsNodeResponse(DiscoveryNode node, TokenCountStatsSnapshot stats) {
+        super(node);
+        this.stats = stats;
+    }
+
+    public TokenCountStatsNodeResponse(StreamInput in) throws IOException {
+        super(in);
+        this.stats = new TokenCountStatsSnapshot(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        stats.writeTo(out);
+    }
+
+    public TokenCountStatsSnapshot getStats() {
+        return stats;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        return stats.toXContent(builder, params);
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.action.support.nodes.BaseNodesRequest;
+import org.opensearch.core.common.io.stream.StreamInput;
+
+import java.io.IOException;
+
+/**
+ * Request for the token_count query statistics of a set of nodes; all nodes when none are given.
+ */
+public class TokenCountStatsRequest extends BaseNodesRequest<TokenCountStatsRequest> {
+
+    public TokenCountStatsRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+    public TokenCountStatsRequest(StreamInput in) throws IOException {
+        super(in);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.common.io.stream.StreamOutput;
+import org.opensearch.core.common.io.stream.Writeable;
+import org.opensearch.core.xcontent.ToXContentFragment;
+import org.opensearch.core.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The statistics of the token_count query on one node at a point in time.
+ */
+public final class TokenCountStatsSnapshot implements Writeable, ToXContentFragment {
+
+    private final Map<String, LongHistogram.Snapshot> analysisNanosByAnalyzer;
+    private final LongHistogram.Snapshot textChars;
+    private final LongHistogram.Snapshot tokenCounts;
+    private final Map<String, Long> operators;
+    private final long defaultAnalyzerFallbacks;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long cacheEntries;
+    private final long cacheMemoryBytes;
+
+    TokenCountStatsSnapshot(
+        Map<String, LongHistogram.Snapshot> analysisNanosByAnalyzer,
+        LongHistogram.Snapshot textChars,
+        LongHistogram.Snapshot tokenCounts,
+        Map<String, Long> operators,
+        long defaultAnalyzerFallbacks,
+        long cacheHits,
+        long cacheMisses,
+        long cacheEntries,
+        long cacheMemoryBytes
+    ) {
+        this.analysisNanosByAnalyzer = analysisNanosByAnalyzer;
+        this.textChars = textChars;
+        this.tokenCounts = tokenCounts;
+        this.operators = operators;
+        this.defaultAnalyzerFallbacks = defaultAnalyzerFallbacks;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.cacheEntries = cacheEntries;
+        this.cacheMemoryBytes = cacheMemoryBytes;
+    }
+
+    public TokenCountStatsSnapshot(StreamInput in) throws IOException {
+        this.analysisNanosByAnalyzer = new TreeMap<>(in.readMap(StreamInput::readString, LongHistogram.Snapshot::new));
+        this.textChars = new LongHistogram.Snapshot(in);
+        this.tokenCounts = new LongHistogram.Snapshot(in);
+        this.operators = new TreeMap<>(in.readMap(StreamInput::readString, StreamInput::readVLong));
+        this.defaultAnalyzerFallbacks = in.readVLong();
+        this.cacheHits = in.readVLong();
+        this.cacheMisses = in.readVLong();
+        this.cacheEntries = in.readVLong();
+        this.cacheMemoryBytes = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(analysisNanosByAnalyzer, StreamOutput::writeString, (o, v) -> v.writeTo(o));
+        textChars.writeTo(out);
+        tokenCounts.writeTo(out);
+        out.writeMap(operators, StreamOutput::writeString, StreamOutput::writeVLong);
+        out.writeVLong(defaultAnalyzerFallbacks);
+        out.writeVLong(cacheHits);
+        out.writeVLong(cacheMisses);
+        out.writeVLong(cacheEntries);
+        out.writeVLong(cacheMemoryBytes);
+    }
+
+    public Map<String, LongHistogram.Snapshot> analysisNanosByAnalyzer() {
+        return analysisNanosByAnalyzer;
+    }
+
+    public LongHistogram.Snapshot textChars() {
+        return textChars;
+    }
+
+    public LongHistogram.Snapshot tokenCounts() {
+        return tokenCounts;
+    }
+
+    public Map<String, Long> operators() {
+        return operators;
+    }
+
+    public long defaultAnalyzerFallbacks() {
+        return defaultAnalyzerFallbacks;
+    }
+
+    public long cacheHits() {
+        return cacheHits;
+    }
+
+    public long cacheMisses() {
+        return cacheMisses;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("analysis");
+        long totalNanos = analysisNanosByAnalyzer.values().stream().mapToLong(LongHistogram.Snapshot::sum).sum();
+        builder.field("time_in_nanos", totalNanos);
+        builder.startObject("time_in_nanos_by_analyzer");
+        for (Map.Entry<String, LongHistogram.Snapshot> entry : analysisNanosByAnalyzer.entrySet()) {
+            builder.startObject(entry.getKey());
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        builder.startObject("text_chars");
+        textChars.toXContent(builder, params);
+        builder.endObject();
+        builder.startObject("token_count");
+        tokenCounts.toXContent(builder, params);
+        builder.endObject();
+        builder.endObject();
+
+        builder.field("operators", operators);
+
+        builder.startObject("analyzer_fallbacks");
+        builder.field("default_search", defaultAnalyzerFallbacks);
+        builder.endObject();
+
+        builder.startObject("cache");
+        builder.field("hits", cacheHits);
+        builder.field("misses", cacheMisses);
+        long lookups = cacheHits + cacheMisses;
+        builder.field("hit_ratio", lookups == 0 ? 0 : (double) cacheHits / lookups);
+        builder.field("entries", cacheEntries);
+        builder.field("memory_size_in_bytes", cacheMemoryBytes);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TokenCountStatsSnapshot other = (TokenCountStatsSnapshot) o;
+        return defaultAnalyzerFallbacks == other.defaultAnalyzerFallbacks
+            && cacheHits == other.cacheHits
+            && cacheMisses == other.cacheMisses
+            && cacheEntries == other.cacheEntries
+            && cacheMemoryBytes == other.cacheMemoryBytes
+            && analysisNanosByAnalyzer.equals(other.analysisNanosByAnalyzer)
+            && textChars.equals(other.textChars)
+            && tokenCounts.equals(other.tokenCounts)
+            && operators.equals(other.operators);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            analysisNanosByAnalyzer,
+            textChars,
+            tokenCounts,
+            operators,
+            defaultAnalyzerFallbacks,
+            cacheHits,
+            cacheMisses,
+            cacheEntries,
+            cacheMemoryBytes
+        );
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.telemetry.metrics.Histogram;
+import org.opensearch.telemetry.metrics.MetricsRegistry;
+import org.opensearch.telemetry.metrics.noop.NoopMetricsRegistry;
+import org.opensearch.telemetry.metrics.tags.Tags;
+import org.opensearch.telemetry.tracing.Span;
+import org.opensearch.telemetry.tracing.SpanCreationContext;
+import org.opensearch.telemetry.tracing.SpanScope;
+import org.opensearch.telemetry.tracing.Tracer;
+import org.opensearch.telemetry.tracing.noop.NoopSpan;
+import org.opensearch.telemetry.tracing.noop.NoopTracer;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports token_count analysis and query construction to OpenSearch's tracing and metrics
+ * framework, next to the node-local {@link TokenCountStats}.
+ * <p>
+ * Spans are only created while the tracer records, otherwise {@link #startSpan} hands out the shared
+ * no-op span and attributes cost nothing. Histograms aggregate in process, with tags reused per
+ * analyzer, so recording them allocates nothing and is free with the no-op registry.
+ */
+public class TokenCountTelemetry {
+
+    public static final TokenCountTelemetry NOOP = new TokenCountTelemetry(NoopTracer.INSTANCE, NoopMetricsRegistry.INSTANCE);
+
+    public static final String RESOLVE_SPAN = "token_count.resolve";
+    public static final String ANALYSIS_SPAN = "token_count.analysis";
+    public static final String TO_QUERY_SPAN = "token_count.to_query";
+
+    private final Tracer tracer;
+    private final Histogram analysisLatency;
+    private final Histogram textLength;
+    private final Histogram tokenCount;
+    private final ConcurrentHashMap<String, Tags> tagsByAnalyzer = new ConcurrentHashMap<>();
+
+    public TokenCountTelemetry(Tracer tracer, MetricsRegistry metricsRegistry) {
+        this.tracer = tracer;
+        this.analysisLatency = metricsRegistry.createHistogram(
+            "token_count.analysis.latency",
+            "Time spent analyzing the texts of token_count queries",
+            "ms"
+        );
+        this.textLength = metricsRegistry.createHistogram(
+            "token_count.analysis.text_length",
+            "Length of the texts analyzed by token_count queries",
+            "chars"
+        );
+        this.tokenCount = metricsRegistry.createHistogram(
+            "token_count.analysis.tokens",
+            "Token counts of the texts analyzed by token_count queries",
+            "1"
+        );
+    }
+
+    /**
+     * Starts a span as a child of the current span, or returns the no-op span when no trace is recorded.
+     */
+    public Span startSpan(String name) {
+        if (tracer.isRecording() == false) {
+            return NoopSpan.INSTANCE;
+        }
+        return tracer.startSpan(SpanCreationContext.internal().name(name));
+    }
+
+    /**
+     * Makes the span the parent of the spans started by the current thread until the scope is closed.
+     *
+     * @return The scope, or null for the no-op span
+     */
+    public SpanScope withSpanInScope(Span span) {
+        return span == NoopSpan.INSTANCE ? null : tracer.withSpanInScope(span);
+    }
+
+    /**
+     * Records the analysis of a text on the given span and in the histograms.
+     */
+    public void onAnalysis(Span span, String analyzer, int chars, int tokens, long tookNanos) {
+        if (span != NoopSpan.INSTANCE) {
+            span.addAttribute("analyzer", analyzer);
+            span.addAttribute("text_length", (long) chars);
+            span.addAttribute("token_count", (long) tokens);
+        }
+        Tags tags = tagsByAnalyzer.computeIfAbsent(analyzer, name -> Tags.create().addTag("analyzer", name));
+        analysisLatency.record(tookNanos / 1_000_000.0, tags);
+        textLength.record(chars, tags);
+        tokenCount.record(tokens, tags);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.action.FailedNodeException;
+import org.opensearch.action.support.ActionFilters;
+import org.opensearch.action.support.nodes.TransportNodesAction;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.inject.Inject;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.query.tokencount.TokenCountCache;
+import org.opensearch.threadpool.ThreadPool;
+import org.opensearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Fans the statistics request out to the selected nodes and snapshots the counters of each.
+ */
+public class TransportTokenCountStatsAction extends TransportNodesAction<
+    TokenCountStatsRequest,
+    TokenCountStatsResponse,
+    TokenCountStatsNodeRequest,
+    TokenCountStatsNodeResponse> {
+
+    private final TokenCountStats stats;
+    private final TokenCountCache cache;
+
+    @Inject
+    public TransportTokenCountStatsAction(
+        ThreadPool threadPool,
+        ClusterService clusterService,
+        TransportService transportService,
+        ActionFilters actionFilters,
+        TokenCountStats stats,
+        TokenCountCache cache
+    ) {
+        super(
+            TokenCountStatsAction.NAME,
+            threadPool,
+            clusterService,
+            transportService,
+            actionFilters,
+            TokenCountStatsRequest::new,
+            TokenCountStatsNodeRequest::new,
+            ThreadPool.Names.MANAGEMENT,
+            TokenCountStatsNodeResponse.class
+        );
+        this.stats = stats;
+        this.cache = cache;
+    }
+
+    @Override
+    protected TokenCountStatsResponse newResponse(
+        TokenCountStatsRequest request,
+        List<TokenCountStatsNodeResponse> responses,
+        List<FailedNodeException> failures
+    ) {
+        return new TokenCountStatsResponse(clusterService.getClusterName(), responses, failures);
+    }
+
+    @Override
+    protected TokenCountStatsNodeRequest newNodeRequest(TokenCountStatsRequest request) {
+        return new TokenCountStatsNodeRequest();
+    }
+
+    @Override
+    protected TokenCountStatsNodeResponse newNodeResponse(StreamInput in) throws IOException {
+        return new TokenCountStatsNodeResponse(in);
+    }
+
+    @Override
+    protected TokenCountStatsNodeResponse nodeOperation(TokenCountStatsNodeRequest request) {
+        return new TokenCountStatsNodeResponse(clusterService.localNode(), stats.snapshot(cache.count(), cache.weight()));
+    }
+}
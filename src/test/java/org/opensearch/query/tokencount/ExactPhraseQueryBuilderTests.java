@@ -0,0 +1,106 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.opensearch.core.common.ParsingException;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.plugins.Plugin;
+import org.opensearch.test.AbstractQueryTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class ExactPhraseQueryBuilderTests extends AbstractQueryTestCase<ExactPhraseQueryBuilder> {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        List<Class<? extends Plugin>> plugins = new ArrayList<>(super.getPlugins());
+        plugins.add(TokenCountQueryPlugin.class);
+        return plugins;
+    }
+
+    @Override
+    protected ExactPhraseQueryBuilder doCreateTestQueryBuilder() {
+        String text = String.join(" ", randomList(1, 5, () -> randomAlphaOfLengthBetween(3, 10)));
+        ExactPhraseQueryBuilder builder = new ExactPhraseQueryBuilder(TEXT_FIELD_NAME, text, INT_FIELD_NAME);
+        if (randomBoolean()) {
+            builder.analyzer(randomFrom("standard", "simple", "whitespace"));
+        }
+        return builder;
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(ExactPhraseQueryBuilder queryBuilder, Query query, QueryShardContext context) {
+        assertThat(query, instanceOf(TokenCountAnalysisQuery.class));
+        assertThat(((TokenCountAnalysisQuery) query).getQuery(), instanceOf(PhraseCountQuery.class));
+        PhraseCountQuery phraseCount = (PhraseCountQuery) ((TokenCountAnalysisQuery) query).getQuery();
+        assertThat(phraseCount.getCountField(), equalTo(INT_FIELD_NAME));
+        assertThat(phraseCount.getCount(), equalTo(queryBuilder.text().split(" ").length));
+    }
+
+    public void testRequiredParameters() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new ExactPhraseQueryBuilder(null, "a", "b"));
+        assertThat(e.getMessage(), equalTo("field cannot be null or empty"));
+        e = expectThrows(IllegalArgumentException.class, () -> new ExactPhraseQueryBuilder("a", "", "b"));
+        assertThat(e.getMessage(), equalTo("query cannot be null or empty"));
+        e = expectThrows(IllegalArgumentException.class, () -> new ExactPhraseQueryBuilder("a", "b", null));
+        assertThat(e.getMessage(), equalTo("count_field cannot be null or empty"));
+
+        ParsingException pe = expectThrows(
+            ParsingException.class,
+            () -> parseQuery("{\"exact_phrase\":{\"field\":\"" + TEXT_FIELD_NAME + "\",\"query\":\"quick brown\"}}")
+        );
+        assertThat(pe.getMessage(), containsString("requires 'count_field' parameter"));
+    }
+
+    public void testPhraseAndCountFromOnePass() throws IOException {
+        QueryShardContext context = createShardContext();
+        Query query = new ExactPhraseQueryBuilder(TEXT_FIELD_NAME, "Quick brown fox", INT_FIELD_NAME).analyzer("standard")
+            .toQuery(context);
+        Query phrase = new PhraseQuery.Builder().add(new Term(TEXT_FIELD_NAME, "quick"))
+            .add(new Term(TEXT_FIELD_NAME, "brown"))
+            .add(new Term(TEXT_FIELD_NAME, "fox"))
+            .build();
+        PhraseCountQuery phraseCount = new PhraseCountQuery(phrase, INT_FIELD_NAME, 3);
+        assertThat(query, equalTo(new TokenCountAnalysisQuery(phraseCount, new AnalysisProfile(INT_FIELD_NAME))));
+
+        // the single pass is recorded like any other analysis
+        AnalysisProfile profile = ((TokenCountAnalysisQuery) query).getProfile();
+        assertThat(profile.tokens(), equalTo(3L));
+        assertThat(profile.positions(), equalTo(3L));
+        assertThat(query.toString(), containsString("analyzer[standard]"));
+    }
+
+    public void testInvalidFields() throws IOException {
+        QueryShardContext context = createShardContext();
+        assertThat(
+            new ExactPhraseQueryBuilder(TEXT_FIELD_NAME, "quick brown", "unmapped").toQuery(context),
+            instanceOf(MatchNoDocsQuery.class)
+        );
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new ExactPhraseQueryBuilder(TEXT_FIELD_NAME, "quick brown", DATE_FIELD_NAME).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("requires an integer count_field with doc values"));
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new ExactPhraseQueryBuilder(TEXT_FIELD_NAME, "quick brown", INT_FIELD_NAME).analyzer("does_not_exist").toQuery(context)
+        );
+        assertThat(e.getMessage(), equalTo("[exact_phrase] analyzer [does_not_exist] not found"));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.SimpleAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.opensearch.index.analysis.AnalyzerScope;
+import org.opensearch.index.analysis.CharFilterFactory;
+import org.opensearch.index.analysis.CustomAnalyzer;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.analysis.TokenFilterFactory;
+import org.opensearch.index.analysis.TokenizerFactory;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+public class FastTokenCountersTests extends OpenSearchTestCase {
+
+    // characters with distinct word break behaviour, plus a few that send the counters to the generic path
+    private static final String STANDARD_CHARS = "aZq09_:.,;' \t\n-\"/()!?#*é中";
+    private static final String WHITESPACE_CHARS = "ab1.-_ \t\n\r  　😀";
+
+    public void testStandardMatchesTokenStream() throws IOException {
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        for (int i = 0; i < 1000; i++) {
+            assertSameCount(analyzer, randomText(STANDARD_CHARS, 30));
+        }
+        StandardAnalyzer shortTokens = new StandardAnalyzer();
+        shortTokens.setMaxTokenLength(5);
+        for (int i = 0; i < 200; i++) {
+            assertSameCount(shortTokens, randomText(STANDARD_CHARS, 30));
+        }
+    }
+
+    public void testStandardWordBreaks() throws IOException {
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        for (String text : new String[] {
+            "U.S.A.",
+            "don't stop",
+            "3.14 and 1,000,000",
+            "a:b 1:2 a.1 1.a",
+            "a..b",
+            "__ _a_ b__c",
+            "wi-fi router",
+            "x1.2y",
+            "'quoted' \"double\"" }) {
+            assertSameCount(analyzer, text);
+        }
+        assertThat(FastTokenCounters.forAnalyzer(analyzer).count("wi-fi router", Integer.MAX_VALUE, Integer.MAX_VALUE), equalTo(3));
+        assertThat(FastTokenCounters.forAnalyzer(analyzer).count("café", Integer.MAX_VALUE, Integer.MAX_VALUE), equalTo(-1));
+    }
+
+    public void testWhitespaceMatchesTokenStream() throws IOException {
+        WhitespaceAnalyzer analyzer = new WhitespaceAnalyzer();
+        for (int i = 0; i < 1000; i++) {
+            assertSameCount(analyzer, randomText(WHITESPACE_CHARS, 30));
+        }
+        // runs longer than the maximum token length are split by the tokenizer
+        assertSameCount(analyzer, randomAlphaOfLength(255) + " " + randomAlphaOfLength(3));
+        assertSameCount(analyzer, randomAlphaOfLength(256) + " " + randomAlphaOfLength(3));
+        assertSameCount(analyzer, randomAlphaOfLength(600));
+    }
+
+    public void testKeywordMatchesTokenStream() throws IOException {
+        KeywordAnalyzer analyzer = new KeywordAnalyzer();
+        for (int i = 0; i < 100; i++) {
+            assertSameCount(analyzer, randomText(WHITESPACE_CHARS, 30));
+        }
+    }
+
+    public void testNamedAnalyzersAreUnwrapped() throws IOException {
+        NamedAnalyzer named = new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer());
+        assertThat(FastTokenCounters.forAnalyzer(named).count("quick brown fox", Integer.MAX_VALUE, Integer.MAX_VALUE), equalTo(3));
+        assertSameCount(named, randomText(STANDARD_CHARS, 30));
+    }
+
+    public void testCustomLowercaseChainsMatchTokenStream() throws IOException {
+        // the filters are recognized by what they create, whatever name they are configured under
+        CustomAnalyzer standard = custom(
+            TokenizerFactory.newFactory("standard", StandardTokenizer::new),
+            filter("my_lowercase", LowerCaseFilter::new)
+        );
+        CustomAnalyzer keyword = custom(
+            TokenizerFactory.newFactory("keyword", KeywordTokenizer::new),
+            filter("lowercase", LowerCaseFilter::new),
+            filter("lowercase_again", LowerCaseFilter::new)
+        );
+        for (Analyzer analyzer : new Analyzer[] { standard, keyword }) {
+            assertThat(
+                FastTokenCounters.forAnalyzer(analyzer).count("The Quick Brown Fox", Integer.MAX_VALUE, Integer.MAX_VALUE),
+                not(equalTo(FastTokenCounters.UNSUPPORTED))
+            );
+            for (int i = 0; i < 500; i++) {
+                assertSameCount(analyzer, randomText(STANDARD_CHARS, 30));
+            }
+        }
+    }
+
+    public void testCustomChainsWithOtherFiltersUseTokenStream() throws IOException {
+        // a filter named lowercase that removes tokens must not be counted by scanning
+        CustomAnalyzer misnamed = custom(
+            TokenizerFactory.newFactory("standard", StandardTokenizer::new),
+            filter("lowercase", in -> new StopFilter(in, EnglishAnalyzer.ENGLISH_STOP_WORDS_SET))
+        );
+        assertThat(
+            FastTokenCounters.forAnalyzer(misnamed).count("the quick brown fox", Integer.MAX_VALUE, Integer.MAX_VALUE),
+            equalTo(FastTokenCounters.UNSUPPORTED)
+        );
+        assertSameCount(misnamed, "the quick brown fox");
+    }
+
+    private static CustomAnalyzer custom(TokenizerFactory tokenizer, TokenFilterFactory... filters) {
+        return new CustomAnalyzer(tokenizer, new CharFilterFactory[0], filters);
+    }
+
+    private static TokenFilterFactory filter(String name, UnaryOperator<TokenStream> create) {
+        return new TokenFilterFactory() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public TokenStream create(TokenStream tokenStream) {
+                return create.apply(tokenStream);
+            }
+        };
+    }
+
+    public void testUnknownChainsUseTokenStream() throws IOException {
+        for (Analyzer analyzer : new Analyzer[] {
+            new StandardAnalyzer(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET),
+            new SimpleAnalyzer(),
+            new EnglishAnalyzer() }) {
+            assertThat(
+                FastTokenCounters.forAnalyzer(analyzer).count("the quick brown fox", Integer.MAX_VALUE, Integer.MAX_VALUE),
+                equalTo(FastTokenCounters.UNSUPPORTED)
+            );
+            assertSameCount(analyzer, "the quick brown fox");
+        }
+    }
+
+    private static String randomText(String chars, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        for (int i = randomIntBetween(1, maxLength); i > 0; i--) {
+            text.append(chars.charAt(randomIntBetween(0, chars.length() - 1)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Checks that the scanning counter, when it accepts the text, agrees with the token stream for every
+     * count mode and for random limits, including the limits that make the token stream fail.
+     */
+    private static void assertSameCount(Analyzer analyzer, String text) throws IOException {
+        int stopAfter = randomBoolean() ? Integer.MAX_VALUE : randomIntBetween(0, 10);
+        int maxTokens = randomBoolean() ? Integer.MAX_VALUE : randomIntBetween(1, 10);
+        for (TokenCountAnalyzer.CountMode mode : TokenCountAnalyzer.CountMode.values()) {
+            Integer expected;
+            try {
+                expected = TokenCountAnalyzer.countWithTokenStream(analyzer, text, stopAfter, maxTokens, mode);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+            Integer actual;
+            try {
+                actual = TokenCountAnalyzer.countTokens(analyzer, text, stopAfter, maxTokens, mode);
+            } catch (IllegalArgumentException e) {
+                actual = null;
+            }
+            assertThat("[" + text + "] " + mode + " stopAfter=" + stopAfter + " maxTokens=" + maxTokens, actual, equalTo(expected));
+        }
+        int fast = FastTokenCounters.forAnalyzer(analyzer).count(text, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        if (fast != FastTokenCounters.UNSUPPORTED) {
+            assertThat(
+                "[" + text + "]",
+                fast,
+                equalTo(
+                    TokenCountAnalyzer.countWithTokenStream(
+                        analyzer,
+                        text,
+                        Integer.MAX_VALUE,
+                        Integer.MAX_VALUE,
+                        TokenCountAnalyzer.CountMode.POSITIONS
+                    )
+                )
+            );
+        }
+    }
+}
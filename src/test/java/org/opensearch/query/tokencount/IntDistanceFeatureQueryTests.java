@@ -0,0 +1,101 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.store.Directory;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class IntDistanceFeatureQueryTests extends OpenSearchTestCase {
+
+    public void testDistance() {
+        IntDistanceFeatureQuery query = new IntDistanceFeatureQuery("field", new int[] { 3, 10 }, 2);
+        assertThat(query.distance(3), equalTo(0L));
+        assertThat(query.distance(0), equalTo(3L));
+        assertThat(query.distance(6), equalTo(3L));
+        assertThat(query.distance(8), equalTo(2L));
+        assertThat(query.distance(25), equalTo(15L));
+    }
+
+    public void testMaxDistance() {
+        // a document at the pivot scores half of the boost
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(4, 2f, 1f), equalTo(5L));
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(4, 2f, 2f), equalTo(1L));
+        // minimum scores that leave every distance competitive do not overflow into a negative window
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(4, 2f, 0f), equalTo(1L << 32));
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(4, 2f, Float.MIN_VALUE), equalTo(1L << 32));
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(Integer.MAX_VALUE, Float.MAX_VALUE, 1e-30f), equalTo(1L << 32));
+        assertThat(IntDistanceFeatureQuery.computeMaxDistance(0, 0f, 0f), equalTo(1L << 32));
+    }
+
+    public void testScoresByClosenessAndSkips() throws IOException {
+        int numDocs = randomIntBetween(2000, 5000);
+        int[] values = new int[numDocs];
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+                for (int i = 0; i < numDocs; i++) {
+                    values[i] = randomIntBetween(0, 500);
+                    Document doc = new Document();
+                    doc.add(new IntPoint("field", values[i]));
+                    doc.add(new SortedNumericDocValuesField("field", values[i]));
+                    writer.addDocument(doc);
+                }
+                // a document without a count never matches
+                writer.addDocument(new Document());
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                int origin = randomIntBetween(0, 500);
+                int pivot = randomIntBetween(1, 20);
+                Query query = new IntDistanceFeatureQuery("field", new int[] { origin }, pivot);
+                assertThat(searcher.count(query), equalTo(numDocs));
+
+                int k = randomIntBetween(1, 10);
+                TopDocs exhaustive = searcher.search(query, new TopScoreDocCollectorManager(k, Integer.MAX_VALUE));
+                TopDocs skipping = searcher.search(query, new TopScoreDocCollectorManager(k, 1));
+                assertThat(skipping.scoreDocs.length, equalTo(k));
+                for (int i = 0; i < k; i++) {
+                    assertThat(skipping.scoreDocs[i].score, equalTo(exhaustive.scoreDocs[i].score));
+                }
+                long previousDistance = 0;
+                for (ScoreDoc scoreDoc : skipping.scoreDocs) {
+                    long distance = Math.abs(values[scoreDoc.doc] - origin);
+                    assertThat(previousDistance, lessThanOrEqualTo(distance));
+                    previousDistance = distance;
+                    Explanation explanation = searcher.explain(query, scoreDoc.doc);
+                    assertThat(explanation.getValue().floatValue(), equalTo(scoreDoc.score));
+                }
+            }
+        }
+    }
+
+    public void testEqualsAndHashCode() {
+        Query query = new IntDistanceFeatureQuery("field", new int[] { 3, 5 }, 2);
+        assertThat(query, equalTo(new IntDistanceFeatureQuery("field", new int[] { 3, 5 }, 2)));
+        assertThat(query.hashCode(), equalTo(new IntDistanceFeatureQuery("field", new int[] { 3, 5 }, 2).hashCode()));
+        assertNotEquals(query, new IntDistanceFeatureQuery("field", new int[] { 3 }, 2));
+        assertNotEquals(query, new IntDistanceFeatureQuery("field", new int[] { 3, 5 }, 3));
+        assertNotEquals(query, new IntDistanceFeatureQuery("other", new int[] { 3, 5 }, 2));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class NormLengthQueryTests extends OpenSearchTestCase {
+
+    private static final int MAX_LENGTH = 200;
+
+    public void testMatchesDecodedNormLength() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig(new WhitespaceAnalyzer());
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                for (int length = 1; length <= MAX_LENGTH; length++) {
+                    Document doc = new Document();
+                    doc.add(new TextField("body", String.join(" ", Collections.nCopies(length, "w")), Field.Store.NO));
+                    doc.add(new IntPoint("length", length));
+                    writer.addDocument(doc);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (int length = 1; length <= NormLengthQuery.MAX_EXACT_LENGTH; length++) {
+                    for (TokenCountQueryBuilder.Operator operator : TokenCountQueryBuilder.Operator.values()) {
+                        Query approximate = NormLengthQuery.create("body", new int[] { length }, operator);
+                        Query exact = TokenCountQueryHelper.createQuery("length", length, operator);
+                        assertThat(operator + " " + length, searcher.count(approximate), equalTo(searcher.count(exact)));
+                    }
+                }
+
+                // beyond the exact range the query never misses a document, it may only match extra ones
+                int length = randomIntBetween(NormLengthQuery.MAX_EXACT_LENGTH + 1, MAX_LENGTH);
+                for (TokenCountQueryBuilder.Operator operator : TokenCountQueryBuilder.Operator.values()) {
+                    Query approximate = NormLengthQuery.create("body", new int[] { length }, operator);
+                    Query exact = TokenCountQueryHelper.createQuery("length", length, operator);
+                    assertThat(operator + " " + length, searcher.count(approximate), greaterThanOrEqualTo(searcher.count(exact)));
+                    assertThat(operator + " " + length, searcher.count(approximate), lessThanOrEqualTo(searcher.count(exact) + length / 8));
+                }
+            }
+        }
+    }
+
+    public void testValuesWithoutTokensHaveLengthZero() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+                for (String body : new String[] { "", "quick brown" }) {
+                    Document doc = new Document();
+                    doc.add(new TextField("body", body, Field.Store.NO));
+                    writer.addDocument(doc);
+                }
+                // a document without the field has no norm
+                writer.addDocument(new Document());
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                Query empty = NormLengthQuery.create("body", new int[] { 0 }, TokenCountQueryBuilder.Operator.EQ);
+                assertThat(searcher.count(empty), equalTo(1));
+                Query atMostOne = NormLengthQuery.create("body", new int[] { 1 }, TokenCountQueryBuilder.Operator.LTE);
+                assertThat(searcher.count(atMostOne), equalTo(1));
+                Query any = NormLengthQuery.create("body", new int[] { 0 }, TokenCountQueryBuilder.Operator.GTE);
+                assertThat(searcher.count(any), equalTo(2));
+            }
+        }
+    }
+
+    public void testEqualsAndHashCode() {
+        Query query = NormLengthQuery.create("body", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ);
+        assertThat(query, equalTo(NormLengthQuery.create("body", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ)));
+        Query same = NormLengthQuery.create("body", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ);
+        assertThat(query.hashCode(), equalTo(same.hashCode()));
+        assertNotEquals(query, NormLengthQuery.create("body", new int[] { 3 }, TokenCountQueryBuilder.Operator.EQ));
+        assertNotEquals(query, NormLengthQuery.create("title", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class PhraseCountQueryTests extends OpenSearchTestCase {
+
+    private static final String[] WORDS = { "quick", "brown", "fox", "lazy", "dog" };
+
+    public void testMatchesPhraseWithCount() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+                int numDocs = randomIntBetween(50, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    List<String> tokens = new ArrayList<>();
+                    for (int j = randomIntBetween(1, 6); j > 0; j--) {
+                        tokens.add(randomFrom(WORDS));
+                    }
+                    Document doc = new Document();
+                    doc.add(new TextField("body", String.join(" ", tokens), Field.Store.NO));
+                    doc.add(new SortedNumericDocValuesField("body_words", tokens.size()));
+                    writer.addDocument(doc);
+                }
+                // a document without a count never matches
+                Document doc = new Document();
+                doc.add(new TextField("body", "quick brown", Field.Store.NO));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (int i = 0; i < 20; i++) {
+                    PhraseQuery.Builder phrase = new PhraseQuery.Builder();
+                    int length = randomIntBetween(1, 3);
+                    for (int j = 0; j < length; j++) {
+                        phrase.add(new Term("body", randomFrom(WORDS)));
+                    }
+                    int count = randomIntBetween(length, 6);
+                    Query expected = new BooleanQuery.Builder().add(phrase.build(), BooleanClause.Occur.MUST)
+                        .add(SortedNumericDocValuesField.newSlowExactQuery("body_words", count), BooleanClause.Occur.FILTER)
+                        .build();
+                    Query query = new PhraseCountQuery(phrase.build(), "body_words", count);
+                    assertThat(query.toString(), searcher.count(query), equalTo(searcher.count(expected)));
+
+                    // scores are those of the phrase
+                    TopDocs topDocs = searcher.search(query, 10);
+                    TopDocs phraseDocs = searcher.search(expected, 10);
+                    assertThat(topDocs.scoreDocs.length, equalTo(phraseDocs.scoreDocs.length));
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        Explanation explanation = searcher.explain(query, scoreDoc.doc);
+                        assertTrue(explanation.isMatch());
+                        assertThat(explanation.getValue().floatValue(), equalTo(scoreDoc.score));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testExplainCountMismatch() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+                Document doc = new Document();
+                doc.add(new TextField("body", "quick brown fox", Field.Store.NO));
+                doc.add(new SortedNumericDocValuesField("body_words", 3));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                Query phrase = new PhraseQuery("body", "quick", "brown");
+                assertThat(searcher.count(new PhraseCountQuery(phrase, "body_words", 2)), equalTo(0));
+                assertThat(searcher.count(new PhraseCountQuery(phrase, "body_words", 3)), equalTo(1));
+                Explanation explanation = searcher.explain(new PhraseCountQuery(phrase, "body_words", 2), 0);
+                assertFalse(explanation.isMatch());
+            }
+        }
+    }
+
+    public void testEqualsAndHashCode() {
+        Query phrase = new PhraseQuery("body", "quick", "brown");
+        PhraseCountQuery query = new PhraseCountQuery(phrase, "body_words", 2);
+        assertThat(query, equalTo(new PhraseCountQuery(new PhraseQuery("body", "quick", "brown"), "body_words", 2)));
+        assertThat(query.hashCode(), equalTo(new PhraseCountQuery(phrase, "body_words", 2).hashCode()));
+        assertNotEquals(query, new PhraseCountQuery(phrase, "body_words", 3));
+        assertNotEquals(query, new PhraseCountQuery(phrase, "other_words", 2));
+        assertNotEquals(query, new PhraseCountQuery(new PhraseQuery("body", "quick", "fox"), "body_words", 2));
+    }
+}
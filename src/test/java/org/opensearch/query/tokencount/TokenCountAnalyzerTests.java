@@ -0,0 +1,79 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.StopAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.tests.analysis.MockTokenizer;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.opensearch.query.tokencount.TokenCountAnalyzer.CountMode.POSITIONS;
+
+public class TokenCountAnalyzerTests extends OpenSearchTestCase {
+
+    public void testCountsPositions() throws IOException {
+        StopAnalyzer analyzer = new StopAnalyzer(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        // "the" is removed but still occupies a position
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "the quick brown fox"), equalTo(4));
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "quick brown fox the"), equalTo(4));
+    }
+
+    public void testStopsAfterLimit() throws IOException {
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "one two three four five", 3, Integer.MAX_VALUE), equalTo(3));
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "one two", 3, Integer.MAX_VALUE), equalTo(2));
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "one two", 0, Integer.MAX_VALUE), equalTo(0));
+    }
+
+    public void testEndsStreamsThatStoppedEarly() throws IOException {
+        // the consumer checks only accept a stream that is exhausted before it is ended
+        Analyzer checked = mockAnalyzer(true);
+        assertThat(TokenCountAnalyzer.countWithTokenStream(checked, "one two three", 4, Integer.MAX_VALUE, POSITIONS), equalTo(3));
+        assertThat(TokenCountAnalyzer.countWithTokenStream(checked, "one two", 3, Integer.MAX_VALUE, POSITIONS), equalTo(2));
+
+        // like LimitTokenCountFilter, a count that is decided ends the stream without reading the rest of the text
+        Analyzer unchecked = mockAnalyzer(false);
+        assertThat(TokenCountAnalyzer.countWithTokenStream(unchecked, "one two three four", 2, Integer.MAX_VALUE, POSITIONS), equalTo(2));
+        // and the reused stream counts the next text in full
+        assertThat(
+            TokenCountAnalyzer.countWithTokenStream(unchecked, "one two three four", Integer.MAX_VALUE, Integer.MAX_VALUE, POSITIONS),
+            equalTo(4)
+        );
+    }
+
+    public void testMaxTokens() throws IOException {
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "one two three", Integer.MAX_VALUE, 3), equalTo(3));
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> TokenCountAnalyzer.countTokens(analyzer, "one two three four", Integer.MAX_VALUE, 3)
+        );
+        assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING.getKey()));
+
+        // the limit only applies until the count is decided
+        assertThat(TokenCountAnalyzer.countTokens(analyzer, "one two three four", 2, 3), equalTo(2));
+    }
+
+    private static Analyzer mockAnalyzer(boolean enableChecks) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                MockTokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+                tokenizer.setEnableChecks(enableChecks);
+                return new TokenStreamComponents(tokenizer);
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.opensearch.test.OpenSearchTestCase;
+import org.opensearch.threadpool.TestThreadPool;
+import org.opensearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountBatchAnalyzerTests extends OpenSearchTestCase {
+
+    public void testParallelCountsMatchSequentialCounts() throws IOException {
+        List<String> texts = randomList(
+            TokenCountBatchAnalyzer.PARALLEL_THRESHOLD,
+            TokenCountBatchAnalyzer.PARALLEL_THRESHOLD * 4,
+            () -> String.join(" ", randomList(1, 20, () -> randomAlphaOfLengthBetween(1, 8)))
+        );
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        TokenCountBatchAnalyzer.Counter counter = text -> TokenCountAnalyzer.countTokens(analyzer, text);
+
+        int[] sequential = TokenCountBatchAnalyzer.countAll(texts, counter, null);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            int[] parallel = TokenCountBatchAnalyzer.countAll(texts, counter, threadPool.executor(ThreadPool.Names.SEARCH));
+            assertThat(parallel, equalTo(sequential));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testFailurePropagates() {
+        List<String> texts = randomList(
+            TokenCountBatchAnalyzer.PARALLEL_THRESHOLD,
+            TokenCountBatchAnalyzer.PARALLEL_THRESHOLD * 2,
+            () -> randomAlphaOfLengthBetween(1, 8)
+        );
+        TokenCountBatchAnalyzer.Counter counter = text -> { throw new IOException("boom"); };
+
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            IOException e = expectThrows(
+                IOException.class,
+                () -> TokenCountBatchAnalyzer.countAll(texts, counter, threadPool.executor(ThreadPool.Names.SEARCH))
+            );
+            assertThat(e.getMessage(), equalTo("boom"));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+}
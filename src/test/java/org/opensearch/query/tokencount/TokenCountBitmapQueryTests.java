@@ -0,0 +1,177 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountBitmapQueryTests extends OpenSearchTestCase {
+
+    private static final int MAX_COUNT = 16;
+
+    public void testMatchesLikeDocValues() throws IOException {
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+                int numDocs = randomIntBetween(50, 500);
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    // some documents have no count, some several, a few hold negative values or repeat a value
+                    int numValues = randomIntBetween(0, 3);
+                    for (int j = 0; j < numValues; j++) {
+                        doc.add(new SortedNumericDocValuesField("count", randomIntBetween(-2, 2 * MAX_COUNT)));
+                    }
+                    writer.addDocument(doc);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (TokenCountQueryBuilder.Operator operator : TokenCountQueryBuilder.Operator.values()) {
+                    for (int count = 0; count <= MAX_COUNT; count++) {
+                        assertSameMatches(searcher, bitmaps, operator, count);
+                    }
+                    assertSameMatches(searcher, bitmaps, operator, 1, 4, 7);
+                }
+            }
+            // closing the reader released the bitmaps of its segments
+            assertThat(bitmaps.count(), equalTo(0));
+        }
+    }
+
+    private static void assertSameMatches(
+        IndexSearcher searcher,
+        TokenCountBitmaps bitmaps,
+        TokenCountQueryBuilder.Operator operator,
+        int... counts
+    ) throws IOException {
+        Query query = TokenCountBitmapQuery.create("count", counts, operator, MAX_COUNT, bitmaps);
+        if (query == null) {
+            return;
+        }
+        Query expected = TokenCountQueryHelper.createDocValuesQuery("count", counts, operator);
+        assertThat(operator + " " + Arrays.toString(counts), searcher.count(query), equalTo(searcher.count(expected)));
+    }
+
+    public void testBitmapsAreRebuiltWhenTheMaxCountChanges() throws IOException {
+        AtomicLong used = new AtomicLong();
+        NoopCircuitBreaker breaker = new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME) {
+            @Override
+            public double addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                return used.addAndGet(bytes);
+            }
+
+            @Override
+            public long addWithoutBreaking(long bytes) {
+                return used.addAndGet(bytes);
+            }
+        };
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(breaker);
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+                for (int i = 0; i < 20; i++) {
+                    Document doc = new Document();
+                    doc.add(new SortedNumericDocValuesField("count", i));
+                    writer.addDocument(doc);
+                }
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                LeafReader leaf = reader.leaves().get(0).reader();
+                TokenCountBitmaps.Segment small = bitmaps.get(leaf, "count", 4);
+                assertSame(small, bitmaps.get(leaf, "count", 4));
+
+                TokenCountBitmaps.Segment large = bitmaps.get(leaf, "count", MAX_COUNT);
+                assertThat(large.maxCount(), equalTo(MAX_COUNT));
+                assertThat(large.cardinality(10), equalTo(1));
+                // one set of bitmaps per field, the replaced one is released
+                assertThat(bitmaps.count(), equalTo(1));
+                assertThat(used.get(), equalTo(large.ramBytesUsed()));
+            }
+            assertThat(used.get(), equalTo(0L));
+        }
+    }
+
+    public void testBitmapsAreBuiltOnlyWhenTheyLead() throws IOException {
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+                for (int i = 0; i < 200; i++) {
+                    Document doc = new Document();
+                    doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+                    doc.add(new SortedNumericDocValuesField("count", i % 4));
+                    writer.addDocument(doc);
+                }
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                int[] counts = { 1, 2 };
+                Query query = new IndexOrDocValuesQuery(
+                    TokenCountBitmapQuery.create("count", counts, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps),
+                    TokenCountQueryHelper.createDocValuesQuery("count", counts, TokenCountQueryBuilder.Operator.EQ)
+                );
+
+                // a more selective clause leads and checks the doc values of its single candidate
+                Query selective = new BooleanQuery.Builder().add(new TermQuery(new Term("id", "5")), BooleanClause.Occur.FILTER)
+                    .add(query, BooleanClause.Occur.FILTER)
+                    .build();
+                assertThat(searcher.count(selective), equalTo(1));
+                assertThat(bitmaps.count(), equalTo(0));
+
+                // leading, the query builds the bitmaps and iterates the union of two of them
+                assertThat(searcher.count(query), equalTo(100));
+                assertThat(bitmaps.count(), equalTo(1));
+                assertThat(searcher.count(selective), equalTo(1));
+            }
+        }
+    }
+
+    public void testOnlyComparisonsWithinTheBitmapsAreAnswered() {
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        assertNotNull(TokenCountBitmapQuery.create("count", new int[] { 15 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps));
+        assertNotNull(TokenCountBitmapQuery.create("count", new int[] { 15 }, TokenCountQueryBuilder.Operator.LTE, MAX_COUNT, bitmaps));
+        assertNotNull(TokenCountBitmapQuery.create("count", new int[] { 16 }, TokenCountQueryBuilder.Operator.LT, MAX_COUNT, bitmaps));
+        assertNull(TokenCountBitmapQuery.create("count", new int[] { 16 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps));
+        assertNull(TokenCountBitmapQuery.create("count", new int[] { 3, 16 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps));
+        assertNull(TokenCountBitmapQuery.create("count", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT, MAX_COUNT, bitmaps));
+        assertNull(TokenCountBitmapQuery.create("count", new int[] { 3 }, TokenCountQueryBuilder.Operator.GTE, MAX_COUNT, bitmaps));
+    }
+
+    public void testEqualsAndHashCode() {
+        TokenCountBitmaps bitmaps = new TokenCountBitmaps(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        Query query = TokenCountBitmapQuery.create("count", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps);
+        Query same = TokenCountBitmapQuery.create("count", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps);
+        assertThat(query, equalTo(same));
+        assertThat(query.hashCode(), equalTo(same.hashCode()));
+        Query other = TokenCountBitmapQuery.create("count", new int[] { 3 }, TokenCountQueryBuilder.Operator.EQ, MAX_COUNT, bitmaps);
+        assertNotEquals(query, other);
+        assertNotEquals(query, TokenCountBitmapQuery.create("count", new int[] { 3, 5 }, TokenCountQueryBuilder.Operator.EQ, 8, bitmaps));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.core.index.Index;
+import org.opensearch.index.analysis.AnalyzerScope;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.query.tokencount.stats.TokenCountStats;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountCacheTests extends OpenSearchTestCase {
+
+    private TokenCountCache newCache() {
+        return new TokenCountCache(Settings.builder().put(TokenCountCache.CACHE_SIZE_SETTING.getKey(), "1mb").build());
+    }
+
+    private static TokenCountServices newServices(TokenCountCache cache) {
+        TokenCountServices services = new TokenCountServices();
+        services.initialize(
+            cache,
+            null,
+            null,
+            new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME),
+            new TokenCountStats(),
+            new TokenCountFieldResolver(),
+            TokenCountColumns.uncached(),
+            null
+        );
+        return services;
+    }
+
+    private static int count(TokenCountServices services, Index index, NamedAnalyzer analyzer, String text) throws IOException {
+        return services.count(index, analyzer, TokenCountAnalyzer.CountMode.POSITIONS, text, limits(Integer.MAX_VALUE));
+    }
+
+    private static AnalysisLimits limits(int maxTextChars) {
+        return new AnalysisLimits("the text", maxTextChars, TokenCountAnalyzer.MAX_TEXT_CHARS_LIMIT, Integer.MAX_VALUE);
+    }
+
+    public void testCachesCountPerAnalyzerAndText() throws IOException {
+        TokenCountCache cache = newCache();
+        TokenCountServices services = newServices(cache);
+        Index index = new Index("test", "_na_");
+        NamedAnalyzer analyzer = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+
+        assertThat(count(services, index, analyzer, "quick brown fox"), equalTo(3));
+        assertThat(count(services, index, analyzer, "quick brown fox"), equalTo(3));
+        assertThat(cache.count(), equalTo(1));
+        assertThat(services.stats().snapshot(0, 0).cacheHits(), equalTo(1L));
+
+        assertThat(count(services, index, analyzer, "quick fox"), equalTo(2));
+        assertThat(cache.count(), equalTo(2));
+    }
+
+    public void testReplacedAnalyzerDoesNotHitStaleEntries() throws IOException {
+        TokenCountCache cache = newCache();
+        TokenCountServices services = newServices(cache);
+        Index index = new Index("test", "_na_");
+        NamedAnalyzer before = new NamedAnalyzer("my_analyzer", AnalyzerScope.INDEX, new StandardAnalyzer());
+        NamedAnalyzer after = new NamedAnalyzer("my_analyzer", AnalyzerScope.INDEX, new StandardAnalyzer());
+
+        count(services, index, before, "quick brown fox");
+        count(services, index, after, "quick brown fox");
+        assertThat(cache.count(), equalTo(2));
+    }
+
+    public void testInvalidateIndex() throws IOException {
+        TokenCountCache cache = newCache();
+        TokenCountServices services = newServices(cache);
+        Index first = new Index("first", "_na_");
+        Index second = new Index("second", "_na_");
+        NamedAnalyzer analyzer = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+
+        count(services, first, analyzer, "quick brown fox");
+        count(services, second, analyzer, "quick brown fox");
+        cache.invalidate(first);
+        assertThat(cache.count(), equalTo(1));
+    }
+
+    public void testDisabledCacheStillCounts() throws IOException {
+        TokenCountCache cache = new TokenCountCache(
+            Settings.builder().put(TokenCountCache.CACHE_SIZE_SETTING.getKey(), "0b").build()
+        );
+        NamedAnalyzer analyzer = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+
+        assertThat(count(newServices(cache), new Index("test", "_na_"), analyzer, "quick brown fox"), equalTo(3));
+        assertThat(cache.count(), equalTo(0));
+    }
+
+    public void testLimitsApplyToCachedTexts() throws IOException {
+        TokenCountServices services = newServices(newCache());
+        Index index = new Index("test", "_na_");
+        NamedAnalyzer analyzer = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+        count(services, index, analyzer, "quick brown fox");
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> services.count(index, analyzer, TokenCountAnalyzer.CountMode.POSITIONS, "quick brown fox", limits(10))
+        );
+        assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getKey()));
+    }
+}
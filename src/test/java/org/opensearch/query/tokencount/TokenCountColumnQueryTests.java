@@ -0,0 +1,204 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.core.tasks.TaskCancelledException;
+import org.opensearch.index.analysis.AnalyzerScope;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class TokenCountColumnQueryTests extends OpenSearchTestCase {
+
+    private static final NamedAnalyzer WHITESPACE = new NamedAnalyzer("whitespace", AnalyzerScope.INDEX, new WhitespaceAnalyzer());
+    private static final Set<String> PATHS = Collections.singleton("body");
+
+    private static void addDocument(IndexWriter writer, String id, String source) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField("_id", id, Field.Store.NO));
+        doc.add(new StoredField("_source", source.getBytes(StandardCharsets.UTF_8)));
+        writer.addDocument(doc);
+    }
+
+    private static void index(Directory dir) throws IOException {
+        try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+            addDocument(writer, "1", "{\"body\":\"quick brown fox\"}");
+            addDocument(writer, "2", "{\"body\":\"the lazy dog sleeps\"}");
+            addDocument(writer, "3", "{\"body\":[\"a b\",\"c d e f g\"]}");
+            addDocument(writer, "4", "{\"title\":\"no body at all\"}");
+            addDocument(writer, "5", "{\"body\":\"one two three\"}");
+            writer.deleteDocuments(new Term("_id", "5"));
+        }
+    }
+
+    private static TokenCountColumnQuery query(TokenCountColumns columns, TokenCountQueryBuilder.Operator operator, int... counts) {
+        return new TokenCountColumnQuery("body", PATHS, WHITESPACE, counts, operator, 1000, 100, columns);
+    }
+
+    public void testMatchesExactCountsOfEveryValue() throws IOException {
+        TokenCountColumns columns = new TokenCountColumns(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        try (Directory dir = newDirectory()) {
+            index(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                // the deleted document also counts three tokens, but the live docs filter it out
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 3)), equalTo(1));
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 2)), equalTo(1));
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 4, 5)), equalTo(2));
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.GT, 3)), equalTo(2));
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.LTE, 3)), equalTo(2));
+                // documents without a value never match, not even on a lower bound of zero
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.GTE, 0)), equalTo(3));
+            }
+        }
+    }
+
+    public void testColumnsAreAccountedAndReleasedWithTheirSegment() throws IOException {
+        AtomicLong used = new AtomicLong();
+        NoopCircuitBreaker breaker = new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME) {
+            @Override
+            public double addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                return used.addAndGet(bytes);
+            }
+
+            @Override
+            public long addWithoutBreaking(long bytes) {
+                return used.addAndGet(bytes);
+            }
+        };
+        TokenCountColumns columns = new TokenCountColumns(breaker);
+        try (Directory dir = newDirectory()) {
+            index(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                // a plain searcher, so that the query cache does not hide repeated executions
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 3));
+                assertThat(columns.count(), equalTo(reader.leaves().size()));
+                long bytes = columns.ramBytesUsed();
+                assertThat(bytes, greaterThan(0L));
+                assertThat(used.get(), equalTo(bytes));
+
+                // later queries on the same segments reuse the columns
+                searcher.count(query(columns, TokenCountQueryBuilder.Operator.GT, 1));
+                assertThat(columns.count(), equalTo(reader.leaves().size()));
+                assertThat(used.get(), equalTo(bytes));
+            }
+            assertThat(columns.count(), equalTo(0));
+            assertThat(columns.ramBytesUsed(), equalTo(0L));
+            assertThat(used.get(), equalTo(0L));
+        }
+    }
+
+    public void testDeletesAfterTheBuildAreFilteredByLiveDocs() throws IOException {
+        TokenCountColumns columns = new TokenCountColumns(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+            addDocument(writer, "1", "{\"body\":\"quick brown fox\"}");
+            addDocument(writer, "2", "{\"body\":\"one two three\"}");
+            writer.commit();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                assertThat(searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 3)), equalTo(2));
+                writer.deleteDocuments(new Term("_id", "2"));
+                try (DirectoryReader reopened = DirectoryReader.openIfChanged(reader, writer)) {
+                    // the segment keeps its core and so its column, the new live docs drop the deleted document
+                    IndexSearcher reopenedSearcher = new IndexSearcher(reopened);
+                    reopenedSearcher.setQueryCache(null);
+                    assertThat(reopenedSearcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 3)), equalTo(1));
+                    assertThat(columns.count(), equalTo(1));
+                }
+            }
+        }
+    }
+
+    public void testBuildsRespectTheAnalysisLimits() throws IOException {
+        TokenCountColumns columns = new TokenCountColumns(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        try (Directory dir = newDirectory()) {
+            index(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                TokenCountColumnQuery tooLong = new TokenCountColumnQuery(
+                    "body",
+                    PATHS,
+                    WHITESPACE,
+                    new int[] { 3 },
+                    TokenCountQueryBuilder.Operator.EQ,
+                    5,
+                    100,
+                    columns
+                );
+                IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> searcher.count(tooLong));
+                assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getKey()));
+
+                TokenCountColumnQuery tooManyTokens = new TokenCountColumnQuery(
+                    "body",
+                    PATHS,
+                    WHITESPACE,
+                    new int[] { 3 },
+                    TokenCountQueryBuilder.Operator.EQ,
+                    1000,
+                    2,
+                    columns
+                );
+                e = expectThrows(IllegalArgumentException.class, () -> searcher.count(tooManyTokens));
+                assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_ANALYZED_TOKENS_SETTING.getKey()));
+                // failed builds hold no memory
+                assertThat(columns.ramBytesUsed(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testBuildsStopWhenTheSearchIsCancelled() throws IOException {
+        try (Directory dir = newDirectory()) {
+            index(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                searcher.setQueryCache(null);
+                TokenCountColumns columns = new TokenCountColumns(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME)) {
+                    @Override
+                    Runnable cancellationCheck(IndexSearcher s) {
+                        return () -> { throw new TaskCancelledException("cancelled"); };
+                    }
+                };
+                expectThrows(TaskCancelledException.class, () -> searcher.count(query(columns, TokenCountQueryBuilder.Operator.EQ, 3)));
+                assertThat(columns.ramBytesUsed(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testEqualsAndHashCode() {
+        TokenCountColumns columns = new TokenCountColumns(new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+        TokenCountColumnQuery query = query(columns, TokenCountQueryBuilder.Operator.EQ, 3, 5);
+        assertThat(query, equalTo(query(columns, TokenCountQueryBuilder.Operator.EQ, 3, 5)));
+        assertThat(query.hashCode(), equalTo(query(columns, TokenCountQueryBuilder.Operator.EQ, 3, 5).hashCode()));
+        assertNotEquals(query, query(columns, TokenCountQueryBuilder.Operator.EQ, 3));
+        assertNotEquals(query, query(columns, TokenCountQueryBuilder.Operator.GT, 3, 5));
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import com.carrotsearch.randomizedtesting.annotations.TimeoutSuite;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.lucene.tests.util.TimeUnits;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.opensearch.client.RestClient;
+import org.opensearch.common.io.PathUtils;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.json.JsonXContent;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.test.rest.OpenSearchRestTestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * End-to-end benchmark of the token_count query: indexes a synthetic corpus whose titles have
+ * token_count sub-fields for several analyzers, then replays a weighted mix of token_count queries
+ * from concurrent clients and reports throughput and latency percentiles per operator and text size.
+ * <p>
+ * The benchmark only runs through the {@code macroBenchmark} Gradle task, which starts a local test
+ * cluster with the plugin installed. It is configured with the following system properties, which the
+ * task sets from the matching {@code -Pbenchmark.*} project properties:
+ * <ul>
+ *     <li>{@code tests.benchmark.docs}: documents in the corpus (default 200000)</li>
+ *     <li>{@code tests.benchmark.clients}: concurrent clients, each with its own connections (default 16)</li>
+ *     <li>{@code tests.benchmark.warmup}: seconds of queries whose latencies are discarded (default 30)</li>
+ *     <li>{@code tests.benchmark.duration}: seconds of measured queries (default 60)</li>
+ *     <li>{@code tests.benchmark.seed}: seed of the corpus and of the query sequence of every client (default 42)</li>
+ *     <li>{@code tests.benchmark.operators}: weighted operator mix (default {@code eq:4,gt:1,lt:1,gte:1,lte:1})</li>
+ *     <li>{@code tests.benchmark.text_sizes}: weighted text size mix (default {@code short:6,medium:3,long:1})</li>
+ *     <li>{@code tests.benchmark.results}: file the JSON report is written to, if set</li>
+ * </ul>
+ * The corpus and the queries only depend on the seed, so runs with the same settings on the same
+ * hardware are comparable. Any failed request fails the run, so the task can gate releases.
+ */
+@TimeoutSuite(millis = 4 * TimeUnits.HOUR)
+public class TokenCountMacroBenchmarkIT extends OpenSearchRestTestCase {
+
+    private static final String INDEX = "token_count_benchmark";
+    private static final String[] COUNT_FIELDS = { "title.standard", "title.whitespace", "title.english", "title.synonyms" };
+    private static final String[] STOP_WORDS = { "the", "a", "of", "and", "to", "in", "for", "with" };
+    private static final String[] SYNONYM_WORDS = { "laptop", "notebook", "computer", "tv", "television", "set", "phone", "mobile" };
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int BULK_SIZE = 5000;
+
+    /**
+     * The size classes of query texts, as ranges of words.
+     */
+    enum TextSize {
+        SHORT(1, 5),
+        MEDIUM(10, 30),
+        LONG(100, 300);
+
+        final int minWords;
+        final int maxWords;
+
+        TextSize(int minWords, int maxWords) {
+            this.minWords = minWords;
+            this.maxWords = maxWords;
+        }
+    }
+
+    public void testBenchmark() throws Exception {
+        int numDocs = Integer.parseInt(System.getProperty("tests.benchmark.docs", "200000"));
+        int clients = Integer.parseInt(System.getProperty("tests.benchmark.clients", "16"));
+        int warmupSeconds = Integer.parseInt(System.getProperty("tests.benchmark.warmup", "30"));
+        int durationSeconds = Integer.parseInt(System.getProperty("tests.benchmark.duration", "60"));
+        long seed = Long.parseLong(System.getProperty("tests.benchmark.seed", "42"));
+        List<TokenCountQueryBuilder.Operator> operators = parseMix(
+            System.getProperty("tests.benchmark.operators", "eq:4,gt:1,lt:1,gte:1,lte:1"),
+            TokenCountQueryBuilder.Operator::fromString
+        );
+        List<TextSize> textSizes = parseMix(
+            System.getProperty("tests.benchmark.text_sizes", "short:6,medium:3,long:1"),
+            name -> TextSize.valueOf(name.toUpperCase(Locale.ROOT))
+        );
+
+        String[] vocabulary = vocabulary(new Random(seed));
+        createCorpus(vocabulary, numDocs, new Random(seed + 1));
+
+        runClients(clients, warmupSeconds, seed + 2, vocabulary, operators, textSizes);
+        Map<String, Recorder> results = runClients(clients, durationSeconds, seed + 3, vocabulary, operators, textSizes);
+
+        long errors = results.values().stream().mapToLong(recorder -> recorder.errors).sum();
+        report(results, durationSeconds, numDocs, clients, seed);
+        assertThat("failed benchmark requests", errors, equalTo(0L));
+    }
+
+    /**
+     * Parses a comma separated mix of {@code name[:weight]} entries into a list in which every value
+     * appears as many times as its weight, so that a uniformly picked element follows the mix.
+     */
+    static <T> List<T> parseMix(String spec, Function<String, T> parser) {
+        List<T> mix = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            T value = parser.apply(parts[0].trim());
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("weight of [" + parts[0] + "] must not be negative");
+            }
+            for (int i = 0; i < weight; i++) {
+                mix.add(value);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix [" + spec + "] is empty");
+        }
+        return mix;
+    }
+
+    /**
+     * Random lower-case words, plus stop words and the words of the synonym rules so that the english
+     * and synonym analyzers count differently from the standard one.
+     */
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        int i = 0;
+        for (String word : STOP_WORDS) {
+            words[i++] = word;
+        }
+        for (String word : SYNONYM_WORDS) {
+            words[i++] = word;
+        }
+        while (i < words.length) {
+            char[] chars = new char[2 + random.nextInt(9)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) ('a' + random.nextInt(26));
+            }
+            words[i++] = new String(chars);
+        }
+        return words;
+    }
+
+    /**
+     * Picks words with a skew towards the head of the vocabulary, where the stop and synonym words are.
+     */
+    private static String text(Random random, String[] vocabulary, int numWords) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numWords; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            double skew = random.nextDouble();
+            text.append(vocabulary[(int) (skew * skew * vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private void createCorpus(String[] vocabulary, int numDocs, Random random) throws IOException {
+        Settings settings = Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .put("index.refresh_interval", "-1")
+            .put("analysis.filter.title_synonyms.type", "synonym")
+            .putList("analysis.filter.title_synonyms.synonyms", "laptop, notebook computer", "tv, television set", "phone, mobile phone")
+            .put("analysis.analyzer.title_synonyms.type", "custom")
+            .put("analysis.analyzer.title_synonyms.tokenizer", "standard")
+            .putList("analysis.analyzer.title_synonyms.filter", "lowercase", "title_synonyms")
+            .build();
+        String mapping = "\"properties\": { \"title\": { \"type\": \"text\", \"fields\": {"
+            + "\"standard\": { \"type\": \"token_count\", \"analyzer\": \"standard\" },"
+            + "\"whitespace\": { \"type\": \"token_count\", \"analyzer\": \"whitespace\" },"
+            + "\"english\": { \"type\": \"token_count\", \"analyzer\": \"english\" },"
+            + "\"synonyms\": { \"type\": \"token_count\", \"analyzer\": \"title_synonyms\" }"
+            + "} } }";
+        createIndex(INDEX, settings, mapping);
+        ensureGreen(INDEX);
+
+        StringBuilder bulk = new StringBuilder();
+        for (int doc = 0; doc < numDocs; doc++) {
+            // mostly short titles with a long tail, and a few description-sized ones
+            int numWords = random.nextInt(20) == 0 ? 100 + random.nextInt(200) : 1 + (int) Math.abs(random.nextGaussian() * 8);
+            // the vocabulary only has lower-case ASCII letters, so the text needs no JSON escaping
+            bulk.append("{\"index\":{}}\n{\"title\":\"").append(text(random, vocabulary, numWords)).append("\"}\n");
+            if ((doc + 1) % BULK_SIZE == 0 || doc == numDocs - 1) {
+                Request request = new Request("POST", "/" + INDEX + "/_bulk");
+                request.setJsonEntity(bulk.toString());
+                Response response = client().performRequest(request);
+                assertThat(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8), containsString("\"errors\":false"));
+                bulk.setLength(0);
+            }
+        }
+        client().performRequest(new Request("POST", "/" + INDEX + "/_refresh"));
+        // a single segment, so that runs do not depend on when merges happened
+        Request forceMerge = new Request("POST", "/" + INDEX + "/_forcemerge");
+        forceMerge.addParameter("max_num_segments", "1");
+        client().performRequest(forceMerge);
+    }
+
+    /**
+     * Runs the clients for the given number of seconds and returns their latencies by operator and text
+     * size. Every client sends its next request as soon as the previous one returns.
+     */
+    private Map<String, Recorder> runClients(
+        int clients,
+        int seconds,
+        long seed,
+        String[] vocabulary,
+        List<TokenCountQueryBuilder.Operator> operators,
+        List<TextSize> textSizes
+    ) throws Exception {
+        HttpHost[] hosts = getClusterHosts().toArray(new HttpHost[0]);
+        List<Map<String, Recorder>> recorders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int c = 0; c < clients; c++) {
+            Map<String, Recorder> recorder = new TreeMap<>();
+            recorders.add(recorder);
+            Random random = new Random(seed + c);
+            // a client of its own per thread, so that clients do not wait for each other's connections
+            RestClient client = buildClient(restClientSettings(), hosts);
+            Thread thread = new Thread(() -> {
+                try (client) {
+                    while (System.nanoTime() < deadline) {
+                        TokenCountQueryBuilder.Operator operator = operators.get(random.nextInt(operators.size()));
+                        TextSize size = textSizes.get(random.nextInt(textSizes.size()));
+                        String field = COUNT_FIELDS[random.nextInt(COUNT_FIELDS.length)];
+                        int numWords = size.minWords + random.nextInt(size.maxWords - size.minWords + 1);
+                        Request request = searchRequest(field, operator, text(random, vocabulary, numWords));
+                        Recorder bucket = recorder.computeIfAbsent(
+                            operator.toString() + "/" + size.name().toLowerCase(Locale.ROOT),
+                            key -> new Recorder()
+                        );
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            Response response = client.performRequest(request);
+                            ok = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8).contains("\"failed\":0");
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        long took = System.nanoTime() - start;
+                        if (ok) {
+                            bucket.record(took);
+                        } else {
+                            bucket.errors++;
+                        }
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "token-count-benchmark-client-" + c);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        Map<String, Recorder> merged = new TreeMap<>();
+        for (Map<String, Recorder> recorder : recorders) {
+            recorder.forEach((key, value) -> merged.computeIfAbsent(key, k -> new Recorder()).merge(value));
+        }
+        return merged;
+    }
+
+    private static Request searchRequest(String field, TokenCountQueryBuilder.Operator operator, String text) {
+        Request request = new Request("POST", "/" + INDEX + "/_search");
+        // every request must reach the query, not a cached response
+        request.addParameter("request_cache", "false");
+        request.setJsonEntity(
+            "{\"size\":0,\"track_total_hits\":true,\"query\":{\"token_count\":{\"field\":\""
+                + field
+                + "\",\"text\":\""
+                + text
+                + "\",\"operator\":\""
+                + operator
+                + "\"}}}"
+        );
+        return request;
+    }
+
+    private void report(Map<String, Recorder> results, int durationSeconds, int numDocs, int clients, long seed) throws IOException {
+        Recorder total = new Recorder();
+        results.values().forEach(total::merge);
+
+        StringBuilder table = new StringBuilder(
+            String.format(
+                Locale.ROOT,
+                "%n%-16s %10s %10s %10s %10s %10s %8s%n",
+                "operator/size",
+                "requests",
+                "req/s",
+                "p50 ms",
+                "p99 ms",
+                "p999 ms",
+                "errors"
+            )
+        );
+        XContentBuilder json = JsonXContent.contentBuilder().prettyPrint();
+        json.startObject();
+        json.field("docs", numDocs).field("clients", clients).field("duration_seconds", durationSeconds).field("seed", seed);
+        json.startObject("results");
+        for (Map.Entry<String, Recorder> entry : results.entrySet()) {
+            entry.getValue().report(entry.getKey(), durationSeconds, table, json);
+        }
+        total.report("total", durationSeconds, table, json);
+        json.endObject();
+        json.endObject();
+        logger.info("token_count macro benchmark results:{}", table);
+
+        String resultFile = System.getProperty("tests.benchmark.results");
+        if (resultFile != null) {
+            Files.write(PathUtils.get(resultFile), json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The latencies of one operator and text size, kept exactly so that the tail percentiles are not
+     * approximated. A recorder is only written by a single client thread.
+     */
+    static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        long errors;
+
+        void record(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+
+        /**
+         * Returns the latency below which the given fraction of the requests completed, or 0 if no request did.
+         */
+        long percentile(double fraction) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(fraction * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+
+        void report(String name, int durationSeconds, StringBuilder table, XContentBuilder json) throws IOException {
+            double throughput = (double) size / durationSeconds;
+            double p50 = percentile(0.50) / 1_000_000.0;
+            double p99 = percentile(0.99) / 1_000_000.0;
+            double p999 = percentile(0.999) / 1_000_000.0;
+            table.append(
+                String.format(Locale.ROOT, "%-16s %10d %10.1f %10.2f %10.2f %10.2f %8d%n", name, size, throughput, p50, p99, p999, errors)
+            );
+            json.startObject(name)
+                .field("requests", size)
+                .field("throughput_per_second", throughput)
+                .field("p50_millis", p50)
+                .field("p99_millis", p99)
+                .field("p999_millis", p999)
+                .field("errors", errors)
+                .endObject();
+        }
+    }
+}
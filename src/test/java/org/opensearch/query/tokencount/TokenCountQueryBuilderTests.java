@@ -7,24 +7,45 @@
  */
 package org.opensearch.query.tokencount;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.PointInSetQuery;
+import org.apache.lucene.search.PointRangeQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.common.compress.CompressedXContent;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.ParsingException;
 import org.opensearch.core.common.io.stream.NamedWriteableAwareStreamInput;
 import org.opensearch.core.common.io.stream.NamedWriteableRegistry;
 import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.mapper.MapperService;
+import org.opensearch.index.query.MatchNoneQueryBuilder;
 import org.opensearch.index.query.QueryBuilder;
 import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.index.query.Rewriteable;
 import org.opensearch.plugins.Plugin;
 import org.opensearch.plugins.SearchPlugin;
 import org.opensearch.test.AbstractQueryTestCase;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 public class TokenCountQueryBuilderTests extends AbstractQueryTestCase<TokenCountQueryBuilder> {
 
@@ -36,22 +57,58 @@ public class TokenCountQueryBuilderTests extends AbstractQueryTestCase<TokenCoun
     }
 
     @Override
-    protected void initializeAdditionalMappings(org.opensearch.index.mapper.MapperService mapperService) {
-        // Add any additional mappings if needed
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        mapperService.merge(
+            "_doc",
+            new CompressedXContent(
+                "{\"properties\":{\"title\":{\"type\":\"text\",\"fields\":{\"counts\":"
+                    + "{\"type\":\"multi_token_count\",\"analyzers\":[\"standard\",\"whitespace\"]}}}}}"
+            ),
+            MapperService.MergeReason.MAPPING_UPDATE
+        );
     }
 
     @Override
     protected TokenCountQueryBuilder doCreateTestQueryBuilder() {
         String fieldName = randomAlphaOfLengthBetween(1, 10) + ".token_count";
-        String text = randomAlphaOfLengthBetween(5, 50);
-        TokenCountQueryBuilder builder = new TokenCountQueryBuilder(fieldName, text);
+        TokenCountQueryBuilder builder;
+        switch (randomIntBetween(0, 3)) {
+            case 0:
+                builder = new TokenCountQueryBuilder(fieldName, randomAlphaOfLengthBetween(5, 50));
+                break;
+            case 1:
+                builder = TokenCountQueryBuilder.forTexts(
+                    fieldName,
+                    randomList(1, 5, () -> randomAlphaOfLengthBetween(5, 50))
+                );
+                break;
+            case 2:
+                builder = new TokenCountQueryBuilder(fieldName, randomIntBetween(0, 100));
+                break;
+            default:
+                builder = TokenCountQueryBuilder.forCounts(
+                    fieldName,
+                    randomList(1, 5, () -> randomIntBetween(0, 100)).stream().mapToInt(Integer::intValue).toArray()
+                );
+                break;
+        }
 
         if (randomBoolean()) {
             builder.operator(randomFrom(TokenCountQueryBuilder.Operator.values()));
         }
 
         if (randomBoolean()) {
-            builder.analyzer(randomAlphaOfLengthBetween(3, 10));
+            builder.analyzer(randomFrom("standard", "simple", "whitespace", "keyword"));
+        }
+
+        if (randomBoolean()) {
+            builder.approximate(randomBoolean());
+        } else if (randomBoolean()) {
+            builder.exact(randomBoolean());
+        }
+
+        if (randomBoolean()) {
+            builder.scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY).pivot(randomIntBetween(1, 10));
         }
 
         return builder;
@@ -87,6 +144,343 @@ public class TokenCountQueryBuilderTests extends AbstractQueryTestCase<TokenCoun
         assertThat(e.getMessage(), equalTo("text cannot be null or empty"));
     }
 
+    public void testCountCannotBeNegative() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> {
+            new TokenCountQueryBuilder("field", -1);
+        });
+        assertThat(e.getMessage(), equalTo("count cannot be negative"));
+    }
+
+    public void testRewriteResolvesCount() throws IOException {
+        TokenCountQueryBuilder builder = new TokenCountQueryBuilder("field.token_count", "quick brown fox")
+            .operator(TokenCountQueryBuilder.Operator.GTE)
+            .analyzer("standard");
+        builder.queryName("named");
+
+        QueryBuilder rewritten = builder.rewrite(createShardContext());
+        assertThat(rewritten, instanceOf(TokenCountQueryBuilder.class));
+        TokenCountQueryBuilder resolved = (TokenCountQueryBuilder) rewritten;
+        assertThat(resolved.text(), equalTo(null));
+        assertThat(resolved.count(), equalTo(3));
+        assertThat(resolved.operator(), equalTo(TokenCountQueryBuilder.Operator.GTE));
+        assertThat(resolved.queryName(), equalTo("named"));
+
+        // different texts that produce the same count rewrite to equal queries
+        QueryBuilder other = new TokenCountQueryBuilder("field.token_count", "lazy dog sleeps")
+            .operator(TokenCountQueryBuilder.Operator.GTE)
+            .analyzer("standard")
+            .queryName("named")
+            .rewrite(createShardContext());
+        assertThat(other, equalTo(rewritten));
+    }
+
+    public void testAnalyzerResolution() throws IOException {
+        QueryShardContext context = createShardContext();
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder(INT_FIELD_NAME, "quick brown fox").analyzer("does_not_exist").rewrite(context)
+        );
+        assertThat(e.getMessage(), equalTo("[token_count] analyzer [does_not_exist] not found"));
+
+        // fields that are not token_count fields are counted with the index default search analyzer
+        TokenCountFieldResolver resolver = new TokenCountFieldResolver();
+        TokenCountFieldResolver.ResolvedField resolved = resolver.resolve(context, INT_FIELD_NAME);
+        assertThat(resolved.analyzer(), equalTo(context.getIndexAnalyzers().getDefaultSearchAnalyzer()));
+        assertThat(resolved.mode(), equalTo(TokenCountAnalyzer.CountMode.POSITIONS));
+        assertThat(resolved.isDefaultAnalyzer(), equalTo(true));
+        QueryBuilder rewritten = new TokenCountQueryBuilder(INT_FIELD_NAME, "quick brown fox").rewrite(context);
+        assertThat(((TokenCountQueryBuilder) rewritten).count(), equalTo(3));
+
+        // resolutions are reused until the mapping changes or the index goes away
+        assertSame(resolved, resolver.resolve(createShardContext(), INT_FIELD_NAME));
+        resolver.invalidate(context.index());
+        assertNotSame(resolved, resolver.resolve(context, INT_FIELD_NAME));
+    }
+
+    public void testRepeatedTextsResolveToDistinctCounts() throws IOException {
+        TokenCountQueryBuilder builder = TokenCountQueryBuilder.forTexts(
+            "title.num_words",
+            Arrays.asList("quick brown fox", "lazy dog", "quick brown fox")
+        ).analyzer("standard");
+        QueryBuilder rewritten = builder.rewrite(createShardContext());
+        assertThat(((TokenCountQueryBuilder) rewritten).counts(), equalTo(new int[] { 2, 3 }));
+    }
+
+    public void testAnalysisProfile() throws IOException {
+        QueryShardContext context = createShardContext();
+        TokenCountQueryBuilder builder = new TokenCountQueryBuilder(INT_FIELD_NAME, "quick brown fox").analyzer("whitespace");
+        Query unwrapped = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).toQuery(createShardContext());
+
+        // the analysis is recorded whether or not the slow log is enabled
+        Query query = builder.rewrite(context).toQuery(context);
+        assertThat(query, instanceOf(TokenCountAnalysisQuery.class));
+        AnalysisProfile profile = ((TokenCountAnalysisQuery) query).getProfile();
+        assertThat(profile.tokens(), equalTo(3L));
+        assertThat(profile.positions(), equalTo(3L));
+        assertThat(query.toString(), containsString("analyzer[whitespace]"));
+        Query bool = new BooleanQuery.Builder().add(query, BooleanClause.Occur.FILTER).build();
+        assertThat(AnalysisProfile.of(bool), equalTo(Collections.singletonList(profile)));
+
+        // the wrapper does not change what the query matches or how it is cached
+        assertThat(((TokenCountAnalysisQuery) query).getQuery(), equalTo(unwrapped));
+        assertThat(query, equalTo(new TokenCountAnalysisQuery(unwrapped, new AnalysisProfile(INT_FIELD_NAME))));
+
+        String message = TokenCountSlowLog.message("[index][0]", 5_000_000L, AnalysisProfile.of(query));
+        assertThat(message, containsString("took_millis[5]"));
+        assertThat(message, containsString("tokens[3], positions[3]"));
+
+        // queries given counts analyze nothing and are not wrapped
+        assertThat(unwrapped, not(instanceOf(TokenCountAnalysisQuery.class)));
+    }
+
+    private static void updateIndexSetting(QueryShardContext context, String key, String value) {
+        IndexSettings indexSettings = context.getIndexSettings();
+        Settings settings = Settings.builder().put(indexSettings.getSettings()).put(key, value).build();
+        indexSettings.updateIndexMetadata(IndexMetadata.builder(indexSettings.getIndexMetadata()).settings(settings).build());
+    }
+
+    public void testTextsAreRequired() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> {
+            TokenCountQueryBuilder.forTexts("field", Collections.emptyList());
+        });
+        assertThat(e.getMessage(), equalTo("texts cannot be null or empty"));
+
+        e = expectThrows(IllegalArgumentException.class, () -> {
+            TokenCountQueryBuilder.forTexts("field", Arrays.asList("quick fox", ""));
+        });
+        assertThat(e.getMessage(), equalTo("texts cannot contain null or empty values"));
+    }
+
+    public void testNumberOfTextsIsLimited() throws IOException {
+        QueryShardContext context = createShardContext();
+        List<String> texts = Arrays.asList("quick fox", "lazy dog", "a b c");
+        TokenCountQueryBuilder builder = TokenCountQueryBuilder.forTexts("field.token_count", texts).analyzer("standard");
+        updateIndexSetting(context, TokenCountAnalyzer.MAX_TEXTS_SETTING.getKey(), "2");
+        try {
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> builder.rewrite(context));
+            assertThat(e.getMessage(), containsString("[3] texts, which exceeds the allowed maximum of [2]"));
+            e = expectThrows(IllegalArgumentException.class, () -> builder.toQuery(context));
+            assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_TEXTS_SETTING.getKey()));
+        } finally {
+            updateIndexSetting(context, TokenCountAnalyzer.MAX_TEXTS_SETTING.getKey(), "1024");
+        }
+        assertThat(((TokenCountQueryBuilder) builder.rewrite(context)).counts(), equalTo(new int[] { 2, 3 }));
+    }
+
+    public void testRewriteMultipleTexts() throws IOException {
+        List<String> texts = Arrays.asList("quick brown fox", "lazy dog", "brown dog", "jumps over the fence");
+
+        QueryBuilder eq = TokenCountQueryBuilder.forTexts("field.token_count", texts)
+            .analyzer("standard")
+            .rewrite(createShardContext());
+        assertThat(((TokenCountQueryBuilder) eq).counts(), equalTo(new int[] { 2, 3, 4 }));
+
+        QueryBuilder gte = TokenCountQueryBuilder.forTexts("field.token_count", texts)
+            .operator(TokenCountQueryBuilder.Operator.GTE)
+            .analyzer("standard")
+            .rewrite(createShardContext());
+        assertThat(((TokenCountQueryBuilder) gte).count(), equalTo(2));
+
+        QueryBuilder lt = TokenCountQueryBuilder.forTexts("field.token_count", texts)
+            .operator(TokenCountQueryBuilder.Operator.LT)
+            .analyzer("standard")
+            .rewrite(createShardContext());
+        assertThat(((TokenCountQueryBuilder) lt).count(), equalTo(4));
+    }
+
+    public void testMultipleCountsBuildSingleQuery() {
+        Query contiguous = TokenCountQueryHelper.createQuery("field", new int[] { 2, 3, 4 }, TokenCountQueryBuilder.Operator.EQ);
+        assertThat(contiguous, instanceOf(PointRangeQuery.class));
+
+        Query sparse = TokenCountQueryHelper.createQuery("field", new int[] { 1, 5, 9 }, TokenCountQueryBuilder.Operator.EQ);
+        assertThat(sparse, instanceOf(PointInSetQuery.class));
+    }
+
+    public void testDocValuesBackedExecution() throws IOException {
+        QueryShardContext context = createShardContext();
+        Query query = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).operator(TokenCountQueryBuilder.Operator.GT).toQuery(context);
+        assertThat(query, instanceOf(IndexOrDocValuesQuery.class));
+
+        Query pointsOnly = TokenCountQueryHelper.createQuery(
+            "field",
+            new int[] { 3 },
+            TokenCountQueryBuilder.Operator.GT,
+            true,
+            false
+        );
+        assertThat(pointsOnly, instanceOf(PointRangeQuery.class));
+    }
+
+    public void testApproximateOnTextField() throws IOException {
+        QueryShardContext context = createShardContext();
+        Query query = new TokenCountQueryBuilder(TEXT_FIELD_NAME, "quick brown fox").approximate(true)
+            .analyzer("standard")
+            .toQuery(context);
+        assertThat(
+            ((TokenCountAnalysisQuery) query).getQuery(),
+            equalTo(NormLengthQuery.create(TEXT_FIELD_NAME, new int[] { 3 }, TokenCountQueryBuilder.Operator.EQ))
+        );
+
+        QueryBuilder rewritten = new TokenCountQueryBuilder(TEXT_FIELD_NAME, "quick brown fox").approximate(true)
+            .analyzer("standard")
+            .rewrite(context);
+        assertThat(((TokenCountQueryBuilder) rewritten).count(), equalTo(3));
+        assertThat(((TokenCountQueryBuilder) rewritten).approximate(), equalTo(true));
+
+        // numeric fields hold exact counts and are never matched approximately
+        Query numeric = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).approximate(true).toQuery(context);
+        assertThat(numeric, instanceOf(IndexOrDocValuesQuery.class));
+    }
+
+    public void testExactOnTextField() throws IOException {
+        QueryShardContext context = createShardContext();
+        Query query = new TokenCountQueryBuilder(TEXT_FIELD_NAME, "quick brown fox").exact(true).toQuery(context);
+        assertThat(((TokenCountAnalysisQuery) query).getQuery(), instanceOf(TokenCountColumnQuery.class));
+
+        QueryBuilder rewritten = new TokenCountQueryBuilder(TEXT_FIELD_NAME, "quick brown fox").exact(true).rewrite(context);
+        assertThat(((TokenCountQueryBuilder) rewritten).count(), equalTo(3));
+        assertThat(((TokenCountQueryBuilder) rewritten).exact(), equalTo(true));
+
+        // numeric fields already hold exact counts
+        Query numeric = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).exact(true).toQuery(context);
+        assertThat(numeric, instanceOf(IndexOrDocValuesQuery.class));
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder(TEXT_FIELD_NAME, 3).exact(true).approximate(true).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("cannot be both approximate and exact"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder(TEXT_FIELD_NAME, 3).exact(true)
+                .scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY)
+                .pivot(2)
+                .toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("in exact mode on text fields"));
+
+        String json = "{\"" + TokenCountQueryBuilder.NAME + "\":{\"field\":\"" + TEXT_FIELD_NAME
+            + "\",\"count\":3,\"approximate\":true,\"exact\":true}}";
+        ParsingException parsingException = expectThrows(ParsingException.class, () -> parseQuery(json));
+        assertThat(parsingException.getMessage(), containsString("'approximate' and 'exact' cannot both be set"));
+    }
+
+    public void testDecayScoring() throws IOException {
+        QueryShardContext context = createShardContext();
+        Query eq = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY)
+            .pivot(2)
+            .toQuery(context);
+        assertThat(eq, equalTo(new IntDistanceFeatureQuery(INT_FIELD_NAME, new int[] { 3 }, 2)));
+
+        Query gt = new TokenCountQueryBuilder(INT_FIELD_NAME, 3).operator(TokenCountQueryBuilder.Operator.GT)
+            .scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY)
+            .pivot(2)
+            .toQuery(context);
+        assertThat(gt, instanceOf(BooleanQuery.class));
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder(INT_FIELD_NAME, 3).scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY).toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("requires a pivot"));
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder(TEXT_FIELD_NAME, 3).scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY)
+                .pivot(2)
+                .toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("requires an integer field"));
+
+        expectThrows(IllegalArgumentException.class, () -> new TokenCountQueryBuilder(INT_FIELD_NAME, 3).pivot(0));
+    }
+
+    public void testShardsOutsideIndexedBoundsRewriteToMatchNone() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+                for (int count = 5; count <= 12; count++) {
+                    Document doc = new Document();
+                    doc.add(new IntPoint(INT_FIELD_NAME, count));
+                    writer.addDocument(doc);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                QueryShardContext context = createShardContext(newSearcher(reader));
+                assertThat(rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, 40)), instanceOf(MatchNoneQueryBuilder.class));
+                assertThat(rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, 8)), instanceOf(TokenCountQueryBuilder.class));
+                assertThat(
+                    rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, 12).operator(TokenCountQueryBuilder.Operator.GT)),
+                    instanceOf(MatchNoneQueryBuilder.class)
+                );
+                assertThat(
+                    rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, 12).operator(TokenCountQueryBuilder.Operator.GTE)),
+                    instanceOf(TokenCountQueryBuilder.class)
+                );
+                assertThat(
+                    rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, 5).operator(TokenCountQueryBuilder.Operator.LT)),
+                    instanceOf(MatchNoneQueryBuilder.class)
+                );
+                assertThat(
+                    rewrite(context, TokenCountQueryBuilder.forCounts(INT_FIELD_NAME, new int[] { 1, 20 })),
+                    instanceOf(MatchNoneQueryBuilder.class)
+                );
+                assertThat(
+                    rewrite(context, TokenCountQueryBuilder.forCounts(INT_FIELD_NAME, new int[] { 1, 7, 20 })),
+                    instanceOf(TokenCountQueryBuilder.class)
+                );
+
+                // texts are analyzed by the same rewrite, then compared against the bounds
+                assertThat(
+                    rewrite(context, new TokenCountQueryBuilder(INT_FIELD_NAME, "quick brown fox").analyzer("whitespace")),
+                    instanceOf(MatchNoneQueryBuilder.class)
+                );
+
+                // decay scoring with eq matches every document with a count
+                assertThat(
+                    rewrite(
+                        context,
+                        new TokenCountQueryBuilder(INT_FIELD_NAME, 40).scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY).pivot(2)
+                    ),
+                    instanceOf(TokenCountQueryBuilder.class)
+                );
+            }
+        }
+
+        // without a reader, as on the coordinating node, nothing is pruned
+        assertThat(rewrite(createShardContext(), new TokenCountQueryBuilder(INT_FIELD_NAME, 40)), instanceOf(TokenCountQueryBuilder.class));
+    }
+
+    private static QueryBuilder rewrite(QueryShardContext context, QueryBuilder builder) throws IOException {
+        return Rewriteable.rewrite(builder, context);
+    }
+
+    public void testMultiTokenCountField() throws IOException {
+        QueryShardContext context = createShardContext();
+        QueryBuilder standard = new TokenCountQueryBuilder("title.counts.standard", "Wi-Fi router").rewrite(context);
+        assertThat(((TokenCountQueryBuilder) standard).count(), equalTo(3));
+        QueryBuilder whitespace = new TokenCountQueryBuilder("title.counts.whitespace", "Wi-Fi router").rewrite(context);
+        assertThat(((TokenCountQueryBuilder) whitespace).count(), equalTo(2));
+
+        Query query = new TokenCountQueryBuilder("title.counts.whitespace", 2).operator(TokenCountQueryBuilder.Operator.GTE)
+            .toQuery(context);
+        assertThat(query, instanceOf(IndexOrDocValuesQuery.class));
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountQueryBuilder("title.counts.standard", 3).scoreMode(TokenCountQueryBuilder.ScoreMode.DECAY)
+                .pivot(2)
+                .toQuery(context)
+        );
+        assertThat(e.getMessage(), containsString("does not support the counts of [multi_token_count] field [title.counts]"));
+    }
+
+    public void testDecayRequiresPivot() {
+        String json = "{ \"token_count\": { \"field\": \"f\", \"count\": 3, \"score_mode\": \"decay\" } }";
+        ParsingException e = expectThrows(ParsingException.class, () -> parseQuery(json));
+        assertThat(e.getMessage(), containsString("requires 'pivot' parameter"));
+    }
+
     public void testDefaultOperator() {
         TokenCountQueryBuilder builder = new TokenCountQueryBuilder("field.token_count", "test text");
         assertThat(builder.operator(), equalTo(TokenCountQueryBuilder.Operator.EQ));
@@ -126,7 +520,8 @@ public class TokenCountQueryBuilderTests extends AbstractQueryTestCase<TokenCoun
     public void testSerialization() throws IOException {
         TokenCountQueryBuilder original = new TokenCountQueryBuilder("field.token_count", "test text")
             .operator(TokenCountQueryBuilder.Operator.GTE)
-            .analyzer("standard");
+            .analyzer("standard")
+            .exact(true);
 
         try (org.opensearch.common.io.stream.BytesStreamOutput output = new org.opensearch.common.io.stream.BytesStreamOutput()) {
             original.writeTo(output);
@@ -140,8 +535,12 @@ public class TokenCountQueryBuilderTests extends AbstractQueryTestCase<TokenCoun
 
             assertThat(deserialized.fieldName(), equalTo(original.fieldName()));
             assertThat(deserialized.text(), equalTo(original.text()));
+            assertThat(deserialized.texts(), equalTo(original.texts()));
+            assertThat(deserialized.counts(), equalTo(original.counts()));
             assertThat(deserialized.operator(), equalTo(original.operator()));
             assertThat(deserialized.analyzer(), equalTo(original.analyzer()));
+            assertThat(deserialized.approximate(), equalTo(original.approximate()));
+            assertThat(deserialized.exact(), equalTo(original.exact()));
         }
     }
 
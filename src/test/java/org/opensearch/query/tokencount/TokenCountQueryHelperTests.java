@@ -0,0 +1,147 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.IndexSortSortedNumericDocValuesRangeQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.store.Directory;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class TokenCountQueryHelperTests extends OpenSearchTestCase {
+
+    public void testBoundsBeyondIntegersMatchNothing() throws IOException {
+        assertThat(
+            TokenCountQueryHelper.createQuery("length", Integer.MAX_VALUE, TokenCountQueryBuilder.Operator.GT),
+            instanceOf(MatchNoDocsQuery.class)
+        );
+        assertThat(
+            TokenCountQueryHelper.createQuery("length", Integer.MIN_VALUE, TokenCountQueryBuilder.Operator.LT),
+            instanceOf(MatchNoDocsQuery.class)
+        );
+        assertThat(
+            TokenCountQueryHelper.createQuery("length", Integer.MAX_VALUE, TokenCountQueryBuilder.Operator.GTE),
+            equalTo(IntPoint.newExactQuery("length", Integer.MAX_VALUE))
+        );
+
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+                for (int length : new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE }) {
+                    Document doc = new Document();
+                    doc.add(new IntPoint("length", length));
+                    doc.add(new SortedNumericDocValuesField("length", length));
+                    writer.addDocument(doc);
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                IndexSearcher searcher = newSearcher(reader);
+                for (boolean hasPoints : new boolean[] { true, false }) {
+                    for (boolean hasDocValues : new boolean[] { true, false }) {
+                        TokenCountQueryBuilder.Operator gt = TokenCountQueryBuilder.Operator.GT;
+                        TokenCountQueryBuilder.Operator lt = TokenCountQueryBuilder.Operator.LT;
+                        TokenCountQueryBuilder.Operator gte = TokenCountQueryBuilder.Operator.GTE;
+                        assertThat(count(searcher, Integer.MAX_VALUE, gt, hasPoints, hasDocValues), equalTo(0));
+                        assertThat(count(searcher, Integer.MIN_VALUE, lt, hasPoints, hasDocValues), equalTo(0));
+                        assertThat(count(searcher, Integer.MAX_VALUE, gte, hasPoints, hasDocValues), equalTo(1));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int count(
+        IndexSearcher searcher,
+        int tokenCount,
+        TokenCountQueryBuilder.Operator operator,
+        boolean hasPoints,
+        boolean hasDocValues
+    ) throws IOException {
+        return searcher.count(TokenCountQueryHelper.createQuery("length", new int[] { tokenCount }, operator, hasPoints, hasDocValues));
+    }
+
+    public void testIndexSortedQueryMatchesPoints() throws IOException {
+        for (boolean sorted : new boolean[] { true, false }) {
+            try (Directory dir = newDirectory()) {
+                IndexWriterConfig config = new IndexWriterConfig();
+                if (sorted) {
+                    config.setIndexSort(new Sort(new SortedNumericSortField("length", SortField.Type.INT)));
+                }
+                try (IndexWriter writer = new IndexWriter(dir, config)) {
+                    int numDocs = randomIntBetween(100, 500);
+                    for (int i = 0; i < numDocs; i++) {
+                        Document doc = new Document();
+                        if (randomInt(20) > 0) {
+                            int length = randomIntBetween(0, 30);
+                            doc.add(new IntPoint("length", length));
+                            doc.add(new SortedNumericDocValuesField("length", length));
+                        }
+                        writer.addDocument(doc);
+                        if (rarely()) {
+                            writer.commit();
+                        }
+                    }
+                }
+                try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                    IndexSearcher searcher = newSearcher(reader);
+                    for (int i = 0; i < 50; i++) {
+                        int[] counts = randomList(1, 20, () -> randomIntBetween(0, 32)).stream()
+                            .mapToInt(Integer::intValue)
+                            .sorted()
+                            .distinct()
+                            .toArray();
+                        TokenCountQueryBuilder.Operator operator = randomFrom(TokenCountQueryBuilder.Operator.values());
+                        Query expected = TokenCountQueryHelper.createQuery("length", counts, operator);
+                        Query query = TokenCountQueryHelper.createQuery("length", counts, operator, true, true, true);
+                        assertThat(operator + " " + Arrays.toString(counts), searcher.count(query), equalTo(searcher.count(expected)));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testIndexSortedQueryShape() {
+        Query range = TokenCountQueryHelper.createQuery("length", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT, true, true, true);
+        assertThat(range, instanceOf(IndexSortSortedNumericDocValuesRangeQuery.class));
+
+        Query contiguous = TokenCountQueryHelper.createQuery(
+            "length",
+            new int[] { 3, 4, 5 },
+            TokenCountQueryBuilder.Operator.EQ,
+            true,
+            true,
+            true
+        );
+        assertThat(contiguous, instanceOf(IndexSortSortedNumericDocValuesRangeQuery.class));
+
+        // without doc values, or for an unsorted index, nothing changes
+        assertThat(
+            TokenCountQueryHelper.createQuery("length", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT, true, false, true),
+            equalTo(TokenCountQueryHelper.createQuery("length", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT))
+        );
+        assertThat(
+            TokenCountQueryHelper.createQuery("length", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT, true, true, false),
+            equalTo(TokenCountQueryHelper.createQuery("length", new int[] { 3 }, TokenCountQueryBuilder.Operator.GT, true, true))
+        );
+    }
+}
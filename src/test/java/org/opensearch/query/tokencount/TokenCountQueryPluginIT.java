@@ -44,6 +44,32 @@ public class TokenCountQueryPluginIT extends OpenSearchIntegTestCase {
         assertThat(body, containsString("opensearch-token-count-query"));
     }
 
+    public void testStatsEndpoint() throws IOException, ParseException {
+        Response response = getRestClient().performRequest(new Request("GET", "/_plugins/token_count/_stats"));
+        String body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+
+        assertThat(body, containsString("\"_nodes\""));
+        assertThat(body, containsString("\"analysis\""));
+        assertThat(body, containsString("\"operators\""));
+        assertThat(body, containsString("\"cache\""));
+    }
+
+    public void testBatchCountEndpoint() throws IOException, ParseException {
+        Request request = new Request("POST", "/_token_count");
+        request.setJsonEntity("{ \"analyzer\": \"standard\", \"texts\": [\"quick brown fox\", \"lazy dog\", \"Wi-Fi router\"] }");
+        Response response = getRestClient().performRequest(request);
+        String body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        assertThat(body, equalTo("{\"analyzer\":\"standard\",\"counts\":[3,2,3]}"));
+
+        createIndex("batch");
+        ensureGreen("batch");
+        request = new Request("POST", "/batch/_token_count");
+        request.setJsonEntity("{ \"texts\": [\"the quick brown fox\"] }");
+        response = getRestClient().performRequest(request);
+        body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        assertThat(body, containsString("\"counts\":[4]"));
+    }
+
     public void testTokenCountQuery() throws Exception {
         // Note: token_count field type is a built-in OpenSearch field type
         // For this test, we'll verify the query can be created and serialized
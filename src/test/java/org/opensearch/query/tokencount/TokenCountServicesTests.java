@@ -0,0 +1,135 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.opensearch.action.search.MultiSearchResponse;
+import org.opensearch.action.support.WriteRequest;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.IndexService;
+import org.opensearch.index.analysis.AnalyzerScope;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.plugins.Plugin;
+import org.opensearch.query.tokencount.stats.LongHistogram;
+import org.opensearch.query.tokencount.stats.TokenCountStats;
+import org.opensearch.test.OpenSearchSingleNodeTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.opensearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.opensearch.test.hamcrest.OpenSearchAssertions.assertHitCount;
+
+public class TokenCountServicesTests extends OpenSearchSingleNodeTestCase {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        List<Class<? extends Plugin>> plugins = new ArrayList<>(super.getPlugins());
+        plugins.add(TokenCountQueryPlugin.class);
+        return plugins;
+    }
+
+    @Override
+    protected Settings nodeSettings() {
+        // the memo must not depend on the node cache
+        return Settings.builder().put(super.nodeSettings()).put(TokenCountCache.CACHE_SIZE_SETTING.getKey(), "0b").build();
+    }
+
+    public void testQueriesUseTheServicesOfTheirNode() {
+        IndexService indexService = createIndex("test");
+        QueryShardContext context = indexService.newQueryShardContext(0, null, () -> 0L, null);
+        TokenCountServices services = TokenCountServices.of(context);
+        assertThat(services, sameInstance(getInstanceFromNode(TokenCountServices.class)));
+        assertThat(services.cache(), not(nullValue()));
+        assertThat(services.bitmaps(), not(nullValue()));
+
+        client().admin().indices().prepareDelete("test").get();
+        TokenCountServices unwired = TokenCountServices.of(context);
+        assertThat(unwired, not(sameInstance(services)));
+        assertThat(unwired.cache(), nullValue());
+        assertThat(unwired.bitmaps(), nullValue());
+        assertThat(unwired.columns().count(), equalTo(0));
+    }
+
+    public void testAnalysisIsMemoizedPerSearchRequest() throws IOException {
+        XContentBuilder mapping = jsonBuilder().startObject()
+            .startObject("properties")
+            .startObject("a_count")
+            .field("type", "integer")
+            .endObject()
+            .startObject("b_count")
+            .field("type", "integer")
+            .endObject()
+            .endObject()
+            .endObject();
+        createIndex("test", Settings.EMPTY, mapping);
+        client().prepareIndex("test")
+            .setId("1")
+            .setSource("a_count", 3, "b_count", 3)
+            .setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE)
+            .get();
+        QueryBuilder query = QueryBuilders.boolQuery()
+            .filter(new TokenCountQueryBuilder("a_count", "quick brown fox").analyzer("standard"))
+            .filter(new TokenCountQueryBuilder("b_count", "quick brown fox").analyzer("standard"));
+
+        // both clauses of the search share one analysis
+        long analyses = analyses("standard");
+        assertHitCount(client().prepareSearch("test").setQuery(query).get(), 1);
+        assertThat(analyses("standard"), equalTo(analyses + 1));
+
+        // so do the items of a multi search
+        MultiSearchResponse responses = client().prepareMultiSearch()
+            .add(client().prepareSearch("test").setQuery(query))
+            .add(client().prepareSearch("test").setQuery(query))
+            .get();
+        for (MultiSearchResponse.Item item : responses.getResponses()) {
+            assertHitCount(item.getResponse(), 1);
+        }
+        assertThat(analyses("standard"), equalTo(analyses + 2));
+    }
+
+    public void testMemoOfTheRequest() {
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        assertThat(AnalysisMemo.of(threadContext), not(sameInstance(AnalysisMemo.of(threadContext))));
+        try (ThreadContext.StoredContext restore = AnalysisMemo.install(threadContext)) {
+            AnalysisMemo memo = AnalysisMemo.of(threadContext);
+            assertThat(AnalysisMemo.of(threadContext), sameInstance(memo));
+            // a request that already has a memo keeps it
+            assertThat(AnalysisMemo.install(threadContext), nullValue());
+
+            NamedAnalyzer standard = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+            assertThat(memo.get(standard, TokenCountAnalyzer.CountMode.POSITIONS, "quick brown fox", Integer.MAX_VALUE), nullValue());
+            memo.put(standard, TokenCountAnalyzer.CountMode.POSITIONS, "quick brown fox", 3, Integer.MAX_VALUE);
+            assertThat(memo.get(standard, TokenCountAnalyzer.CountMode.POSITIONS, "quick brown fox", Integer.MAX_VALUE), equalTo(3));
+            // a memoized count is capped at the limit of a later analysis
+            assertThat(memo.get(standard, TokenCountAnalyzer.CountMode.POSITIONS, "quick brown fox", 2), equalTo(2));
+            // an analysis that stopped early only decides lower limits
+            memo.put(standard, TokenCountAnalyzer.CountMode.POSITIONS, "lazy dog", 1, 1);
+            assertThat(memo.get(standard, TokenCountAnalyzer.CountMode.POSITIONS, "lazy dog", 1), equalTo(1));
+            assertThat(memo.get(standard, TokenCountAnalyzer.CountMode.POSITIONS, "lazy dog", 2), nullValue());
+        }
+        assertThat(threadContext.getTransient(AnalysisMemo.TRANSIENT_NAME), nullValue());
+    }
+
+    private long analyses(String analyzer) {
+        TokenCountStats stats = getInstanceFromNode(TokenCountStats.class);
+        LongHistogram.Snapshot analyses = stats.snapshot(0, 0).analysisNanosByAnalyzer().get(analyzer);
+        return analyses == null ? 0 : analyses.count();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.action;
+
+import org.opensearch.action.ActionRequestValidationException;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.common.xcontent.json.JsonXContent;
+import org.opensearch.core.common.Strings;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.MediaTypeRegistry;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TokenCountRequestTests extends OpenSearchTestCase {
+
+    public void testSerialization() throws IOException {
+        TokenCountRequest request = new TokenCountRequest(randomBoolean() ? null : randomAlphaOfLength(5))
+            .texts(randomList(1, 10, () -> randomAlphaOfLengthBetween(0, 20)))
+            .field(randomBoolean() ? null : randomAlphaOfLength(5))
+            .analyzer(randomBoolean() ? null : randomAlphaOfLength(5));
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                TokenCountRequest deserialized = new TokenCountRequest(in);
+                assertThat(deserialized.index(), equalTo(request.index()));
+                assertThat(deserialized.texts(), equalTo(request.texts()));
+                assertThat(deserialized.field(), equalTo(request.field()));
+                assertThat(deserialized.analyzer(), equalTo(request.analyzer()));
+            }
+        }
+    }
+
+    public void testValidation() {
+        assertThat(new TokenCountRequest().texts(Collections.singletonList("quick fox")).analyzer("standard").validate(), nullValue());
+        assertThat(new TokenCountRequest("index").texts(Collections.singletonList("quick fox")).validate(), nullValue());
+
+        ActionRequestValidationException e = new TokenCountRequest().analyzer("standard").validate();
+        assertThat(e.getMessage(), containsString("texts is missing"));
+
+        e = new TokenCountRequest().texts(Arrays.asList("quick fox", null)).analyzer("standard").validate();
+        assertThat(e.getMessage(), containsString("texts cannot contain null values"));
+
+        e = new TokenCountRequest().texts(Collections.singletonList("quick fox")).field("title.num_words").validate();
+        assertThat(e.getMessage(), containsString("index is required with field"));
+
+        e = new TokenCountRequest().texts(Collections.singletonList("quick fox")).validate();
+        assertThat(e.getMessage(), containsString("analyzer is required without index"));
+    }
+
+    public void testParse() throws IOException {
+        String json = "{ \"texts\": [\"quick brown fox\", \"lazy dog\"], \"field\": \"title.num_words\", \"analyzer\": \"english\" }";
+        TokenCountRequest request = new TokenCountRequest("index").parse(parser(json));
+        assertThat(request.texts(), equalTo(Arrays.asList("quick brown fox", "lazy dog")));
+        assertThat(request.field(), equalTo("title.num_words"));
+        assertThat(request.analyzer(), equalTo("english"));
+
+        request = new TokenCountRequest().parse(parser("{ \"texts\": \"quick brown fox\", \"analyzer\": \"standard\" }"));
+        assertThat(request.texts(), equalTo(Collections.singletonList("quick brown fox")));
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new TokenCountRequest().parse(parser("{ \"text\": \"quick brown fox\" }"))
+        );
+        assertThat(e.getMessage(), containsString("Unknown parameter [text]"));
+    }
+
+    public void testResponse() throws IOException {
+        TokenCountResponse response = new TokenCountResponse("standard", new int[] { 3, 0, 12 });
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            response.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new TokenCountResponse(in), equalTo(response));
+            }
+        }
+        assertThat(Strings.toString(MediaTypeRegistry.JSON, response), equalTo("{\"analyzer\":\"standard\",\"counts\":[3,0,12]}"));
+    }
+
+    private static XContentParser parser(String json) throws IOException {
+        return JsonXContent.jsonXContent.createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json);
+    }
+}
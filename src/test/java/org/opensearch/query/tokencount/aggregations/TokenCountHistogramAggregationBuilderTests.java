@@ -0,0 +1,109 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.apache.lucene.util.SmallFloat;
+import org.opensearch.action.search.SearchPhaseExecutionException;
+import org.opensearch.action.search.SearchResponse;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.plugins.Plugin;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+import org.opensearch.test.OpenSearchSingleNodeTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.opensearch.common.xcontent.XContentFactory.jsonBuilder;
+
+public class TokenCountHistogramAggregationBuilderTests extends OpenSearchSingleNodeTestCase {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        List<Class<? extends Plugin>> plugins = new ArrayList<>(super.getPlugins());
+        plugins.add(TokenCountQueryPlugin.class);
+        return plugins;
+    }
+
+    public void testTextFieldCountsAreExact() throws IOException {
+        indexTitles(mapping(false));
+        InternalTokenCountHistogram histogram = histogram(new TokenCountHistogramAggregationBuilder("lengths").field("title"));
+        // every length is exact, including those norms cannot tell apart
+        assertThat(histogram.getKeys(), equalTo(new long[] { 1, 3, 50 }));
+        assertThat(histogram.getDocCounts(), equalTo(new long[] { 1, 2, 1 }));
+    }
+
+    public void testApproximateTextFieldReadsNorms() throws IOException {
+        indexTitles(mapping(false));
+        InternalTokenCountHistogram histogram = histogram(
+            new TokenCountHistogramAggregationBuilder("lengths").field("title").approximate(true)
+        );
+        long longKey = SmallFloat.byte4ToInt(SmallFloat.intToByte4(50));
+        assertThat(histogram.getKeys(), equalTo(new long[] { 1, 3, longKey }));
+        assertThat(histogram.getDocCounts(), equalTo(new long[] { 1, 2, 1 }));
+    }
+
+    public void testExactTextFieldRequiresCompleteSource() throws IOException {
+        indexTitles(mapping(true));
+        SearchPhaseExecutionException e = expectThrows(
+            SearchPhaseExecutionException.class,
+            () -> histogram(new TokenCountHistogramAggregationBuilder("lengths").field("title"))
+        );
+        assertThat(e.shardFailures()[0].reason(), containsString("requires the complete _source"));
+
+        // norms do not need the source
+        InternalTokenCountHistogram histogram = histogram(
+            new TokenCountHistogramAggregationBuilder("lengths").field("title").approximate(true)
+        );
+        assertThat(histogram.getKeys().length, equalTo(3));
+    }
+
+    public void testSerialization() throws IOException {
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field("title")
+            .interval(5)
+            .approximate(true);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            builder.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new TokenCountHistogramAggregationBuilder(in), equalTo(builder));
+            }
+        }
+    }
+
+    private static XContentBuilder mapping(boolean excludeFromSource) throws IOException {
+        XContentBuilder mapping = jsonBuilder().startObject();
+        if (excludeFromSource) {
+            mapping.startObject("_source").array("excludes", "other").endObject();
+        }
+        return mapping.startObject("properties").startObject("title").field("type", "text").endObject().endObject().endObject();
+    }
+
+    private void indexTitles(XContentBuilder mapping) {
+        createIndex("test", Settings.EMPTY, mapping);
+        StringBuilder longTitle = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            longTitle.append("word").append(i).append(' ');
+        }
+        String[] titles = { "quick", "quick brown fox", "lazy brown dog", longTitle.toString() };
+        for (int i = 0; i < titles.length; i++) {
+            client().prepareIndex("test").setId(Integer.toString(i)).setSource("title", titles[i]).get();
+        }
+        client().admin().indices().prepareRefresh("test").get();
+    }
+
+    private InternalTokenCountHistogram histogram(TokenCountHistogramAggregationBuilder builder) {
+        SearchResponse response = client().prepareSearch("test").setSize(0).addAggregation(builder).get();
+        return response.getAggregations().get("lengths");
+    }
+}
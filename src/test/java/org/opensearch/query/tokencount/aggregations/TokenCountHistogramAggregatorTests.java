@@ -0,0 +1,154 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.util.SmallFloat;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.index.mapper.KeywordFieldMapper;
+import org.opensearch.index.mapper.MappedFieldType;
+import org.opensearch.index.mapper.NumberFieldMapper;
+import org.opensearch.index.mapper.TextFieldMapper;
+import org.opensearch.plugins.SearchPlugin;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+import org.opensearch.search.aggregations.AggregatorTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountHistogramAggregatorTests extends AggregatorTestCase {
+
+    private static final String WORDS = "title.num_words";
+    private static final String TITLE = "title";
+
+    @Override
+    protected List<SearchPlugin> getSearchPlugins() {
+        return Collections.singletonList(new TokenCountQueryPlugin());
+    }
+
+    private static MappedFieldType wordsFieldType() {
+        return new NumberFieldMapper.NumberFieldType(WORDS, NumberFieldMapper.NumberType.INTEGER);
+    }
+
+    public void testIntegerField() throws IOException {
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field(WORDS);
+        testCase(builder, new MatchAllDocsQuery(), writer -> {
+            for (int count : new int[] { 1, 2, 2, 3, 7 }) {
+                writer.addDocument(Collections.singletonList(new SortedNumericDocValuesField(WORDS, count)));
+            }
+            writer.addDocument(Collections.emptyList());
+        }, (InternalTokenCountHistogram histogram) -> {
+            assertThat(histogram.getKeys(), equalTo(new long[] { 1, 2, 3, 7 }));
+            assertThat(histogram.getDocCounts(), equalTo(new long[] { 1, 2, 1, 1 }));
+        }, wordsFieldType());
+    }
+
+    public void testInterval() throws IOException {
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field(WORDS).interval(5);
+        testCase(builder, new MatchAllDocsQuery(), writer -> {
+            for (int count : new int[] { 1, 4, 5, 12 }) {
+                writer.addDocument(Collections.singletonList(new SortedNumericDocValuesField(WORDS, count)));
+            }
+            // a document with several values is counted once per bucket
+            writer.addDocument(Arrays.asList(new SortedNumericDocValuesField(WORDS, 2), new SortedNumericDocValuesField(WORDS, 3)));
+        }, (InternalTokenCountHistogram histogram) -> {
+            assertThat(histogram.getKeys(), equalTo(new long[] { 0, 5, 10 }));
+            assertThat(histogram.getDocCounts(), equalTo(new long[] { 3, 1, 1 }));
+        }, wordsFieldType());
+    }
+
+    public void testApproximateTextField() throws IOException {
+        StringBuilder longTitle = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            longTitle.append("word").append(i).append(' ');
+        }
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field(TITLE).approximate(true);
+        testCase(builder, new MatchAllDocsQuery(), writer -> {
+            for (String title : new String[] { "quick", "quick brown fox", "lazy brown dog", longTitle.toString() }) {
+                Document doc = new Document();
+                doc.add(new TextField(TITLE, title, Field.Store.NO));
+                writer.addDocument(doc);
+            }
+        }, (InternalTokenCountHistogram histogram) -> {
+            // lengths above 39 fall into the bucket of their norm, keyed by its smallest length
+            long longKey = SmallFloat.byte4ToInt(SmallFloat.intToByte4(50));
+            assertThat(histogram.getKeys(), equalTo(new long[] { 1, 3, longKey }));
+            assertThat(histogram.getDocCounts(), equalTo(new long[] { 1, 2, 1 }));
+        }, new TextFieldMapper.TextFieldType(TITLE));
+    }
+
+    public void testUnmappedField() throws IOException {
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field("unmapped");
+        testCase(
+            builder,
+            new MatchAllDocsQuery(),
+            writer -> writer.addDocument(Collections.singletonList(new SortedNumericDocValuesField(WORDS, 3))),
+            (InternalTokenCountHistogram histogram) -> assertThat(histogram.getKeys().length, equalTo(0)),
+            wordsFieldType()
+        );
+    }
+
+    public void testUnsupportedField() {
+        TokenCountHistogramAggregationBuilder builder = new TokenCountHistogramAggregationBuilder("lengths").field("tag");
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> testCase(builder, new MatchAllDocsQuery(), writer -> writer.addDocument(Collections.emptyList()), histogram -> {
+            }, new KeywordFieldMapper.KeywordFieldType("tag"))
+        );
+        assertThat(e.getMessage(), containsString("is of type [keyword]"));
+    }
+
+    public void testMerge() {
+        long[][] merged = InternalTokenCountHistogram.merge(
+            new long[] { 1, 3, 8 },
+            new long[] { 2, 1, 4 },
+            new long[] { 3, 5 },
+            new long[] { 6, 1 }
+        );
+        assertThat(merged[0], equalTo(new long[] { 1, 3, 5, 8 }));
+        assertThat(merged[1], equalTo(new long[] { 2, 7, 1, 4 }));
+    }
+
+    public void testSerializationOfNegativeKeys() throws IOException {
+        InternalTokenCountHistogram histogram = new InternalTokenCountHistogram(
+            "histogram",
+            2,
+            new long[] { -4, 0, 6 },
+            new long[] { 1, 5, 2 },
+            Collections.emptyMap()
+        );
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            histogram.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                InternalTokenCountHistogram read = new InternalTokenCountHistogram(in);
+                assertThat(read.getName(), equalTo("histogram"));
+                assertThat(read.getInterval(), equalTo(2));
+                assertThat(read.getKeys(), equalTo(new long[] { -4, 0, 6 }));
+                assertThat(read.getDocCounts(), equalTo(new long[] { 1, 5, 2 }));
+            }
+        }
+    }
+
+    public void testSortByKey() {
+        long[] keys = { 7, 1, 3 };
+        long[] counts = { 70, 10, 30 };
+        InternalTokenCountHistogram.sortByKey(keys, counts);
+        assertThat(keys, equalTo(new long[] { 1, 3, 7 }));
+        assertThat(counts, equalTo(new long[] { 10, 30, 70 }));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.ingest;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.opensearch.core.common.breaker.CircuitBreaker;
+import org.opensearch.core.common.breaker.NoopCircuitBreaker;
+import org.opensearch.ingest.IngestDocument;
+import org.opensearch.ingest.IngestDocumentWrapper;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+import org.opensearch.query.tokencount.TokenCountServices;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TokenCountProcessorTests extends OpenSearchTestCase {
+
+    private static TokenCountProcessor processor(boolean ignoreMissing) {
+        return processor(ignoreMissing, 1_000_000, 100_000, new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME));
+    }
+
+    private static TokenCountProcessor processor(boolean ignoreMissing, int maxTextChars, int maxTokens, CircuitBreaker breaker) {
+        Map<String, String> analyzerByTarget = new LinkedHashMap<>();
+        analyzerByTarget.put("title_words", "whitespace");
+        analyzerByTarget.put("title_positions", "english");
+        analyzerByTarget.put("title_english_words", "english");
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        analyzers.put("whitespace", new WhitespaceAnalyzer());
+        analyzers.put("english", new EnglishAnalyzer());
+        return new TokenCountProcessor(
+            randomAlphaOfLength(5),
+            null,
+            "title",
+            analyzerByTarget,
+            analyzers,
+            TokenCountAnalyzer.CountMode.POSITIONS,
+            ignoreMissing,
+            maxTextChars,
+            maxTokens,
+            new TokenCountServices(breaker),
+            null
+        );
+    }
+
+    private static IngestDocument document(Object title) {
+        Map<String, Object> source = new HashMap<>();
+        if (title != null) {
+            source.put("title", title);
+        }
+        return new IngestDocument("index", "id", null, null, null, source);
+    }
+
+    public void testExecute() throws Exception {
+        IngestDocument document = processor(false).execute(document("the quick brown fox"));
+        assertThat(document.getFieldValue("title_words", Integer.class), equalTo(4));
+        // the stop word leaves a position gap, exactly like a token_count field counts it
+        assertThat(document.getFieldValue("title_positions", Integer.class), equalTo(4));
+        assertThat(document.getFieldValue("title_english_words", Integer.class), equalTo(4));
+    }
+
+    public void testExecuteMultipleValues() throws Exception {
+        IngestDocument document = processor(false).execute(document(Arrays.asList("quick brown fox", "lazy dog")));
+        assertThat(document.getFieldValue("title_words", List.class), equalTo(Arrays.asList(3, 2)));
+    }
+
+    public void testNormLengthMode() throws Exception {
+        TokenCountProcessor processor = new TokenCountProcessor(
+            randomAlphaOfLength(5),
+            null,
+            "title",
+            Map.of("title_words", "english"),
+            Map.of("english", new EnglishAnalyzer()),
+            TokenCountAnalyzer.CountMode.NORM_LENGTH,
+            false,
+            1_000_000,
+            100_000,
+            new TokenCountServices(),
+            null
+        );
+        IngestDocument document = processor.execute(document("the quick brown fox"));
+        assertThat(document.getFieldValue("title_words", Integer.class), equalTo(3));
+    }
+
+    public void testMissingField() throws Exception {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> processor(false).execute(document(null)));
+        assertThat(e.getMessage(), containsString("[title]"));
+
+        IngestDocument document = processor(true).execute(document(null));
+        assertThat(document.hasField("title_words"), equalTo(false));
+    }
+
+    public void testLimits() {
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> processor(false, 10, 100, new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME)).execute(
+                document("a text of 23 characters")
+            )
+        );
+        assertThat(e.getMessage(), containsString("[max_text_chars]"));
+
+        expectThrows(
+            IllegalArgumentException.class,
+            () -> processor(false, 100, 2, new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME)).execute(
+                document("quick brown fox")
+            )
+        );
+
+        // in a batch only the document with the oversized text fails
+        List<IngestDocumentWrapper> wrappers = Arrays.asList(
+            new IngestDocumentWrapper(0, document("quick fox"), null),
+            new IngestDocumentWrapper(1, document("a text of 23 characters"), null)
+        );
+        AtomicReference<List<IngestDocumentWrapper>> results = new AtomicReference<>();
+        processor(false, 10, 100, new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME)).batchExecute(
+            wrappers,
+            results::set
+        );
+        assertThat(results.get().get(0).getIngestDocument().getFieldValue("title_words", Integer.class), equalTo(2));
+        assertThat(results.get().get(1).getException().getMessage(), containsString("[max_text_chars]"));
+    }
+
+    public void testTextsAreChargedToTheBreaker() throws Exception {
+        AtomicLong used = new AtomicLong();
+        AtomicLong peak = new AtomicLong();
+        NoopCircuitBreaker breaker = new NoopCircuitBreaker(TokenCountQueryPlugin.CIRCUIT_BREAKER_NAME) {
+            @Override
+            public double addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                peak.accumulateAndGet(used.addAndGet(bytes), Math::max);
+                return used.get();
+            }
+
+            @Override
+            public long addWithoutBreaking(long bytes) {
+                return used.addAndGet(bytes);
+            }
+        };
+        IngestDocument document = processor(false, 1_000, 100, breaker).execute(document("quick brown fox"));
+        assertThat(document.getFieldValue("title_words", Integer.class), equalTo(3));
+        assertThat(peak.get(), equalTo(2L * "quick brown fox".length()));
+        assertThat(used.get(), equalTo(0L));
+    }
+
+    public void testNonStringValue() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> processor(false).execute(document(42)));
+        assertThat(e.getMessage(), containsString("cannot be cast to [String]"));
+    }
+
+    public void testBatchExecute() {
+        List<String> titles = Arrays.asList("quick brown fox", "lazy dog", "quick brown fox", "the end");
+        List<IngestDocumentWrapper> wrappers = new ArrayList<>();
+        for (int i = 0; i < titles.size(); i++) {
+            wrappers.add(new IngestDocumentWrapper(i, document(titles.get(i)), null));
+        }
+        wrappers.add(new IngestDocumentWrapper(titles.size(), document(null), null));
+
+        AtomicReference<List<IngestDocumentWrapper>> results = new AtomicReference<>();
+        processor(false).batchExecute(wrappers, results::set);
+
+        assertThat(results.get().size(), equalTo(wrappers.size()));
+        int[] expected = { 3, 2, 3, 2 };
+        for (int i = 0; i < titles.size(); i++) {
+            IngestDocumentWrapper result = results.get().get(i);
+            assertThat(result.getSlot(), equalTo(i));
+            assertThat(result.getException(), nullValue());
+            assertThat(result.getIngestDocument().getFieldValue("title_words", Integer.class), equalTo(expected[i]));
+        }
+        // the document without the field fails alone
+        IngestDocumentWrapper failed = results.get().get(titles.size());
+        assertThat(failed.getSlot(), equalTo(titles.size()));
+        assertThat(failed.getException().getMessage(), containsString("[title]"));
+    }
+
+    public void testBatchMatchesSingleDocumentExecution() throws Exception {
+        TokenCountProcessor processor = processor(false);
+        List<IngestDocumentWrapper> wrappers = new ArrayList<>();
+        List<IngestDocument> expected = new ArrayList<>();
+        int numDocs = randomIntBetween(1, 200);
+        for (int i = 0; i < numDocs; i++) {
+            String title = randomFrom("the", "quick", "brown", "fox")
+                + " "
+                + randomAlphaOfLengthBetween(1, 3)
+                + " of "
+                + randomAlphaOfLength(2);
+            wrappers.add(new IngestDocumentWrapper(i, document(title), null));
+            expected.add(processor.execute(document(title)));
+        }
+        AtomicReference<List<IngestDocumentWrapper>> results = new AtomicReference<>();
+        processor.batchExecute(wrappers, results::set);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(results.get().get(i).getIngestDocument().getSourceAndMetadata(), equalTo(expected.get(i).getSourceAndMetadata()));
+        }
+    }
+}
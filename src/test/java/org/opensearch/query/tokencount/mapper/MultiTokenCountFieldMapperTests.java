@@ -0,0 +1,182 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.mapper;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.analysis.AnalyzerScope;
+import org.opensearch.index.analysis.IndexAnalyzers;
+import org.opensearch.index.analysis.NamedAnalyzer;
+import org.opensearch.index.mapper.DocumentMapper;
+import org.opensearch.index.mapper.MapperParsingException;
+import org.opensearch.index.mapper.MapperService;
+import org.opensearch.index.mapper.MapperServiceTestCase;
+import org.opensearch.plugins.Plugin;
+import org.opensearch.query.tokencount.TokenCountQueryBuilder;
+import org.opensearch.query.tokencount.TokenCountQueryHelper;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class MultiTokenCountFieldMapperTests extends MapperServiceTestCase {
+
+    @Override
+    protected Collection<? extends Plugin> getPlugins() {
+        return Collections.singletonList(new TokenCountQueryPlugin());
+    }
+
+    @Override
+    protected IndexAnalyzers createIndexAnalyzers(IndexSettings indexSettings) {
+        Map<String, NamedAnalyzer> analyzers = new HashMap<>();
+        analyzers.put("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer()));
+        analyzers.put("standard", new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer()));
+        analyzers.put("whitespace", new NamedAnalyzer("whitespace", AnalyzerScope.INDEX, new WhitespaceAnalyzer()));
+        analyzers.put("keyword", new NamedAnalyzer("keyword", AnalyzerScope.INDEX, new KeywordAnalyzer()));
+        analyzers.put("my.whitespace", new NamedAnalyzer("my.whitespace", AnalyzerScope.INDEX, new WhitespaceAnalyzer()));
+        return new IndexAnalyzers(analyzers, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    private static void countsMapping(XContentBuilder b, String... analyzers) throws IOException {
+        b.field("type", "text");
+        b.startObject("fields");
+        {
+            b.startObject("counts");
+            b.field("type", MultiTokenCountFieldMapper.CONTENT_TYPE);
+            b.array("analyzers", analyzers);
+            b.endObject();
+        }
+        b.endObject();
+    }
+
+    public void testCountsEveryAnalyzerIntoOneField() throws IOException {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> countsMapping(b, "standard", "whitespace", "keyword")));
+        IndexableField[] fields = mapper.parse(source(b -> b.field("field", "Wi-Fi router"))).rootDoc().getFields("field.counts");
+
+        // one point and one doc value per analyzer
+        assertThat(fields.length, equalTo(6));
+        Set<Long> values = new HashSet<>();
+        for (IndexableField field : fields) {
+            if (field.fieldType().docValuesType() == DocValuesType.SORTED_NUMERIC) {
+                values.add(field.numericValue().longValue());
+            }
+        }
+        assertThat(
+            values,
+            equalTo(
+                new HashSet<>(
+                    Arrays.asList(
+                        MultiTokenCountFieldMapper.MultiTokenCountFieldType.encode(0, 3),
+                        MultiTokenCountFieldMapper.MultiTokenCountFieldType.encode(1, 2),
+                        MultiTokenCountFieldMapper.MultiTokenCountFieldType.encode(2, 1)
+                    )
+                )
+            )
+        );
+    }
+
+    public void testMappingSerialization() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> countsMapping(b, "standard", "whitespace")));
+        String mapping = mapperService.documentMapper().mappingSource().toString();
+        assertThat(mapping, containsString("\"counts\":{\"type\":\"multi_token_count\",\"analyzers\":[\"standard\",\"whitespace\"]}"));
+    }
+
+    public void testInvalidAnalyzers() {
+        MapperParsingException e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(fieldMapping(b -> countsMapping(b, "standard", "does_not_exist")))
+        );
+        assertThat(e.getMessage(), containsString("analyzer [does_not_exist] not found for field [counts]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> countsMapping(b))));
+        assertThat(e.getMessage(), containsString("[analyzers] must not be empty"));
+
+        e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(fieldMapping(b -> countsMapping(b, "standard", "standard")))
+        );
+        assertThat(e.getMessage(), containsString("[analyzers] must not contain duplicates"));
+    }
+
+    public void testCountNames() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> countsMapping(b, "standard", "whitespace")));
+        MultiTokenCountFieldMapper.MultiTokenCountFieldType fieldType = MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(
+            mapperService::fieldType,
+            "field.counts.whitespace"
+        );
+        assertThat(fieldType.name(), equalTo("field.counts"));
+        assertThat(fieldType.analyzerOf("field.counts.whitespace"), equalTo("whitespace"));
+        assertNull(MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(mapperService::fieldType, "field.counts.keyword"));
+        assertNull(MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(mapperService::fieldType, "field.whitespace"));
+    }
+
+    public void testCountNamesOfDottedAnalyzers() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> countsMapping(b, "standard", "my.whitespace")));
+        MultiTokenCountFieldMapper.MultiTokenCountFieldType fieldType = MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(
+            mapperService::fieldType,
+            "field.counts.my.whitespace"
+        );
+        assertThat(fieldType.name(), equalTo("field.counts"));
+        assertThat(fieldType.analyzerOf("field.counts.my.whitespace"), equalTo("my.whitespace"));
+        assertNull(MultiTokenCountFieldMapper.MultiTokenCountFieldType.forCountName(mapperService::fieldType, "field.counts.whitespace"));
+    }
+
+    public void testQueriesOnlyMatchTheirAnalyzer() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> countsMapping(b, "standard", "whitespace")));
+        MultiTokenCountFieldMapper.MultiTokenCountFieldType fieldType = (MultiTokenCountFieldMapper.MultiTokenCountFieldType) mapperService
+            .fieldType("field.counts");
+        String[] texts = { "Wi-Fi router", "quick brown fox", "U.S.A. maps", "a b c d" };
+        withLuceneIndex(mapperService, iw -> {
+            for (String text : texts) {
+                iw.addDocument(mapperService.documentMapper().parse(source(b -> b.field("field", text))).rootDoc());
+            }
+        }, reader -> {
+            IndexSearcher searcher = newSearcher(reader);
+            // standard counts: 3, 3, 2, 4; whitespace counts: 2, 3, 2, 4
+            assertThat(searcher.count(query(fieldType, "standard", TokenCountQueryBuilder.Operator.EQ, 3)), equalTo(2));
+            assertThat(searcher.count(query(fieldType, "whitespace", TokenCountQueryBuilder.Operator.EQ, 3)), equalTo(1));
+            assertThat(searcher.count(query(fieldType, "whitespace", TokenCountQueryBuilder.Operator.LT, 3)), equalTo(2));
+            assertThat(searcher.count(query(fieldType, "standard", TokenCountQueryBuilder.Operator.GT, 3)), equalTo(1));
+            assertThat(searcher.count(query(fieldType, "whitespace", TokenCountQueryBuilder.Operator.GTE, 0)), equalTo(4));
+            assertThat(searcher.count(query(fieldType, "standard", TokenCountQueryBuilder.Operator.LTE, 4)), equalTo(4));
+            assertThat(searcher.count(query(fieldType, "whitespace", TokenCountQueryBuilder.Operator.EQ, 2, 4)), equalTo(3));
+            assertThat(searcher.count(query(fieldType, "whitespace", TokenCountQueryBuilder.Operator.EQ, 2, 3)), equalTo(3));
+        });
+
+        assertThat(query(fieldType, "standard", TokenCountQueryBuilder.Operator.GT, 3), instanceOf(IndexOrDocValuesQuery.class));
+        assertThat(query(fieldType, "standard", TokenCountQueryBuilder.Operator.LT, 0), instanceOf(MatchNoDocsQuery.class));
+    }
+
+    private static Query query(
+        MultiTokenCountFieldMapper.MultiTokenCountFieldType fieldType,
+        String analyzer,
+        TokenCountQueryBuilder.Operator operator,
+        int... counts
+    ) {
+        return TokenCountQueryHelper.createQuery(fieldType, analyzer, counts, operator);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.script;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.index.IndexService;
+import org.opensearch.query.tokencount.TokenCountAnalyzer;
+import org.opensearch.plugins.Plugin;
+import org.opensearch.query.tokencount.TokenCountCache;
+import org.opensearch.query.tokencount.TokenCountQueryPlugin;
+import org.opensearch.query.tokencount.TokenCountServices;
+import org.opensearch.test.OpenSearchSingleNodeTestCase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountFunctionTests extends OpenSearchSingleNodeTestCase {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        List<Class<? extends Plugin>> plugins = new ArrayList<>(super.getPlugins());
+        plugins.add(TokenCountQueryPlugin.class);
+        return plugins;
+    }
+
+    public void testCountsPositionsWithTheNamedAnalyzer() {
+        IndexService indexService = createIndex("test");
+        TokenCountFunction standard = new TokenCountFunction(indexService, new TokenCountServices());
+        assertThat(standard.tokenCount("standard", "Wi-Fi router"), equalTo(3));
+        assertThat(standard.tokenCount("standard", "Wi-Fi router"), equalTo(3));
+        assertThat(standard.tokenCount("standard", ""), equalTo(0));
+
+        TokenCountFunction whitespace = new TokenCountFunction(indexService, new TokenCountServices());
+        assertThat(whitespace.tokenCount("whitespace", "Wi-Fi router"), equalTo(2));
+    }
+
+    public void testNullTextCountsZero() {
+        IndexService indexService = createIndex("test");
+        TokenCountFunction function = new TokenCountFunction(indexService, new TokenCountServices());
+        assertThat(function.tokenCount("standard", null), equalTo(0));
+        assertThat(function.tokenCount("standard", "quick brown fox"), equalTo(3));
+    }
+
+    public void testCallSitesKeepTheirAnalyzer() {
+        IndexService indexService = createIndex("test");
+        TokenCountFunction function = new TokenCountFunction(indexService, new TokenCountServices());
+        assertThat(function.tokenCount("standard", "Wi-Fi router"), equalTo(3));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> function.tokenCount("whitespace", "Wi-Fi router"));
+        assertThat(e.getMessage(), containsString("got [whitespace] after [standard]"));
+    }
+
+    public void testCountsAreSharedThroughTheNodeCache() {
+        IndexService indexService = createIndex("test");
+        TokenCountServices services = TokenCountFunction.indices().get("test").services;
+        TokenCountCache cache = services.cache();
+        new TokenCountFunction(indexService, services).tokenCount("standard", "quick brown fox");
+        assertThat(
+            cache.get(
+                indexService.index(),
+                indexService.getIndexAnalyzers().get("standard"),
+                TokenCountAnalyzer.CountMode.POSITIONS,
+                "quick brown fox"
+            ),
+            equalTo(3)
+        );
+    }
+
+    public void testUnknownAnalyzer() {
+        IndexService indexService = createIndex("test");
+        TokenCountFunction function = new TokenCountFunction(indexService, new TokenCountServices());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> function.tokenCount("missing", "quick brown fox"));
+        assertThat(e.getMessage(), equalTo("analyzer [missing] not found in index [test]"));
+    }
+
+    public void testTextLengthLimit() {
+        IndexService indexService = createIndex(
+            "test",
+            Settings.builder().put(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getKey(), 10).build()
+        );
+        TokenCountFunction function = new TokenCountFunction(indexService, new TokenCountServices());
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> function.tokenCount("standard", "a text of 23 characters")
+        );
+        assertThat(e.getMessage(), containsString(TokenCountAnalyzer.MAX_TEXT_CHARS_SETTING.getKey()));
+    }
+
+    public void testIndicesAreResolvedByName() {
+        IndexService indexService = createIndex("test");
+        TokenCountServices services = new TokenCountServices();
+        TokenCountScriptIndices indices = new TokenCountScriptIndices();
+        indices.register(indexService, services);
+        assertSame(indexService, indices.get("test").indexService);
+        assertSame(services, indices.get("test").services);
+
+        indices.remove(indexService.index(), services);
+        IllegalStateException e = expectThrows(IllegalStateException.class, () -> indices.get("test"));
+        assertThat(e.getMessage(), equalTo("index [test] is not allocated on this node"));
+    }
+}
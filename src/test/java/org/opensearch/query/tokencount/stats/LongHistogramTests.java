@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.test.OpenSearchTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LongHistogramTests extends OpenSearchTestCase {
+
+    public void testBuckets() {
+        assertThat(LongHistogram.bucket(0), equalTo(0));
+        assertThat(LongHistogram.bucket(1), equalTo(1));
+        assertThat(LongHistogram.bucket(2), equalTo(2));
+        assertThat(LongHistogram.bucket(3), equalTo(2));
+        assertThat(LongHistogram.bucket(4), equalTo(3));
+        assertThat(LongHistogram.bucket(Long.MAX_VALUE), equalTo(LongHistogram.BUCKETS - 1));
+    }
+
+    public void testConcurrentRecording() throws InterruptedException {
+        LongHistogram histogram = new LongHistogram();
+        int threads = randomIntBetween(2, 8);
+        int perThread = randomIntBetween(100, 1000);
+        Thread[] recorders = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            recorders[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(5);
+                }
+            });
+            recorders[t].start();
+        }
+        for (Thread recorder : recorders) {
+            recorder.join();
+        }
+        LongHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count(), equalTo((long) threads * perThread));
+        assertThat(snapshot.bucketCount(LongHistogram.bucket(5)), equalTo((long) threads * perThread));
+        assertThat(snapshot.sum(), equalTo(5L * threads * perThread));
+        assertThat(snapshot.max(), equalTo(5L));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.common.io.stream.StreamInput;
+import org.opensearch.query.tokencount.TokenCountQueryBuilder;
+import org.opensearch.test.OpenSearchTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TokenCountStatsTests extends OpenSearchTestCase {
+
+    public void testSnapshot() {
+        TokenCountStats stats = new TokenCountStats();
+        stats.onQuery(TokenCountQueryBuilder.Operator.EQ);
+        stats.onQuery(TokenCountQueryBuilder.Operator.EQ);
+        stats.onQuery(TokenCountQueryBuilder.Operator.GT);
+        stats.onAnalysis("standard", 15, 3, 1000);
+        stats.onAnalysis("english", 30, 6, 2000);
+        stats.onCacheHit();
+        stats.onCacheMiss();
+        stats.onDefaultAnalyzerFallback();
+
+        TokenCountStatsSnapshot snapshot = stats.snapshot(1, 64);
+        assertThat(snapshot.operators().get("eq"), equalTo(2L));
+        assertThat(snapshot.operators().get("gt"), equalTo(1L));
+        assertThat(snapshot.operators().get("lte"), equalTo(0L));
+        assertThat(snapshot.analysisNanosByAnalyzer().get("standard").sum(), equalTo(1000L));
+        assertThat(snapshot.analysisNanosByAnalyzer().get("english").sum(), equalTo(2000L));
+        assertThat(snapshot.textChars().sum(), equalTo(45L));
+        assertThat(snapshot.tokenCounts().max(), equalTo(6L));
+        assertThat(snapshot.cacheHits(), equalTo(1L));
+        assertThat(snapshot.cacheMisses(), equalTo(1L));
+        assertThat(snapshot.defaultAnalyzerFallbacks(), equalTo(1L));
+    }
+
+    public void testSerialization() throws IOException {
+        TokenCountStats stats = new TokenCountStats();
+        for (int i = 0; i < randomIntBetween(0, 20); i++) {
+            stats.onQuery(randomFrom(TokenCountQueryBuilder.Operator.values()));
+            stats.onAnalysis(
+                randomFrom("standard", "english"),
+                randomIntBetween(1, 1000),
+                randomIntBetween(0, 100),
+                randomIntBetween(0, 1_000_000)
+            );
+        }
+        TokenCountStatsSnapshot snapshot = stats.snapshot(randomNonNegativeLong(), randomNonNegativeLong());
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            snapshot.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new TokenCountStatsSnapshot(in), equalTo(snapshot));
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.query.tokencount.stats;
+
+import org.mockito.ArgumentCaptor;
+import org.opensearch.telemetry.metrics.Histogram;
+import org.opensearch.telemetry.metrics.MetricsRegistry;
+import org.opensearch.telemetry.metrics.noop.NoopMetricsRegistry;
+import org.opensearch.telemetry.metrics.tags.Tags;
+import org.opensearch.telemetry.tracing.Span;
+import org.opensearch.telemetry.tracing.SpanCreationContext;
+import org.opensearch.telemetry.tracing.Tracer;
+import org.opensearch.telemetry.tracing.noop.NoopSpan;
+import org.opensearch.test.OpenSearchTestCase;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenCountTelemetryTests extends OpenSearchTestCase {
+
+    public void testNoSpansWhileTheTracerDoesNotRecord() {
+        Tracer tracer = mock(Tracer.class);
+        when(tracer.isRecording()).thenReturn(false);
+        TokenCountTelemetry telemetry = new TokenCountTelemetry(tracer, NoopMetricsRegistry.INSTANCE);
+
+        Span span = telemetry.startSpan(TokenCountTelemetry.ANALYSIS_SPAN);
+        assertSame(NoopSpan.INSTANCE, span);
+        assertNull(telemetry.withSpanInScope(span));
+        telemetry.onAnalysis(span, "standard", 12, 3, 1_000);
+        verify(tracer, never()).startSpan(any(SpanCreationContext.class));
+    }
+
+    public void testAnalysisIsRecordedOnTheSpanAndInHistograms() {
+        Tracer tracer = mock(Tracer.class);
+        Span recorded = mock(Span.class);
+        when(tracer.isRecording()).thenReturn(true);
+        when(tracer.startSpan(any(SpanCreationContext.class))).thenReturn(recorded);
+        MetricsRegistry metricsRegistry = mock(MetricsRegistry.class);
+        Histogram latency = mock(Histogram.class);
+        Histogram textLength = mock(Histogram.class);
+        Histogram tokens = mock(Histogram.class);
+        when(metricsRegistry.createHistogram(eq("token_count.analysis.latency"), anyString(), anyString())).thenReturn(latency);
+        when(metricsRegistry.createHistogram(eq("token_count.analysis.text_length"), anyString(), anyString())).thenReturn(textLength);
+        when(metricsRegistry.createHistogram(eq("token_count.analysis.tokens"), anyString(), anyString())).thenReturn(tokens);
+        TokenCountTelemetry telemetry = new TokenCountTelemetry(tracer, metricsRegistry);
+
+        Span span = telemetry.startSpan(TokenCountTelemetry.ANALYSIS_SPAN);
+        assertSame(recorded, span);
+        telemetry.onAnalysis(span, "standard", 12, 3, 2_000_000);
+        telemetry.onAnalysis(span, "standard", 20, 4, 1_000_000);
+        verify(recorded).addAttribute("analyzer", "standard");
+        verify(recorded).addAttribute("text_length", 12L);
+        verify(recorded).addAttribute("token_count", 3L);
+        verify(latency).record(eq(2.0), any(Tags.class));
+        verify(textLength).record(eq(12.0), any(Tags.class));
+        verify(tokens).record(eq(3.0), any(Tags.class));
+
+        // the tags of an analyzer are created once
+        ArgumentCaptor<Tags> tags = ArgumentCaptor.forClass(Tags.class);
+        verify(tokens, times(2)).record(anyDouble(), tags.capture());
+        assertSame(tags.getAllValues().get(0), tags.getAllValues().get(1));
+    }
+}